@@ -1,7 +1,6 @@
 module org.example.equation_plotter {
     requires javafx.controls;
     requires javafx.fxml;
-    requires javafx.web;
 
     requires org.controlsfx.controls;
     requires net.synedra.validatorfx;
@@ -9,11 +8,12 @@ module org.example.equation_plotter {
     requires eu.hansolo.tilesfx;
     requires org.kordamp.ikonli.fontawesome5;
     requires java.desktop;
+    requires jlatexmath;
     requires MathParser.org.mXparser;
     requires atlantafx.base;
     requires javafx.swing;
     requires java.logging;
-    requires jdk.jsobject;
+    requires jdk.httpserver;
 
     opens org.example.equation_plotter to javafx.fxml;
     exports org.example.equation_plotter;
@@ -0,0 +1,205 @@
+package org.example.equation_plotter;
+
+import javafx.scene.paint.Color;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Headless batch mode: renders equation files (one equation per line, as File > Save writes them) to
+// PNG or SVG without starting the JavaFX stage, so it runs on a display-less box.
+// Files are rendered concurrently; every export is itself strip-parallel (see PlotExporter).
+//
+//   java ... org.example.equation_plotter.Launcher --batch [options] file...
+//
+//   --width N, --height N     output size in pixels (default 1600 x 1200)
+//   --x MIN,MAX               visible x range (default -10,10); sets the scale
+//   --center X,Y              centre of the view (default: middle of --x, 0)
+//   --format png|svg          output format (default png)
+//   --out DIR                 output directory (default: next to each input)
+//   --threads N               files rendered at once (default: number of cores)
+//   --no-grid                 curves only
+public final class BatchRenderer {
+    // Same palette the editor assigns to new rows
+    private static final List<Color> COLORS = List.of(Color.RED, Color.BLUE, Color.GREEN, Color.ORANGE, Color.PURPLE, Color.BLACK);
+
+    private int width = 1600, height = 1200;
+    private double xMin = -10, xMax = 10;
+    private Double centerX = null;
+    private double centerY = 0;
+    private String format = "png";
+    private Path outDir = null;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean grid = true;
+    private final List<Path> inputs = new ArrayList<>();
+
+    private BatchRenderer() {
+    }
+
+    public static void main(String[] args) {
+        BatchRenderer batch = new BatchRenderer();
+        try {
+            batch.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println("error: " + e.getMessage());
+            printUsage();
+            System.exit(2);
+        }
+        System.exit(batch.run() ? 0 : 1);
+    }
+
+    private static void printUsage() {
+        System.err.println("usage: --batch [--width N] [--height N] [--x MIN,MAX] [--center X,Y] [--format png|svg]");
+        System.err.println("               [--out DIR] [--threads N] [--no-grid] file...");
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--width" -> width = positiveInt(value(args, ++i, arg), arg);
+                case "--height" -> height = positiveInt(value(args, ++i, arg), arg);
+                case "--x" -> {
+                    double[] range = pair(value(args, ++i, arg), arg);
+                    if (!(range[1] > range[0])) throw new IllegalArgumentException("--x needs MIN < MAX");
+                    xMin = range[0];
+                    xMax = range[1];
+                }
+                case "--center" -> {
+                    double[] c = pair(value(args, ++i, arg), arg);
+                    centerX = c[0];
+                    centerY = c[1];
+                }
+                case "--format" -> {
+                    format = value(args, ++i, arg).toLowerCase(Locale.ROOT);
+                    if (!format.equals("png") && !format.equals("svg")) throw new IllegalArgumentException("unknown format " + format);
+                }
+                case "--out" -> outDir = Path.of(value(args, ++i, arg));
+                case "--threads" -> threads = positiveInt(value(args, ++i, arg), arg);
+                case "--no-grid" -> grid = false;
+                default -> {
+                    if (arg.startsWith("--")) throw new IllegalArgumentException("unknown option " + arg);
+                    inputs.add(Path.of(arg));
+                }
+            }
+        }
+        if (inputs.isEmpty()) throw new IllegalArgumentException("no input files");
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) throw new IllegalArgumentException(option + " needs a value");
+        return args[i];
+    }
+
+    private static int positiveInt(String s, String option) {
+        try {
+            int v = Integer.parseInt(s);
+            if (v > 0) return v;
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException(option + " needs a positive integer");
+    }
+
+    private static double[] pair(String s, String option) {
+        String[] parts = s.split(",");
+        if (parts.length != 2) throw new IllegalArgumentException(option + " needs two comma separated numbers");
+        try {
+            return new double[]{Double.parseDouble(parts[0].trim()), Double.parseDouble(parts[1].trim())};
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(option + " needs two comma separated numbers");
+        }
+    }
+
+    // Renders every input; returns false if any failed
+    private boolean run() {
+        if (outDir != null) {
+            try {
+                Files.createDirectories(outDir);
+            } catch (IOException e) {
+                System.err.println("cannot create " + outDir + ": " + e.getMessage());
+                return false;
+            }
+        }
+
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (Path input : inputs) results.add(pool.submit(() -> renderFile(input)));
+
+        int ok = 0, failed = 0;
+        for (Future<Boolean> result : results) {
+            try {
+                if (result.get()) ok++;
+                else failed++;
+            } catch (Exception e) {
+                failed++;
+            }
+        }
+        pool.shutdown();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT, "%d plots in %.2f s (%.1f plots/sec)%s%n", ok, seconds, ok / seconds,
+                failed > 0 ? ", " + failed + " failed" : "");
+        return failed == 0;
+    }
+
+    private boolean renderFile(Path input) {
+        long start = System.nanoTime();
+        try {
+            List<PlotExporter.Curve> curves = new ArrayList<>();
+            int colorIndex = 0;
+            int lineNo = 0;
+            for (String line : Files.readAllLines(input)) {
+                lineNo++;
+                line = line.trim();
+                if (line.isEmpty()) continue;
+                Color color = COLORS.get(colorIndex++ % COLORS.size());
+                EquationParser parser = new EquationParser(line);
+                if (!parser.isValid()) {
+                    System.err.println(input + ":" + lineNo + ": " + parser.getErrorMessage());
+                    continue;
+                }
+                if (parser.getPoints() != null) continue; // single points are not plotted in exports
+                curves.add(new PlotExporter.Curve(parser.bindCurrentValues(), color));
+            }
+
+            double scale = width / (xMax - xMin);
+            double cx = centerX != null ? centerX : (xMin + xMax) / 2;
+            PlotExporter exporter = new PlotExporter(curves, cx, centerY, scale, width, height).grid(grid);
+
+            Path output = outputFor(input);
+            if (format.equals("svg")) {
+                try (Writer writer = Files.newBufferedWriter(output)) {
+                    exporter.writeSvg(writer);
+                }
+            } else {
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(output), 1 << 16)) {
+                    exporter.writePng(out);
+                }
+            }
+            System.out.printf(Locale.ROOT, "%s -> %s (%d curves, %d ms)%n", input, output, curves.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            System.err.println(input + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private Path outputFor(Path input) {
+        String name = input.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        Path dir = outDir != null ? outDir : input.toAbsolutePath().getParent();
+        return dir.resolve(base + "." + format);
+    }
+}
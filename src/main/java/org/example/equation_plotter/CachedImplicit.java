@@ -1,16 +1,122 @@
 package org.example.equation_plotter;
 
 import java.util.List;
+import java.util.function.Consumer;
 
+// Traced implicit segments {x1, y1, x2, y2} in graph coordinates, plus a uniform grid over them so a
+// redraw after zooming in only visits the cells in view. Marching-squares segments are a fraction of a
+// cell long, so each one is filed under the cell of its midpoint and queries are widened by the
+// longest half-extent instead of storing a segment in every cell it crosses.
 public class CachedImplicit {
+    private static final int LINES_PER_CELL = 4;
+
     List<double[]> lines;
     double scale;
     double cx, cy;
+    boolean approximate; // traced with FastMath while interacting; replaced once the view settles
+
+    // cellStart[c] .. cellStart[c + 1] indexes cellLines for cell c = row * cols + col
+    private int cols, rows;
+    private double minX, minY, cellW, cellH;
+    private double reachX, reachY;
+    private int[] cellStart;
+    private int[] cellLines;
 
     public CachedImplicit(List<double[]> lines, double scale, double cx, double cy) {
+        this(lines, scale, cx, cy, false);
+    }
+
+    public CachedImplicit(List<double[]> lines, double scale, double cx, double cy, boolean approximate) {
         this.lines = lines;
         this.scale = scale;
         this.cx = cx;
         this.cy = cy;
+        this.approximate = approximate;
+        buildIndex();
+    }
+
+    private void buildIndex() {
+        int n = lines.size();
+        double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY;
+        minX = Double.POSITIVE_INFINITY;
+        minY = Double.POSITIVE_INFINITY;
+        for (double[] line : lines) {
+            double mx = (line[0] + line[2]) / 2, my = (line[1] + line[3]) / 2;
+            minX = Math.min(minX, mx);
+            minY = Math.min(minY, my);
+            maxX = Math.max(maxX, mx);
+            maxY = Math.max(maxY, my);
+            reachX = Math.max(reachX, Math.abs(line[2] - line[0]) / 2);
+            reachY = Math.max(reachY, Math.abs(line[3] - line[1]) / 2);
+        }
+        if (n == 0) {
+            cols = rows = 0;
+            cellStart = new int[1];
+            cellLines = new int[0];
+            return;
+        }
+
+        // Square-ish cells, about n / LINES_PER_CELL of them over the bounding box
+        double spanX = Math.max(maxX - minX, 1e-300), spanY = Math.max(maxY - minY, 1e-300);
+        double cells = Math.max(1, (double) n / LINES_PER_CELL);
+        double side = Math.sqrt(spanX * spanY / cells);
+        cols = (int) Math.clamp(Math.ceil(spanX / side), 1, 4096);
+        rows = (int) Math.clamp(Math.ceil(spanY / side), 1, 4096);
+        cellW = spanX / cols;
+        cellH = spanY / rows;
+
+        cellStart = new int[cols * rows + 1];
+        int[] cellOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            double[] line = lines.get(i);
+            int c = cellIndex((line[0] + line[2]) / 2, (line[1] + line[3]) / 2);
+            cellOf[i] = c;
+            cellStart[c + 1]++;
+        }
+        for (int c = 0; c < cols * rows; c++) cellStart[c + 1] += cellStart[c];
+        int[] fill = new int[cols * rows];
+        System.arraycopy(cellStart, 0, fill, 0, fill.length);
+        cellLines = new int[n];
+        for (int i = 0; i < n; i++) cellLines[fill[cellOf[i]]++] = i;
+    }
+
+    private int cellIndex(double x, double y) {
+        int col = Math.clamp((long) ((x - minX) / cellW), 0, cols - 1);
+        int row = Math.clamp((long) ((y - minY) / cellH), 0, rows - 1);
+        return row * cols + col;
+    }
+
+    // Visits every segment that may touch [x0, x1] x [y0, y1] (graph coordinates)
+    void forEachVisible(double x0, double y0, double x1, double y1, Consumer<double[]> action) {
+        if (cols == 0) return;
+        int c0 = Math.max(0, colOf(x0 - reachX)), c1 = Math.min(cols - 1, colOf(x1 + reachX));
+        int r0 = Math.max(0, rowOf(y0 - reachY)), r1 = Math.min(rows - 1, rowOf(y1 + reachY));
+        if (c0 > c1 || r0 > r1) return;
+        for (int row = r0; row <= r1; row++) {
+            int from = cellStart[row * cols + c0], to = cellStart[row * cols + c1 + 1];
+            for (int k = from; k < to; k++) action.accept(lines.get(cellLines[k]));
+        }
+    }
+
+    // Upper bound on the segments forEachVisible would visit, without touching them
+    int countVisible(double x0, double y0, double x1, double y1) {
+        if (cols == 0) return 0;
+        int c0 = Math.max(0, colOf(x0 - reachX)), c1 = Math.min(cols - 1, colOf(x1 + reachX));
+        int r0 = Math.max(0, rowOf(y0 - reachY)), r1 = Math.min(rows - 1, rowOf(y1 + reachY));
+        if (c0 > c1 || r0 > r1) return 0;
+        int total = 0;
+        for (int row = r0; row <= r1; row++) {
+            total += cellStart[row * cols + c1 + 1] - cellStart[row * cols + c0];
+        }
+        return total;
+    }
+
+    // Outside the grid these land one past the edge, so a query that misses it comes out as an empty range
+    private int colOf(double x) {
+        return (int) Math.clamp(Math.floor((x - minX) / cellW), -1, cols);
+    }
+
+    private int rowOf(double y) {
+        return (int) Math.clamp(Math.floor((y - minY) / cellH), -1, rows);
     }
 }
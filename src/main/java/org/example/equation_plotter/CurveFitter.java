@@ -0,0 +1,235 @@
+package org.example.equation_plotter;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+import java.util.stream.IntStream;
+
+// Least-squares fit of an explicit equation's slider parameters to a point series (Levenberg-Marquardt).
+// The Jacobian is never stored: every pass splits the points into chunks that are evaluated in parallel,
+// each chunk accumulating its own J^T J, J^T r and squared error, and the k x k partial sums are added
+// up at the end. Derivatives with respect to the parameters are forward differences, so a pass costs
+// k + 1 evaluations per point, on frozen parsers (see EquationParser.bind) that any thread can use.
+final class CurveFitter {
+    private static final int CHUNK = 4096;
+    private static final int MAX_ITERATIONS = 200;
+    private static final double MAX_LAMBDA = 1e12;
+
+    record Result(Map<Character, Double> values, double rms, int iterations, boolean converged) {
+    }
+
+    private final EquationParser parser;
+    private final PointSeries series;
+    private final char[] names;
+    private final double[] start;
+    private DoubleConsumer onProgress = p -> {
+    };
+    private BooleanSupplier cancelled = () -> false;
+
+    // Reads the current slider values, so construct it on the FX thread
+    CurveFitter(EquationParser parser, PointSeries series) {
+        if (!parser.isValid() || parser.isImplicit()) throw new IllegalArgumentException("only explicit equations can be fitted");
+        Map<Character, Double> values = parser.getParameterValues();
+        if (values.isEmpty()) throw new IllegalArgumentException("the equation has no parameters to fit");
+        this.parser = parser;
+        this.series = series;
+        this.names = new char[values.size()];
+        this.start = new double[values.size()];
+        int j = 0;
+        for (Map.Entry<Character, Double> e : values.entrySet()) {
+            names[j] = e.getKey();
+            start[j++] = e.getValue();
+        }
+    }
+
+    // Fraction of the iteration budget used so far (fits usually converge long before)
+    CurveFitter onProgress(DoubleConsumer onProgress) {
+        this.onProgress = onProgress;
+        return this;
+    }
+
+    CurveFitter cancelWhen(BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+        return this;
+    }
+
+    Result fit() {
+        int k = names.length;
+        double[] p = start.clone();
+        double lambda = 1e-3;
+        Normal normal = accumulate(p, true);
+        if (normal.used == 0) throw new IllegalArgumentException("the equation is undefined at every data point");
+
+        int iteration = 0;
+        boolean converged = false;
+        while (iteration < MAX_ITERATIONS && !converged) {
+            iteration++;
+            if (cancelled.getAsBoolean()) throw new CancellationException();
+            onProgress.accept((double) iteration / MAX_ITERATIONS);
+
+            // Marquardt's damping: scale the diagonal rather than add to it, so parameters of very
+            // different magnitude are damped alike
+            double[][] a = new double[k][k];
+            for (int r = 0; r < k; r++) {
+                System.arraycopy(normal.jtj[r], 0, a[r], 0, k);
+                a[r][r] += lambda * Math.max(normal.jtj[r][r], 1e-12);
+            }
+            double[] step = solve(a, normal.jtr.clone());
+            if (step == null) {
+                lambda *= 10;
+                if (lambda > MAX_LAMBDA) break;
+                continue;
+            }
+
+            double[] candidate = new double[k];
+            for (int j = 0; j < k; j++) candidate[j] = p[j] + step[j];
+            Normal next = accumulate(candidate, false);
+            if (next.used >= normal.used && next.cost < normal.cost) {
+                double drop = normal.cost - next.cost;
+                p = candidate;
+                lambda = Math.max(lambda / 10, 1e-12);
+                converged = drop <= 1e-10 * normal.cost || smallStep(step, p);
+                normal = accumulate(p, true);
+            } else {
+                lambda *= 10;
+                if (lambda > MAX_LAMBDA) {
+                    converged = true; // no direction improves any more: a minimum to working precision
+                    break;
+                }
+            }
+        }
+
+        Map<Character, Double> values = new TreeMap<>();
+        for (int j = 0; j < k; j++) values.put(names[j], p[j]);
+        return new Result(values, Math.sqrt(normal.cost / normal.used), iteration, converged);
+    }
+
+    private static boolean smallStep(double[] step, double[] p) {
+        for (int j = 0; j < step.length; j++) {
+            if (Math.abs(step[j]) > 1e-8 * (Math.abs(p[j]) + 1e-8)) return false;
+        }
+        return true;
+    }
+
+    // Squared error (and with jacobian, J^T J and J^T r) over every point where the model is defined
+    private static final class Normal {
+        double cost;
+        long used;
+        final double[][] jtj;
+        final double[] jtr;
+
+        Normal(int k) {
+            jtj = new double[k][k];
+            jtr = new double[k];
+        }
+
+        Normal add(Normal o) {
+            cost += o.cost;
+            used += o.used;
+            for (int r = 0; r < jtr.length; r++) {
+                jtr[r] += o.jtr[r];
+                for (int c = 0; c < jtr.length; c++) jtj[r][c] += o.jtj[r][c];
+            }
+            return this;
+        }
+
+        // Only the upper triangle of J^T J is accumulated
+        Normal symmetric() {
+            for (int r = 0; r < jtr.length; r++) {
+                for (int c = 0; c < r; c++) jtj[r][c] = jtj[c][r];
+            }
+            return this;
+        }
+    }
+
+    private Normal accumulate(double[] p, boolean jacobian) {
+        int k = p.length;
+        EquationParser model = frame(p);
+        EquationParser[] shifted = new EquationParser[jacobian ? k : 0];
+        double[] h = new double[k];
+        for (int j = 0; j < shifted.length; j++) {
+            double[] q = p.clone();
+            h[j] = 1.5e-8 * Math.max(Math.abs(p[j]), 1);
+            q[j] += h[j];
+            h[j] = q[j] - p[j]; // the step that was actually representable
+            shifted[j] = frame(q);
+        }
+        int branches = model.getBranchCount();
+        int chunks = (series.size + CHUNK - 1) / CHUNK;
+
+        return IntStream.range(0, chunks).parallel().mapToObj(chunk -> {
+            Normal part = new Normal(k);
+            double[] grad = new double[k];
+            int from = chunk * CHUNK, to = Math.min(series.size, from + CHUNK);
+            for (int i = from; i < to; i++) {
+                double x = series.xs[i], y = series.ys[i];
+
+                // Equations quadratic in y have two branches; each point belongs to the nearer one
+                int branch = 0;
+                double f = model.evaluateBranch(x, 0);
+                for (int b = 1; b < branches; b++) {
+                    double fb = model.evaluateBranch(x, b);
+                    if (Double.isNaN(f) || Math.abs(y - fb) < Math.abs(y - f)) {
+                        f = fb;
+                        branch = b;
+                    }
+                }
+                if (!Double.isFinite(f)) continue;
+                double r = y - f;
+
+                if (jacobian) {
+                    boolean ok = true;
+                    for (int j = 0; j < k && ok; j++) {
+                        grad[j] = (shifted[j].evaluateBranch(x, branch) - f) / h[j];
+                        ok = Double.isFinite(grad[j]);
+                    }
+                    if (!ok) continue;
+                    for (int a = 0; a < k; a++) {
+                        part.jtr[a] += grad[a] * r;
+                        for (int b = a; b < k; b++) part.jtj[a][b] += grad[a] * grad[b];
+                    }
+                }
+                part.cost += r * r;
+                part.used++;
+            }
+            return part;
+        }).collect(() -> new Normal(k), Normal::add, Normal::add).symmetric();
+    }
+
+    private EquationParser frame(double[] p) {
+        Map<Character, Double> values = new TreeMap<>();
+        for (int j = 0; j < p.length; j++) values.put(names[j], p[j]);
+        return parser.bind(values);
+    }
+
+    // Gaussian elimination with partial pivoting; null if the system is singular
+    private static double[] solve(double[][] a, double[] b) {
+        int n = b.length;
+        for (int col = 0; col < n; col++) {
+            int pivot = col;
+            for (int r = col + 1; r < n; r++) if (Math.abs(a[r][col]) > Math.abs(a[pivot][col])) pivot = r;
+            if (!(Math.abs(a[pivot][col]) > 1e-300)) return null;
+            double[] rowSwap = a[col];
+            a[col] = a[pivot];
+            a[pivot] = rowSwap;
+            double bSwap = b[col];
+            b[col] = b[pivot];
+            b[pivot] = bSwap;
+            for (int r = col + 1; r < n; r++) {
+                double factor = a[r][col] / a[col][col];
+                for (int c = col; c < n; c++) a[r][c] -= factor * a[col][c];
+                b[r] -= factor * b[col];
+            }
+        }
+        double[] x = new double[n];
+        for (int r = n - 1; r >= 0; r--) {
+            double sum = b[r];
+            for (int c = r + 1; c < n; c++) sum -= a[r][c] * x[c];
+            x[r] = sum / a[r][r];
+        }
+        for (double v : x) if (!Double.isFinite(v)) return null;
+        return x;
+    }
+}
@@ -0,0 +1,264 @@
+package org.example.equation_plotter;
+
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Software path for scenes with more segments than GraphicsContext strokes comfortably.
+// Segments are collected through the CurveSink calls, then drawn as antialiased thick lines straight
+// into an ARGB int[] (coverage from the distance to each segment). The image is cut into bands of rows
+// that are rasterized in parallel; a band only ever writes its own rows, so no locking is needed.
+// The result lands in a PixelBuffer-backed WritableImage the canvas draws in one call.
+final class CurveRasterizer implements CurveSink {
+    private static final int BAND_ROWS = 32;
+    private static final int SEG_STRIDE = 5; // x1, y1, x2, y2, half width
+
+    private final ForkJoinPool pool;
+    private int width, height;
+    private int[] pixels;
+    private IntBuffer buffer;
+    private PixelBuffer<IntBuffer> pixelBuffer;
+    private WritableImage image;
+
+    // Region being repainted: [clipX0, clipX1) x [clipY0, clipY1)
+    private int clipX0, clipY0, clipX1, clipY1;
+
+    private float[] segments = new float[SEG_STRIDE * 4096];
+    private int[] colors = new int[4096];
+    private int count;
+    private int[] bandStart = new int[1];
+    private int[] bandFill = new int[0];
+    private int[] bandSegments = new int[0];
+
+    private int strokeColor;
+    private float halfWidth;
+    private double penX = Double.NaN, penY = Double.NaN;
+
+    CurveRasterizer(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Starts a frame covering [x, x + rw) x [y, y + rh) of a w x h image; only that region is cleared and redrawn
+    void begin(int w, int h, double x, double y, double rw, double rh) {
+        if (pixels == null || w != width || h != height) {
+            width = w;
+            height = h;
+            pixels = new int[w * h];
+            pixelBuffer = null; // the FX side is only created by finish(), so headless callers never touch it
+        }
+        clipX0 = Math.clamp((long) Math.floor(x), 0, w);
+        clipY0 = Math.clamp((long) Math.floor(y), 0, h);
+        clipX1 = Math.clamp((long) Math.ceil(x + rw), clipX0, w);
+        clipY1 = Math.clamp((long) Math.ceil(y + rh), clipY0, h);
+        count = 0;
+        penX = penY = Double.NaN;
+    }
+
+    // Rasterizes everything collected since begin() into pixels()
+    void rasterize() {
+        int bands = (clipY1 - clipY0 + BAND_ROWS - 1) / BAND_ROWS;
+        binSegments(bands);
+        pool.submit(() -> IntStream.range(0, bands).parallel().forEach(band -> {
+            int y0 = clipY0 + band * BAND_ROWS;
+            rasterizeBand(band, y0, Math.min(clipY1, y0 + BAND_ROWS));
+        })).join();
+    }
+
+    // Premultiplied ARGB, row-major, width() ints per row
+    int[] pixels() {
+        return pixels;
+    }
+
+    int width() {
+        return width;
+    }
+
+    // Rasterizes and publishes the dirty region to the image. FX thread only.
+    WritableImage finish() {
+        rasterize();
+        if (pixelBuffer == null) {
+            buffer = IntBuffer.allocate(width * height);
+            pixelBuffer = new PixelBuffer<>(width, height, buffer, PixelFormat.getIntArgbPreInstance());
+            image = new WritableImage(pixelBuffer);
+            clipX0 = clipY0 = 0; // a fresh buffer is empty everywhere, so publish all of it
+            clipX1 = width;
+            clipY1 = height;
+        }
+
+        int rw = clipX1 - clipX0, rh = clipY1 - clipY0;
+        if (rw > 0 && rh > 0) {
+            pixelBuffer.updateBuffer(pb -> {
+                for (int row = clipY0; row < clipY1; row++) {
+                    int offset = row * width + clipX0;
+                    buffer.put(offset, pixels, offset, rw);
+                }
+                return new Rectangle2D(clipX0, clipY0, rw, rh);
+            });
+        }
+        return image;
+    }
+
+    // --- CurveSink ---
+    @Override
+    public void setStroke(Color color, double lineWidth) {
+        double a = color.getOpacity();
+        strokeColor = (int) Math.round(a * 255) << 24
+                | (int) Math.round(color.getRed() * a * 255) << 16
+                | (int) Math.round(color.getGreen() * a * 255) << 8
+                | (int) Math.round(color.getBlue() * a * 255);
+        halfWidth = (float) (lineWidth / 2);
+    }
+
+    @Override
+    public void beginPath() {
+        penX = penY = Double.NaN;
+    }
+
+    @Override
+    public void moveTo(double x, double y) {
+        penX = x;
+        penY = y;
+    }
+
+    @Override
+    public void lineTo(double x, double y) {
+        if (!Double.isNaN(penX)) strokeLine(penX, penY, x, y);
+        penX = x;
+        penY = y;
+    }
+
+    @Override
+    public void stroke() {
+        // Segments were recorded as they came in
+    }
+
+    @Override
+    public void strokeLine(double x1, double y1, double x2, double y2) {
+        if (!Double.isFinite(x1) || !Double.isFinite(y1) || !Double.isFinite(x2) || !Double.isFinite(y2)) return;
+        double reach = halfWidth + 1;
+        // Drop segments that cannot touch the repainted region
+        if (Math.max(x1, x2) + reach < clipX0 || Math.min(x1, x2) - reach > clipX1
+                || Math.max(y1, y2) + reach < clipY0 || Math.min(y1, y2) - reach > clipY1) return;
+        if (count == colors.length) {
+            colors = Arrays.copyOf(colors, count * 2);
+            segments = Arrays.copyOf(segments, count * 2 * SEG_STRIDE);
+        }
+        int i = count * SEG_STRIDE;
+        segments[i] = (float) x1;
+        segments[i + 1] = (float) y1;
+        segments[i + 2] = (float) x2;
+        segments[i + 3] = (float) y2;
+        segments[i + 4] = halfWidth;
+        colors[count++] = strokeColor;
+    }
+
+    // --- RASTERIZATION ---
+    // Counting sort of segment indices into the bands their rows touch, so a band only visits its own
+    // segments. bandStart[b] .. bandStart[b + 1] indexes bandSegments; order within a band is draw order.
+    private void binSegments(int bands) {
+        if (bandStart.length < bands + 1) bandStart = new int[bands + 1];
+        Arrays.fill(bandStart, 0, bands + 1, 0);
+        int total = 0;
+        for (int s = 0; s < count; s++) {
+            int first = firstBand(s), last = lastBand(s, bands);
+            for (int b = first; b <= last; b++) bandStart[b + 1]++;
+            total += Math.max(0, last - first + 1);
+        }
+        for (int b = 0; b < bands; b++) bandStart[b + 1] += bandStart[b];
+        if (bandSegments.length < total) bandSegments = new int[total];
+        if (bandFill.length < bands) bandFill = new int[bands];
+        System.arraycopy(bandStart, 0, bandFill, 0, bands);
+        for (int s = 0; s < count; s++) {
+            int last = lastBand(s, bands);
+            for (int b = firstBand(s); b <= last; b++) bandSegments[bandFill[b]++] = s;
+        }
+    }
+
+    private int firstBand(int s) {
+        int i = s * SEG_STRIDE;
+        float top = Math.min(segments[i + 1], segments[i + 3]) - segments[i + 4] - 1;
+        return Math.max(0, (int) Math.floor((top - clipY0) / BAND_ROWS));
+    }
+
+    private int lastBand(int s, int bands) {
+        int i = s * SEG_STRIDE;
+        float bottom = Math.max(segments[i + 1], segments[i + 3]) + segments[i + 4] + 1;
+        return Math.min(bands - 1, (int) Math.floor((bottom - clipY0) / BAND_ROWS));
+    }
+
+    private void rasterizeBand(int band, int y0, int y1) {
+        for (int row = y0; row < y1; row++) {
+            Arrays.fill(pixels, row * width + clipX0, row * width + clipX1, 0);
+        }
+        for (int k = bandStart[band]; k < bandStart[band + 1]; k++) {
+            int s = bandSegments[k];
+            int i = s * SEG_STRIDE;
+            drawSegment(segments[i], segments[i + 1], segments[i + 2], segments[i + 3], segments[i + 4], colors[s], y0, y1);
+        }
+    }
+
+    // Coverage of a pixel is how much of it lies inside the stroke: hw + 0.5 - distance, clamped to [0, 1]
+    private void drawSegment(float ax, float ay, float bx, float by, float hw, int color, int bandY0, int bandY1) {
+        float dx = bx - ax, dy = by - ay;
+        float len2 = dx * dx + dy * dy;
+        float invLen2 = len2 > 1e-12f ? 1 / len2 : 0;
+        float reach = hw + 0.5f;
+        float reach2 = reach * reach;
+        boolean opaque = color >>> 24 == 255;
+
+        int rowStart = Math.max(bandY0, (int) Math.floor(Math.min(ay, by) - reach));
+        int rowEnd = Math.min(bandY1 - 1, (int) Math.ceil(Math.max(ay, by) + reach));
+        for (int row = rowStart; row <= rowEnd; row++) {
+            float cy = row + 0.5f;
+            // x extent of the part of the segment within reach of this row
+            float xLo, xHi;
+            if (Math.abs(dy) < 1e-6f) {
+                xLo = Math.min(ax, bx);
+                xHi = Math.max(ax, bx);
+            } else {
+                float t0 = Math.clamp((cy - reach - ay) / dy, 0, 1);
+                float t1 = Math.clamp((cy + reach - ay) / dy, 0, 1);
+                float xa = ax + dx * t0, xb = ax + dx * t1;
+                xLo = Math.min(xa, xb);
+                xHi = Math.max(xa, xb);
+            }
+            int colStart = Math.max(clipX0, (int) Math.floor(xLo - reach));
+            int colEnd = Math.min(clipX1 - 1, (int) Math.ceil(xHi + reach));
+            int base = row * width;
+            for (int col = colStart; col <= colEnd; col++) {
+                float px = col + 0.5f - ax, py = cy - ay;
+                float t = Math.clamp((px * dx + py * dy) * invLen2, 0, 1);
+                float ex = px - dx * t, ey = py - dy * t;
+                float d2 = ex * ex + ey * ey;
+                if (d2 >= reach2) continue;
+                float coverage = reach - (float) Math.sqrt(d2);
+                pixels[base + col] = coverage >= 1 && opaque ? color : blend(pixels[base + col], color, coverage);
+            }
+        }
+    }
+
+    // Premultiplied source-over
+    private static int blend(int dst, int src, float coverage) {
+        int k = (int) (Math.min(coverage, 1) * 256);
+        int sa = ((src >>> 24) * k) >> 8;
+        int inv = 255 - sa;
+        int a = sa + div255((dst >>> 24) * inv);
+        int r = ((((src >> 16) & 0xff) * k) >> 8) + div255(((dst >> 16) & 0xff) * inv);
+        int g = ((((src >> 8) & 0xff) * k) >> 8) + div255(((dst >> 8) & 0xff) * inv);
+        int b = (((src & 0xff) * k) >> 8) + div255((dst & 0xff) * inv);
+        return Math.min(a, 255) << 24 | Math.min(r, 255) << 16 | Math.min(g, 255) << 8 | Math.min(b, 255);
+    }
+
+    // Rounded v / 255 for v in [0, 255 * 255]
+    private static int div255(int v) {
+        v += 128;
+        return (v + (v >> 8)) >> 8;
+    }
+}
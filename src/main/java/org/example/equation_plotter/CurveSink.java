@@ -0,0 +1,55 @@
+package org.example.equation_plotter;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+// The handful of GraphicsContext calls the curve tracers make, so the same tracing code can either
+// stroke onto a canvas or hand its segments to the software rasterizer.
+interface CurveSink {
+    void setStroke(Color color, double lineWidth);
+
+    void beginPath();
+
+    void moveTo(double x, double y);
+
+    void lineTo(double x, double y);
+
+    void stroke();
+
+    void strokeLine(double x1, double y1, double x2, double y2);
+
+    static CurveSink of(GraphicsContext gc) {
+        return new CurveSink() {
+            @Override
+            public void setStroke(Color color, double lineWidth) {
+                gc.setStroke(color);
+                gc.setLineWidth(lineWidth);
+            }
+
+            @Override
+            public void beginPath() {
+                gc.beginPath();
+            }
+
+            @Override
+            public void moveTo(double x, double y) {
+                gc.moveTo(x, y);
+            }
+
+            @Override
+            public void lineTo(double x, double y) {
+                gc.lineTo(x, y);
+            }
+
+            @Override
+            public void stroke() {
+                gc.stroke();
+            }
+
+            @Override
+            public void strokeLine(double x1, double y1, double x2, double y2) {
+                gc.strokeLine(x1, y1, x2, y2);
+            }
+        };
+    }
+}
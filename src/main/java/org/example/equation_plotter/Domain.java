@@ -0,0 +1,123 @@
+package org.example.equation_plotter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Interval bounds on x and y pulled out of a "{...}" restriction at parse time.
+// Simple restrictions (x > 0, -1 < y <= 2, conjunctions of those) become a box that callers can
+// test with a few comparisons, or use to skip whole ranges before evaluating anything.
+// If any part of the restriction cannot be analysed the box is only a hull and isExact() is false,
+// so the full limit expression still has to be checked per sample.
+final class Domain {
+    private static final int LT = 0, LE = 1, GT = 2, GE = 3;
+
+    private final char[] vars;
+    private final int[] ops;
+    // Bounds may reference sliders, so they are evaluated when asked for rather than stored as numbers
+    private final EquationParser.Node[] bounds;
+    private final boolean exact;
+
+    private Domain(List<Constraint> constraints, boolean exact) {
+        int n = constraints.size();
+        this.vars = new char[n];
+        this.ops = new int[n];
+        this.bounds = new EquationParser.Node[n];
+        for (int i = 0; i < n; i++) {
+            Constraint c = constraints.get(i);
+            vars[i] = c.var;
+            ops[i] = c.op;
+            bounds[i] = c.bound;
+        }
+        this.exact = exact;
+    }
+
+    private record Constraint(char var, int op, EquationParser.Node bound) {
+    }
+
+    static Domain analyze(Expr limit, Map<Character, EquationParser.Parameter> params) {
+        List<Constraint> constraints = new ArrayList<>();
+        boolean exact = collect(limit, params, constraints);
+        return new Domain(constraints, exact);
+    }
+
+    // Adds every analysable conjunct; returns false if something had to be left out
+    private static boolean collect(Expr e, Map<Character, EquationParser.Parameter> params, List<Constraint> out) {
+        if (!(e instanceof Expr.Compare cmp)) return false;
+        if (cmp.op().equals("&&")) {
+            boolean left = collect(cmp.a(), params, out);
+            boolean right = collect(cmp.b(), params, out);
+            return left && right;
+        }
+        int op = switch (cmp.op()) {
+            case "<" -> LT;
+            case "<=" -> LE;
+            case ">" -> GT;
+            case ">=" -> GE;
+            default -> -1;
+        };
+        if (op < 0) return false;
+
+        if (cmp.a() instanceof Expr.Var v && isConstant(cmp.b())) {
+            out.add(new Constraint(v.name(), op, cmp.b().compile(params)));
+            return true;
+        }
+        if (cmp.b() instanceof Expr.Var v && isConstant(cmp.a())) {
+            // "0 < x" is "x > 0"
+            int flipped = switch (op) {
+                case LT -> GT;
+                case LE -> GE;
+                case GT -> LT;
+                default -> LE;
+            };
+            out.add(new Constraint(v.name(), flipped, cmp.a().compile(params)));
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isConstant(Expr e) {
+        return !e.dependsOn('x') && !e.dependsOn('y');
+    }
+
+    // True when contains() alone is equivalent to the original restriction
+    boolean isExact() {
+        return exact;
+    }
+
+    boolean containsX(double x) {
+        return containsVar('x', x);
+    }
+
+    boolean contains(double x, double y) {
+        return containsVar('x', x) && containsVar('y', y);
+    }
+
+    private boolean containsVar(char var, double value) {
+        for (int i = 0; i < vars.length; i++) {
+            if (vars[i] != var) continue;
+            double bound = bounds[i].eval(0, 0);
+            boolean inside = switch (ops[i]) {
+                case LT -> value < bound;
+                case LE -> value <= bound;
+                case GT -> value > bound;
+                default -> value >= bound;
+            };
+            if (!inside) return false;
+        }
+        return true;
+    }
+
+    // Current {min, max} for 'x' or 'y'; infinite where unbounded, min > max if empty
+    double[] range(char var) {
+        double min = Double.NEGATIVE_INFINITY, max = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < vars.length; i++) {
+            if (vars[i] != var) continue;
+            double bound = bounds[i].eval(0, 0);
+            if (Double.isNaN(bound)) return new double[]{1, 0};
+            if (ops[i] == LT || ops[i] == LE) max = Math.min(max, bound);
+            else min = Math.max(min, bound);
+        }
+        return new double[]{min, max};
+    }
+}
@@ -0,0 +1,138 @@
+package org.example.equation_plotter;
+
+// Dual number: a value plus its partial derivatives along x and y.
+// Evaluating the AST with these gives f, df/dx and df/dy in a single pass.
+public final class Dual {
+    public final double v;
+    public final double dx;
+    public final double dy;
+
+    public Dual(double v, double dx, double dy) {
+        this.v = v;
+        this.dx = dx;
+        this.dy = dy;
+    }
+
+    public static Dual constant(double v) {
+        return new Dual(v, 0, 0);
+    }
+
+    public static Dual nan() {
+        return new Dual(Double.NaN, Double.NaN, Double.NaN);
+    }
+
+    // Chain rule helper: result value fv with derivative f'(a) = d
+    private Dual chain(double fv, double d) {
+        return new Dual(fv, d * dx, d * dy);
+    }
+
+    public Dual add(Dual o) {
+        return new Dual(v + o.v, dx + o.dx, dy + o.dy);
+    }
+
+    public Dual sub(Dual o) {
+        return new Dual(v - o.v, dx - o.dx, dy - o.dy);
+    }
+
+    public Dual mul(Dual o) {
+        return new Dual(v * o.v, dx * o.v + v * o.dx, dy * o.v + v * o.dy);
+    }
+
+    public Dual div(Dual o) {
+        double inv = 1.0 / o.v;
+        double q = v * inv;
+        return new Dual(q, (dx - q * o.dx) * inv, (dy - q * o.dy) * inv);
+    }
+
+    public Dual neg() {
+        return new Dual(-v, -dx, -dy);
+    }
+
+    public Dual pow(Dual e) {
+        double p = Math.pow(v, e.v);
+        if (e.dx == 0 && e.dy == 0) {
+            // Constant exponent: power rule also works for negative bases
+            if (e.v == 0) return new Dual(p, 0, 0);
+            return chain(p, e.v * Math.pow(v, e.v - 1));
+        }
+        double lnV = Math.log(v);
+        return new Dual(p,
+                p * (e.dx * lnV + e.v * dx / v),
+                p * (e.dy * lnV + e.v * dy / v));
+    }
+
+    public Dual sin() {
+        return chain(Math.sin(v), Math.cos(v));
+    }
+
+    public Dual cos() {
+        return chain(Math.cos(v), -Math.sin(v));
+    }
+
+    public Dual tan() {
+        double c = Math.cos(v);
+        return chain(Math.tan(v), 1.0 / (c * c));
+    }
+
+    public Dual asin() {
+        return chain(Math.asin(v), 1.0 / Math.sqrt(1 - v * v));
+    }
+
+    public Dual acos() {
+        return chain(Math.acos(v), -1.0 / Math.sqrt(1 - v * v));
+    }
+
+    public Dual atan() {
+        return chain(Math.atan(v), 1.0 / (1 + v * v));
+    }
+
+    public Dual sinh() {
+        return chain(Math.sinh(v), Math.cosh(v));
+    }
+
+    public Dual cosh() {
+        return chain(Math.cosh(v), Math.sinh(v));
+    }
+
+    public Dual tanh() {
+        double t = Math.tanh(v);
+        return chain(t, 1 - t * t);
+    }
+
+    public Dual sqrt() {
+        double s = Math.sqrt(v);
+        return chain(s, 0.5 / s);
+    }
+
+    public Dual cbrt() {
+        double c = Math.cbrt(v);
+        return chain(c, 1.0 / (3 * c * c));
+    }
+
+    public Dual abs() {
+        return chain(Math.abs(v), Math.signum(v));
+    }
+
+    public Dual log10() {
+        return chain(Math.log10(v), 1.0 / (v * Math.log(10)));
+    }
+
+    public Dual ln() {
+        return chain(Math.log(v), 1.0 / v);
+    }
+
+    public Dual exp() {
+        double ex = Math.exp(v);
+        return chain(ex, ex);
+    }
+
+    // Step functions are flat almost everywhere
+    public Dual step(double fv) {
+        return new Dual(fv, 0, 0);
+    }
+
+    @Override
+    public String toString() {
+        return "Dual(" + v + ", d/dx=" + dx + ", d/dy=" + dy + ")";
+    }
+}
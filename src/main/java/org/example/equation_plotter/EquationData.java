@@ -2,41 +2,127 @@ package org.example.equation_plotter;
 
 import javafx.scene.paint.Color;
 
+import java.util.Arrays;
+
 public class EquationData {
     String raw;
     EquationParser parser;
     Color color;
     int r, g, b;
+    // Set on the FX thread once the row is replaced or removed; background frame work polls it
+    volatile boolean retired;
+
+    // Sample buffers keyed by slider values, so returning to a value skips the rebuild
+    private final ParameterCache<Samples> sampleCache = new ParameterCache<>();
+    private Samples samples;
 
-    private double[] yCache;
-    private double step;
-    private double xStart;
-    private int startIndex;
-    private int size;
+    static final class Samples {
+        // One row per explicit branch (two for equations quadratic in y)
+        final double[][] yCache;
+        final double step;
+        final double xStart;
+        final int size;
+        final double visibleWidth;
+        final double width;
+
+        Samples(double[][] yCache, double step, double xStart, double visibleWidth, double width) {
+            this.yCache = yCache;
+            this.step = step;
+            this.xStart = xStart;
+            this.size = yCache[0].length;
+            this.visibleWidth = visibleWidth;
+            this.width = width;
+        }
+
+        // Same zoom and at least half a screen of buffer left on both sides
+        boolean covers(double visibleMinX, double visibleMaxX, double width) {
+            double visible = visibleMaxX - visibleMinX;
+            if (width != this.width || Math.abs(visible - visibleWidth) > 1e-9 * Math.abs(visibleWidth)) return false;
+            double xEnd = xStart + (size - 1) * step;
+            return visibleMinX - xStart >= visible / 2 && xEnd - visibleMaxX >= visible / 2;
+        }
+    }
 
     public void buildCacheExplicit(double visibleMinX, double visibleMaxX, double width) {
         if (parser.isImplicit()) return;
+        ParameterKey key = parser.parameterKey();
+        Samples cached = sampleCache.get(key);
+        if (cached != null && cached.covers(visibleMinX, visibleMaxX, width)) {
+            samples = cached;
+            return;
+        }
+        samples = computeSamples(parser.bindCurrentValues(), visibleMinX, visibleMaxX, width);
+        sampleCache.put(key, samples);
+    }
+
+    // Background sweep entry point: evaluates a frozen parser and files the result under its slider values
+    void precomputeExplicit(EquationParser frozen, ParameterKey key, double visibleMinX, double visibleMaxX, double width) {
+        if (parser.isImplicit()) return;
+        Samples cached = sampleCache.get(key);
+        if (cached != null && cached.covers(visibleMinX, visibleMaxX, width)) return;
+        sampleCache.put(key, computeSamples(frozen, visibleMinX, visibleMaxX, width));
+    }
+
+    boolean hasSamples(ParameterKey key, double visibleMinX, double visibleMaxX, double width) {
+        Samples cached = sampleCache.get(key);
+        return cached != null && cached.covers(visibleMinX, visibleMaxX, width);
+    }
+
+    // Samples for exactly these slider values, if they were computed (workspace save)
+    Samples samplesFor(ParameterKey key) {
+        return sampleCache.get(key);
+    }
+
+    // Files samples computed elsewhere (workspace load) so the next buildCacheExplicit can use them
+    void seedSamples(ParameterKey key, Samples loaded) {
+        sampleCache.put(key, loaded);
+    }
+
+    void reserveCacheFrames(int frames) {
+        sampleCache.ensureCapacity(frames + 16);
+    }
+
+    static Samples computeSamples(EquationParser source, double visibleMinX, double visibleMaxX, double width) {
         double visibleWidth = visibleMaxX - visibleMinX;
         double bufferWidth = visibleWidth * 3;
-        size = (int) (width * 3 * 2);
-        step = bufferWidth / size;
-        xStart = visibleMinX - visibleWidth;
-        yCache = new double[size];
-        for (int i = 0; i < size; i++) {
-            double x = xStart + i * step;
-            yCache[i] = parser.evaluateExplicit(x);
+        int size = (int) (width * 3 * 2);
+        double step = bufferWidth / size;
+        double xStart = visibleMinX - visibleWidth;
+        double[][] yCache = new double[source.getBranchCount()][size];
+
+        // Only sample inside the x range a "{...}" restriction allows; the rest stays NaN
+        double[] range = source.getLimitRange('x');
+        int from = (int) Math.max(0, Math.min(size, Math.floor((range[0] - xStart) / step)));
+        int to = (int) Math.max(from, Math.min(size, Math.ceil((range[1] - xStart) / step) + 1));
+        for (int b = 0; b < yCache.length; b++) {
+            Arrays.fill(yCache[b], 0, from, Double.NaN);
+            Arrays.fill(yCache[b], to, size, Double.NaN);
+            for (int i = from; i < to; i++) {
+                double x = xStart + i * step;
+                yCache[b][i] = source.evaluateBranch(x, b);
+            }
         }
-        startIndex = 0;
+        return new Samples(yCache, step, xStart, visibleWidth, width);
     }
 
     public double getY(double graphX) {
-        if (yCache == null) return Double.NaN;
-        double fIndex = (graphX - xStart) / step;
+        return getY(graphX, 0);
+    }
+
+    public int branchCount() {
+        Samples s = samples;
+        return s == null ? 1 : s.yCache.length;
+    }
+
+    public double getY(double graphX, int branch) {
+        Samples s = samples;
+        if (s == null || branch >= s.yCache.length) return Double.NaN;
+        double fIndex = (graphX - s.xStart) / s.step;
         int i0 = (int) Math.floor(fIndex);
         int i1 = i0 + 1;
-        if (i0 < 0 || i1 >= size) return Double.NaN;
-        double y0 = yCache[(startIndex + i0) % size];
-        double y1 = yCache[(startIndex + i1) % size];
+        if (i0 < 0 || i1 >= s.size) return Double.NaN;
+        double y0 = s.yCache[branch][i0];
+        double y1 = s.yCache[branch][i1];
         double t = fIndex - i0;
         return y0 + t * (y1 - y0);
     }
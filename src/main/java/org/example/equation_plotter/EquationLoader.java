@@ -0,0 +1,122 @@
+package org.example.equation_plotter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+
+// Bulk import of an equation file (one equation per line). The file is streamed in chunks that are
+// parsed in parallel while the rest is still being read, and every curve gets its geometry for the
+// current view built on the worker too. The FX thread then files everything in one batch with a
+// single refresh, instead of a parse, refresh and snap-point pass per line.
+final class EquationLoader {
+    private static final int CHUNK_LINES = 64;
+
+    // samples / implicit are null for points, invalid lines and when the view was not known
+    record Loaded(String text, EquationParser parser, EquationData.Samples samples, CachedImplicit implicit) {
+    }
+
+    private final Path path;
+    private final double cx, cy, scale, w, h, canvasW, canvasH;
+    private DoubleConsumer onProgress = p -> {
+    };
+    private BooleanSupplier cancelled = () -> false;
+
+    // The view the geometry is computed for (the plotter's centre, scale and size). Explicit samples are
+    // keyed to the view width, implicit curves are traced over the whole canvas like the plotter does
+    EquationLoader(Path path, double cx, double cy, double scale, double w, double h, double canvasW, double canvasH) {
+        this.path = path;
+        this.cx = cx;
+        this.cy = cy;
+        this.scale = scale;
+        this.w = w;
+        this.h = h;
+        this.canvasW = canvasW;
+        this.canvasH = canvasH;
+    }
+
+    // Fraction of the file processed so far, called from worker threads
+    EquationLoader onProgress(DoubleConsumer onProgress) {
+        this.onProgress = onProgress;
+        return this;
+    }
+
+    EquationLoader cancelWhen(BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+        return this;
+    }
+
+    // Equations in file order; blank lines are skipped
+    List<Loaded> load() throws IOException {
+        long total = Math.max(1, Files.size(path));
+        AtomicLong done = new AtomicLong();
+        List<CompletableFuture<List<Loaded>>> chunks = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            List<String> chunk = new ArrayList<>(CHUNK_LINES);
+            List<Integer> sizes = new ArrayList<>(CHUNK_LINES);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (cancelled.getAsBoolean()) throw new CancellationException();
+                chunk.add(line);
+                sizes.add(line.length() + 1);
+                if (chunk.size() == CHUNK_LINES) {
+                    chunks.add(submit(chunk, sizes, done, total));
+                    chunk = new ArrayList<>(CHUNK_LINES);
+                    sizes = new ArrayList<>(CHUNK_LINES);
+                }
+            }
+            if (!chunk.isEmpty()) chunks.add(submit(chunk, sizes, done, total));
+        }
+
+        List<Loaded> result = new ArrayList<>();
+        for (CompletableFuture<List<Loaded>> chunk : chunks) {
+            try {
+                result.addAll(chunk.join());
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) throw re;
+                throw e;
+            }
+        }
+        return result;
+    }
+
+    private CompletableFuture<List<Loaded>> submit(List<String> lines, List<Integer> sizes, AtomicLong done, long total) {
+        return CompletableFuture.supplyAsync(() -> {
+            List<Loaded> loaded = new ArrayList<>(lines.size());
+            for (int i = 0; i < lines.size(); i++) {
+                if (cancelled.getAsBoolean()) throw new CancellationException();
+                String text = ParseCache.normalize(lines.get(i));
+                if (!text.isEmpty()) loaded.add(load(text));
+                onProgress.accept(Math.min(1.0, (double) done.addAndGet(sizes.get(i)) / total));
+            }
+            return loaded;
+        });
+    }
+
+    private Loaded load(String text) {
+        // A recent keystroke parse is reused, but thousands of imported lines do not go into the shared
+        // cache, where they would only push out what the user was typing
+        EquationParser parser = ParseCache.lookup(text);
+        if (parser == null) parser = new EquationParser(text);
+        if (!parser.isValid() || parser.getPoints() != null || w <= 0 || h <= 0) {
+            return new Loaded(text, parser, null, null);
+        }
+
+        EquationParser frozen = parser.bindCurrentValues();
+        if (parser.isImplicit()) {
+            List<double[]> lines = PlotEngine.traceImplicitView(frozen, cx, cy, scale, canvasW, canvasH, cancelled);
+            if (lines == null) throw new CancellationException();
+            return new Loaded(text, parser, null, new CachedImplicit(lines, scale, cx, cy));
+        }
+        double minX = cx - (w / 2) / scale, maxX = cx + (w / 2) / scale;
+        return new Loaded(text, parser, EquationData.computeSamples(frozen, minX, maxX, w), null);
+    }
+}
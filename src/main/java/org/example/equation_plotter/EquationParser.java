@@ -2,17 +2,31 @@ package org.example.equation_plotter;
 
 import javafx.scene.paint.Color;
 
+import org.example.equation_plotter.Lexer.Token;
+import org.example.equation_plotter.Lexer.Type;
+
+import java.text.ParseException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.TreeMap;
 
 public class EquationParser {
 
     private final Map<Character, Parameter> parameters = new HashMap<>();
+    private final ParameterCache<EquationParser> frames = new ParameterCache<>();
+    private boolean approximate = false;
+    private EquationParser approximation; // lazily built FastMath twin of a parameter-free frame
+    private Expr mathTree;
+    private Expr limitTree;
     private Node mathExpr;
     private Node limitExpr;
+    private Domain domain;
+    private DualNode mathDual;
     private boolean isLinearInY = false;
+    // Implicit equations of degree 1 or 2 in y are solved per x instead of marched over the plane
+    private Expr[] yPolynomial;
+    private Node[] yCoefficients;
     private boolean isImplicit = false;
     private boolean hasLimit = false;
     private final String rawInput;
@@ -22,119 +36,322 @@ public class EquationParser {
         this.rawInput = fullInput;
 
         try {
-            Pattern pointPattern = Pattern.compile("^\\s*\\((-?\\d+\\.?\\d*)\\s*,\\s*(-?\\d+\\.?\\d*)\\)\\s*$");
-            Matcher pointMatcher = pointPattern.matcher(fullInput);
-            if (pointMatcher.matches()) {
-                double x = Double.parseDouble(pointMatcher.group(1));
-                double y = Double.parseDouble(pointMatcher.group(2));
-                this.points = new Points(x, y, Color.WHITE);
-                return;
+            // One token stream drives point detection, limits, parameters and the AST
+            List<Token> tokens = Lexer.tokenize(fullInput);
+            if (parsePoint(tokens)) return;
+
+            int eof = tokens.size() - 1;
+            int mathEnd = eof;
+            int limitStart = -1, limitEnd = -1;
+            for (int i = 0; i < eof; i++) {
+                if (tokens.get(i).is(Type.LBRACE)) {
+                    mathEnd = i;
+                    limitStart = i + 1;
+                    break;
+                }
             }
-
-            String mathPart = fullInput;
-            String limitPart = "";
-
-            if (fullInput.contains("{")) {
-                mathPart = fullInput.substring(0, fullInput.indexOf("{")).trim();
-                limitPart = fullInput.substring(fullInput.indexOf("{") + 1, fullInput.lastIndexOf("}")).trim();
-                limitPart = formatLimit(limitPart);
+            if (limitStart >= 0) {
+                limitEnd = eof; // tolerate a missing '}' while typing
+                for (int i = eof - 1; i >= limitStart; i--) {
+                    if (tokens.get(i).is(Type.RBRACE)) {
+                        limitEnd = i;
+                        break;
+                    }
+                }
                 hasLimit = true;
             }
 
-            if (mathPart.contains("=") && !mathPart.toLowerCase().startsWith("y=") && !mathPart.toLowerCase().startsWith("f(x)=")) {
-                String[] parts = mathPart.split("=");
-                if (parts.length == 2) {
-                    mathPart = "(" + parts[0] + ") - (" + parts[1] + ")";
+            // Headers: "y =", "f(x) =", and derivative forms "y' =", "f''(x) ="
+            int start = 0;
+            int derivativeOrder = 0;
+            boolean explicitHeader = false;
+            int header = matchHeader(tokens, mathEnd);
+            if (header > 0) {
+                for (int i = 1; tokens.get(i).is(Type.PRIME); i++) derivativeOrder++;
+                explicitHeader = true;
+                start = header;
+            }
+
+            // A top-level '=' makes the equation implicit: left - right
+            int assign = -1;
+            int depth = 0;
+            for (int i = start; i < mathEnd; i++) {
+                Token t = tokens.get(i);
+                if (t.is(Type.LPAREN)) depth++;
+                else if (t.is(Type.RPAREN)) depth--;
+                else if (t.is(Type.ASSIGN) && depth == 0) {
+                    if (assign >= 0 || explicitHeader) throw new ParseException("Unexpected '='", t.pos());
+                    assign = i;
                 }
+            }
+
+            ASTCompiler compiler = new ASTCompiler(tokens, parameters);
+            if (assign >= 0) {
+                Expr left = compiler.parseRange(start, assign);
+                Expr right = compiler.parseRange(assign + 1, mathEnd);
+                this.mathTree = new Expr.Binary('-', left, right);
                 isImplicit = true;
             } else {
-                mathPart = mathPart.replaceAll("^(y\\s*=|f\\(x\\)\\s*=)", "").trim();
-                isImplicit = false;
+                this.mathTree = compiler.parseRange(start, mathEnd);
+                for (int i = 0; i < derivativeOrder; i++) {
+                    mathTree = mathTree.derive('x');
+                }
+                if (explicitHeader && mathTree.dependsOn('y')) {
+                    // "y = x + y" is really an implicit relation
+                    mathTree = new Expr.Binary('-', new Expr.Var('y'), mathTree);
+                    isImplicit = true;
+                }
             }
+            mathTree = derivativeOrder > 0 ? mathTree.simplifyDerivative() : mathTree.simplify();
 
-            detectParameters(mathPart);
-
-            // Compile string into blazing fast Java Lambdas
-            this.mathExpr = new ASTCompiler(mathPart, parameters).parse();
+            // Compile the expression tree into blazing fast Java Lambdas
+            this.mathExpr = mathTree.compile(parameters);
+            this.mathDual = mathTree.compileDual(parameters);
             if (hasLimit) {
-                this.limitExpr = new ASTCompiler(limitPart, parameters).parse();
+                this.limitTree = compiler.parseRange(limitStart, limitEnd);
+                this.limitExpr = limitTree.compile(parameters);
+                this.domain = Domain.analyze(limitTree, parameters);
             }
 
-            if (isImplicit) checkLinearity();
+            if (isImplicit) solveForY();
 
+        } catch (ParseException e) {
+            fail(e.getMessage(), e.getErrorOffset());
         } catch (Exception e) {
-            isValid = false;
-            // Fallback for incomplete equations while typing
-            this.mathExpr = (x, y) -> Double.NaN;
+            fail(e.getMessage(), -1);
         }
     }
 
     private Points points;
+    private String errorMessage;
+    private int errorPosition = -1;
+
+    // Fallback for incomplete equations while typing
+    private void fail(String message, int position) {
+        isValid = false;
+        errorMessage = message;
+        errorPosition = position;
+        this.mathExpr = (x, y) -> Double.NaN;
+        this.mathDual = (x, y) -> Dual.nan();
+    }
 
-    private void detectParameters(String expr) {
-        // Erase all known math functions and multi-letter constants
-        // This prevents the letters in "arcsin" or "floor" from becoming sliders
-        String cleanedExpr = expr.toLowerCase()
-                .replaceAll("arcsin|arccos|arctan|asin|acos|atan|sinh|cosh|tanh|sin|cos|tan|sqrt|cbrt|abs|log|ln|exp|floor|ceil|round|sign|signum|pi", "");
-
-        Pattern p = Pattern.compile("[a-z]");
-        Matcher m = p.matcher(cleanedExpr);
-        while (m.find()) {
-            char c = m.group().charAt(0);
-            if (c == 'x' || c == 'y' || c == 'e') continue;
-            if (!parameters.containsKey(c)) {
-                parameters.put(c, new Parameter());
-            }
+    // "(x, y)" with optional minus signs
+    private boolean parsePoint(List<Token> t) {
+        int i = 0;
+        if (!t.get(i++).is(Type.LPAREN)) return false;
+        boolean negX = t.get(i).is(Type.MINUS);
+        if (negX) i++;
+        if (!t.get(i).is(Type.NUMBER)) return false;
+        double x = t.get(i++).value();
+        if (!t.get(i++).is(Type.COMMA)) return false;
+        boolean negY = t.get(i).is(Type.MINUS);
+        if (negY) i++;
+        if (!t.get(i).is(Type.NUMBER)) return false;
+        double y = t.get(i++).value();
+        if (!t.get(i++).is(Type.RPAREN) || !t.get(i).is(Type.EOF)) return false;
+        this.points = new Points(negX ? -x : x, negY ? -y : y, Color.WHITE);
+        return true;
+    }
+
+    // Index of the first token after "y =", "y' =", "f(x) =", "f''(x) =" ... or -1
+    private static int matchHeader(List<Token> t, int end) {
+        int i = 0;
+        Token name = t.get(i++);
+        if (!name.isIdent("y") && !name.isIdent("f")) return -1;
+        int primes = 0;
+        while (i < end && t.get(i).is(Type.PRIME)) {
+            i++;
+            primes++;
         }
+        boolean hasArgument = i + 2 < end && t.get(i).is(Type.LPAREN) && t.get(i + 1).isIdent("x") && t.get(i + 2).is(Type.RPAREN);
+        if (hasArgument) i += 3;
+        // Plain "f = ..." is an implicit equation in a parameter called f
+        if (name.isIdent("f") && primes == 0 && !hasArgument) return -1;
+        if (i >= end || !t.get(i).is(Type.ASSIGN)) return -1;
+        return i + 1;
     }
 
-    private void checkLinearity() {
-        if (mathExpr == null) return;
-        double v0 = mathExpr.eval(1.23, 0);
-        double v1 = mathExpr.eval(1.23, 1);
-        double v2 = mathExpr.eval(1.23, 2);
+    // F(x, y) = c0 + c1*y (+ c2*y^2) can be solved for y in closed form at every x,
+    // which turns a 2D marching-squares job into one or two ordinary explicit curves.
+    private void solveForY() {
+        Expr[] poly = mathTree.polynomialIn('y', 2);
+        if (poly == null || poly.length < 2) return;
+        this.yPolynomial = poly;
+        this.yCoefficients = compileCoefficients(poly);
+        this.isLinearInY = true;
+        this.isImplicit = false;
+    }
 
-        if (!Double.isNaN(v0) && !Double.isNaN(v1) && !Double.isNaN(v2)) {
-            double d1 = v1 - v0;
-            double d2 = v2 - v1;
-            if (Math.abs(d1 - d2) < 1e-9 && Math.abs(d1) > 1e-12) {
-                this.isLinearInY = true;
-                this.isImplicit = false;
-            }
+    private Node[] compileCoefficients(Expr[] poly) {
+        Node[] nodes = new Node[poly.length];
+        for (int i = 0; i < poly.length; i++) nodes[i] = poly[i].compile(parameters, approximate);
+        return nodes;
+    }
+
+    // Frozen copy with every slider parameter replaced by the given constant.
+    // Safe to evaluate on a background thread while the sliders keep moving.
+    // Only value-keeping simplification runs here: at a = 0, a*ln(x) must stay NaN for x <= 0 so the
+    // curve does not jump across the axis while a slider passes through zero.
+    private EquationParser(EquationParser source, Map<Character, Double> values, boolean approximate) {
+        this.rawInput = source.rawInput;
+        this.approximate = approximate;
+        this.isLinearInY = source.isLinearInY;
+        this.isImplicit = source.isImplicit;
+        this.hasLimit = source.hasLimit;
+        this.points = source.points;
+        this.mathTree = source.mathTree.substitute(values).simplify();
+        this.mathExpr = mathTree.compile(parameters, approximate);
+        this.mathDual = mathTree.compileDual(parameters);
+        if (source.yPolynomial != null) {
+            this.yPolynomial = new Expr[source.yPolynomial.length];
+            for (int i = 0; i < yPolynomial.length; i++) yPolynomial[i] = source.yPolynomial[i].substitute(values).simplify();
+            this.yCoefficients = compileCoefficients(yPolynomial);
+        }
+        if (hasLimit) {
+            this.limitTree = source.limitTree.substitute(values).simplify();
+            this.limitExpr = limitTree.compile(parameters);
+            this.domain = Domain.analyze(limitTree, parameters);
+        }
+    }
+
+    // Independent copy with its own (fresh) slider parameters; reuses the parsed trees
+    private EquationParser(EquationParser source) {
+        this.rawInput = source.rawInput;
+        this.isValid = source.isValid;
+        this.isLinearInY = source.isLinearInY;
+        this.isImplicit = source.isImplicit;
+        this.hasLimit = source.hasLimit;
+        this.points = source.points;
+        this.mathTree = source.mathTree;
+        this.limitTree = source.limitTree;
+        this.yPolynomial = source.yPolynomial;
+        this.errorMessage = source.errorMessage;
+        this.errorPosition = source.errorPosition;
+        source.parameters.keySet().forEach(name -> parameters.put(name, new Parameter()));
+        if (!isValid || mathTree == null) {
+            this.mathExpr = (x, y) -> Double.NaN;
+            this.mathDual = (x, y) -> Dual.nan();
+            return;
         }
+        this.mathExpr = mathTree.compile(parameters);
+        this.mathDual = mathTree.compileDual(parameters);
+        if (yPolynomial != null) this.yCoefficients = compileCoefficients(yPolynomial);
+        if (hasLimit) {
+            this.limitExpr = limitTree.compile(parameters);
+            this.domain = Domain.analyze(limitTree, parameters);
+        }
+    }
+
+    public EquationParser copy() {
+        return new EquationParser(this);
+    }
+
+    public EquationParser bind(Map<Character, Double> values) {
+        if (!isValid || mathTree == null) return this;
+        return new EquationParser(this, values, false);
+    }
+
+    // The same frame compiled with FastMath, for previews and frames drawn mid-interaction.
+    // Settled frames must use the exact parser.
+    public EquationParser approximate() {
+        if (approximate || !isValid || mathTree == null) return this;
+        if (!parameters.isEmpty()) return bindCurrentValues().approximate();
+        EquationParser fast = approximation;
+        if (fast == null) {
+            fast = new EquationParser(this, Map.of(), true);
+            approximation = fast;
+        }
+        return fast;
+    }
+
+    public boolean isApproximate() {
+        return approximate;
+    }
+
+    // Immutable frame for the current slider values. Renders and cache builds evaluate this instead of
+    // the live parser, so workers read constants rather than Parameter fields and a slider moving
+    // mid-render cannot mix two values. Frames are reused while the values stay the same.
+    public EquationParser bindCurrentValues() {
+        if (parameters.isEmpty() || !isValid || mathTree == null) return this;
+        ParameterKey key = parameterKey();
+        EquationParser frame = frames.get(key);
+        if (frame == null) {
+            frame = bind(getParameterValues());
+            frames.put(key, frame);
+        }
+        return frame;
+    }
+
+    public Map<Character, Double> getParameterValues() {
+        Map<Character, Double> values = new TreeMap<>();
+        parameters.forEach((name, p) -> values.put(name, p.getArgumentValue()));
+        return values;
+    }
+
+    public ParameterKey parameterKey() {
+        return ParameterKey.of(getParameterValues());
     }
 
     public EquationParser cloneForThread() {
         return this;
     }
 
+    public String getRawInput() {
+        return rawInput;
+    }
+
     public Points getPoints() {
         return points;
     }
 
+    // Interval bounds are checked first; the full restriction only runs if the analysis could not capture it
+    private boolean inLimit(double x, double y) {
+        if (!domain.contains(x, y)) return false;
+        return domain.isExact() || limitExpr.eval(x, y) == 1.0;
+    }
+
+    // {min, max} allowed by the "{...}" restriction for 'x' or 'y', infinite when unrestricted
+    public double[] getLimitRange(char var) {
+        if (!hasLimit || domain == null) return new double[]{Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+        return domain.range(var);
+    }
+
     public double evaluateImplicit(double x, double y) {
         if (!isValid) return Double.NaN;
         try {
-            if (hasLimit && limitExpr.eval(x, y) != 1.0) return Double.NaN;
+            if (hasLimit && !inLimit(x, y)) return Double.NaN;
             return mathExpr.eval(x, y);
         } catch (Exception e) {
             return Double.NaN;
         }
     }
 
+    // Number of explicit curves this equation draws: 2 for equations quadratic in y, else 1
+    public int getBranchCount() {
+        return (yPolynomial != null && yPolynomial.length == 3) ? 2 : 1;
+    }
+
     public double evaluateExplicit(double xValue) {
+        return evaluateBranch(xValue, 0);
+    }
+
+    // Branch 0 is the lower root of a quadratic, branch 1 the upper; NaN where there is no real root
+    public double evaluateBranch(double xValue, int branch) {
         if (!isValid) return Double.NaN;
         try {
+            if (hasLimit && !domain.containsX(xValue)) return Double.NaN; // skip solving outside the x range
             double yValue;
-            if (isLinearInY) {
-                double f0 = mathExpr.eval(xValue, 0);
-                double f1 = mathExpr.eval(xValue, 1);
-                yValue = -f0 / (f1 - f0);
-            } else {
+            if (yCoefficients == null) {
                 yValue = mathExpr.eval(xValue, 0);
+            } else if (yCoefficients.length == 2) {
+                yValue = -yCoefficients[0].eval(xValue, 0) / yCoefficients[1].eval(xValue, 0);
+                if (!Double.isFinite(yValue)) yValue = Double.NaN; // the y term vanishes here
+            } else {
+                yValue = quadraticRoot(yCoefficients[2].eval(xValue, 0), yCoefficients[1].eval(xValue, 0),
+                        yCoefficients[0].eval(xValue, 0), branch);
             }
 
-            if (hasLimit && limitExpr.eval(xValue, yValue) != 1.0) {
+            if (hasLimit && !inLimit(xValue, yValue)) {
                 return Double.NaN;
             }
             return yValue;
@@ -143,19 +360,82 @@ public class EquationParser {
         }
     }
 
+    // Roots of a*y^2 + b*y + c without cancellation (q = -(b + sign(b)*sqrt(D)) / 2), sorted ascending
+    private static double quadraticRoot(double a, double b, double c, int branch) {
+        // Where the y^2 term vanishes only the linear root is left; the other one runs off to infinity
+        if (Math.abs(a) <= 1e-12 * Math.abs(b)) {
+            double root = -c / b;
+            return branch == 0 && Double.isFinite(root) ? root : Double.NaN;
+        }
+        double disc = b * b - 4 * a * c;
+        if (disc < 0 || Double.isNaN(disc)) return Double.NaN;
+        double q = -0.5 * (b + Math.copySign(Math.sqrt(disc), b));
+        double r1 = q / a;
+        double r2 = c / q;
+        if (!Double.isFinite(r1)) r1 = Double.NaN;
+        if (!Double.isFinite(r2)) r2 = Double.NaN;
+        if (Double.isNaN(r1)) return branch == 0 ? r2 : Double.NaN;
+        if (Double.isNaN(r2)) return branch == 0 ? r1 : Double.NaN;
+        return branch == 0 ? Math.min(r1, r2) : Math.max(r1, r2);
+    }
+
+    // f, df/dx and df/dy at (x, y) in one pass
+    public Dual evaluateImplicitDual(double x, double y) {
+        if (!isValid) return Dual.nan();
+        try {
+            if (hasLimit && !inLimit(x, y)) return Dual.nan();
+            return mathDual.eval(x, y);
+        } catch (Exception e) {
+            return Dual.nan();
+        }
+    }
+
+    // y and dy/dx of the explicit curve at x (returned in v and dx)
+    public Dual evaluateExplicitDual(double xValue) {
+        return evaluateBranchDual(xValue, 0);
+    }
+
+    public Dual evaluateBranchDual(double xValue, int branch) {
+        if (!isValid) return Dual.nan();
+        try {
+            if (hasLimit && !domain.containsX(xValue)) return Dual.nan();
+            Dual result;
+            if (isLinearInY) {
+                // F(x, y) = 0 solved for y, slope from implicit differentiation: -Fx / Fy
+                double yValue = evaluateBranch(xValue, branch);
+                if (Double.isNaN(yValue)) return Dual.nan();
+                Dual f = mathDual.eval(xValue, yValue);
+                result = new Dual(yValue, -f.dx / f.dy, 0);
+            } else {
+                Dual f = mathDual.eval(xValue, 0);
+                result = new Dual(f.v, f.dx, 0);
+            }
+
+            if (hasLimit && !inLimit(xValue, result.v)) {
+                return Dual.nan();
+            }
+            return result;
+        } catch (Exception e) {
+            return Dual.nan();
+        }
+    }
+
     public boolean isValid() {
         return isValid;
     }
 
-    public Map<Character, Parameter> getParameters() {
-        return parameters;
+    // Why the input did not parse, or null
+    public String getErrorMessage() {
+        return errorMessage;
     }
 
-    private String formatLimit(String limit) {
-        String pattern = "([\\w\\d.]+)\\s*(<=|>=|<|>)\\s*([a-zA-Z])\\s*(<=|>=|<|>)\\s*([\\w\\d.]+)";
-        return limit.replaceAll(pattern, "$1 $2 $3 && $3 $4 $5")
-                .replace(",", " && ")
-                .replace("and", " && ");
+    // Offset in the raw input where parsing failed, or -1
+    public int getErrorPosition() {
+        return errorPosition;
+    }
+
+    public Map<Character, Parameter> getParameters() {
+        return parameters;
     }
 
     public boolean isImplicit() {
@@ -168,8 +448,14 @@ public class EquationParser {
         double eval(double x, double y);
     }
 
+    @FunctionalInterface
+    public interface DualNode {
+        Dual eval(double x, double y);
+    }
+
+    // Written and read on the FX thread only; background work goes through bindCurrentValues()
     public static class Parameter {
-        private volatile double value = 1.0;
+        private double value = 1.0;
 
         public double getArgumentValue() {
             return value;
@@ -181,239 +467,265 @@ public class EquationParser {
     }
 
     // =========================================================================
-    // NATIVE AST COMPILER (Shunting-Yard / Recursive Descent)
+    // NATIVE AST COMPILER (Recursive Descent over the Lexer's token stream)
     // =========================================================================
+    private static final Map<String, String> FUNCTIONS = Map.ofEntries(
+            Map.entry("sin", "sin"), Map.entry("cos", "cos"), Map.entry("tan", "tan"),
+            // Supports both 'asin' and 'arcsin' naming conventions
+            Map.entry("asin", "asin"), Map.entry("arcsin", "asin"),
+            Map.entry("acos", "acos"), Map.entry("arccos", "acos"),
+            Map.entry("atan", "atan"), Map.entry("arctan", "atan"),
+            Map.entry("sinh", "sinh"), Map.entry("cosh", "cosh"), Map.entry("tanh", "tanh"),
+            Map.entry("sqrt", "sqrt"), Map.entry("cbrt", "cbrt"), Map.entry("abs", "abs"),
+            Map.entry("log", "log"), Map.entry("ln", "ln"), Map.entry("exp", "exp"),
+            Map.entry("floor", "floor"), Map.entry("ceil", "ceil"), Map.entry("round", "round"),
+            Map.entry("sign", "sign"), Map.entry("signum", "sign")
+    );
+
+    // Longest names first, so "arcsin" wins over "sin" when erasing names inside identifiers
+    private static final String[] RESERVED_NAMES = {
+            "signum", "arcsin", "arccos", "arctan", "floor", "round", "asin", "acos", "atan",
+            "sinh", "cosh", "tanh", "sqrt", "cbrt", "ceil", "sign", "sin", "cos", "tan",
+            "abs", "log", "exp", "ln", "pi"
+    };
+
     private static class ASTCompiler {
-        private final String str;
+        private final List<Token> tokens;
         private final Map<Character, Parameter> params;
-        private int pos = -1, ch;
+        private int p, end;
 
-        public ASTCompiler(String str, Map<Character, Parameter> params) {
-            this.str = str;
+        public ASTCompiler(List<Token> tokens, Map<Character, Parameter> params) {
+            this.tokens = tokens;
             this.params = params;
-            nextChar();
         }
 
-        private void nextChar() {
-            ch = (++pos < str.length()) ? str.charAt(pos) : -1;
+        // Parses tokens [from, to) and requires all of them to be consumed
+        public Expr parseRange(int from, int to) throws ParseException {
+            p = from;
+            end = to;
+            if (p >= end) throw error("Missing expression", peek());
+            Expr e = parseBoolean();
+            if (p < end) throw error("Unexpected '" + peek().text() + "'", peek());
+            return e;
+        }
+
+        private Token peek() {
+            return peek(0);
+        }
+
+        private Token peek(int k) {
+            int i = p + k;
+            if (i < end) return tokens.get(i);
+            // Virtual end-of-range token positioned where the range stops
+            return new Token(Type.EOF, "", 0, tokens.get(Math.min(end, tokens.size() - 1)).pos());
+        }
+
+        private boolean accept(Type type) {
+            if (peek().is(type)) {
+                p++;
+                return true;
+            }
+            return false;
         }
 
-        private boolean eat(int charToEat) {
-            while (ch == ' ') nextChar();
-            if (ch == charToEat) {
-                nextChar();
+        private boolean acceptWord(String word) {
+            if (peek().isIdent(word)) {
+                p++;
                 return true;
             }
             return false;
         }
 
-        public Node parse() {
-            return parseBoolean();
+        private static ParseException error(String message, Token at) {
+            if (at.is(Type.EOF)) message = message.startsWith("Unexpected") ? "Unexpected end of input" : message;
+            return new ParseException(message + " at position " + at.pos(), at.pos());
+        }
+
+        // Closing paren is optional at the very end so half-typed input still plots
+        private void expectClose() throws ParseException {
+            if (accept(Type.RPAREN) || peek().is(Type.EOF)) return;
+            throw error("Expected ')'", peek());
         }
 
-        private Node parseBoolean() {
-            Node x = parseCondition();
+        private Expr parseBoolean() throws ParseException {
+            Expr x = parseCondition();
             for (; ; ) {
-                if (eat('&') && eat('&')) {
-                    Node a = x, b = parseCondition();
-                    x = (X, Y) -> (a.eval(X, Y) > 0 && b.eval(X, Y) > 0) ? 1.0 : 0.0;
-                } else if (eat('|') && eat('|')) {
-                    Node a = x, b = parseCondition();
-                    x = (X, Y) -> (a.eval(X, Y) > 0 || b.eval(X, Y) > 0) ? 1.0 : 0.0;
+                // Limits may be written "a < x, y > 0" or "x > 0 and y > 0"
+                if (accept(Type.AND) || accept(Type.COMMA) || acceptWord("and")) {
+                    x = new Expr.Compare("&&", x, parseCondition());
+                } else if (accept(Type.OR) || acceptWord("or")) {
+                    x = new Expr.Compare("||", x, parseCondition());
                 } else {
                     return x;
                 }
             }
         }
 
-        private Node parseCondition() {
-            Node x = parseExpression();
+        // Comparisons chain: "-1 < x <= 2" means "-1 < x && x <= 2"
+        private Expr parseCondition() throws ParseException {
+            Expr left = parseExpression();
+            Expr result = null;
             for (; ; ) {
-                if (eat('<')) {
-                    if (eat('=')) {
-                        Node a = x, b = parseExpression();
-                        x = (X, Y) -> a.eval(X, Y) <= b.eval(X, Y) ? 1 : 0;
-                    } else {
-                        Node a = x, b = parseExpression();
-                        x = (X, Y) -> a.eval(X, Y) < b.eval(X, Y) ? 1 : 0;
-                    }
-                } else if (eat('>')) {
-                    if (eat('=')) {
-                        Node a = x, b = parseExpression();
-                        x = (X, Y) -> a.eval(X, Y) >= b.eval(X, Y) ? 1 : 0;
-                    } else {
-                        Node a = x, b = parseExpression();
-                        x = (X, Y) -> a.eval(X, Y) > b.eval(X, Y) ? 1 : 0;
-                    }
-                } else if (eat('=')) {
-                    eat('=');
-                    Node a = x, b = parseExpression();
-                    x = (X, Y) -> Math.abs(a.eval(X, Y) - b.eval(X, Y)) < 1e-9 ? 1 : 0;
-                } else return x;
+                String op = switch (peek().type()) {
+                    case LT -> "<";
+                    case LE -> "<=";
+                    case GT -> ">";
+                    case GE -> ">=";
+                    case EQ, ASSIGN -> "==";
+                    default -> null;
+                };
+                if (op == null) return result == null ? left : result;
+                p++;
+                Expr right = parseExpression();
+                Expr cmp = new Expr.Compare(op, left, right);
+                result = (result == null) ? cmp : new Expr.Compare("&&", result, cmp);
+                left = right;
             }
         }
 
-        private Node parseExpression() {
-            Node x = parseTerm();
+        private Expr parseExpression() throws ParseException {
+            Expr x = parseTerm();
             for (; ; ) {
-                if (eat('+')) {
-                    Node a = x, b = parseTerm();
-                    x = (X, Y) -> a.eval(X, Y) + b.eval(X, Y);
-                } else if (eat('-')) {
-                    Node a = x, b = parseTerm();
-                    x = (X, Y) -> a.eval(X, Y) - b.eval(X, Y);
+                if (accept(Type.PLUS)) {
+                    x = new Expr.Binary('+', x, parseTerm());
+                } else if (accept(Type.MINUS)) {
+                    x = new Expr.Binary('-', x, parseTerm());
                 } else {
                     return x;
                 }
             }
         }
 
-        private Node parseTerm() {
-            Node x = parseFactor();
+        private Expr parseTerm() throws ParseException {
+            Expr x = parseFactor();
             for (; ; ) {
-                if (eat('*')) {
-                    Node a = x, b = parseFactor();
-                    x = (X, Y) -> a.eval(X, Y) * b.eval(X, Y);
-                } else if (eat('/')) {
-                    Node a = x, b = parseFactor();
-                    x = (X, Y) -> a.eval(X, Y) / b.eval(X, Y);
+                if (accept(Type.STAR)) {
+                    x = new Expr.Binary('*', x, parseFactor());
+                } else if (accept(Type.SLASH)) {
+                    x = new Expr.Binary('/', x, parseFactor());
+                } else if (startsFactor(peek()) && !startsWord(peek())) {
+                    // Implicit multiplication: "2x", "3(x+1)", "(x+1)(x-1)"
+                    x = new Expr.Binary('*', x, parseFactor());
                 } else {
                     return x;
                 }
             }
         }
 
-        private Node parseFactor() {
-            if (eat('+')) return parseFactor();
-            if (eat('-')) {
-                Node a = parseFactor();
-                return (X, Y) -> -a.eval(X, Y);
+        private static boolean startsFactor(Token t) {
+            return t.is(Type.NUMBER) || t.is(Type.IDENT) || t.is(Type.LPAREN);
+        }
+
+        // Word operators in limits must not be swallowed as implicit multiplication
+        private static boolean startsWord(Token t) {
+            return t.isIdent("and") || t.isIdent("or");
+        }
+
+        private Expr parseFactor() throws ParseException {
+            if (accept(Type.PLUS)) return parseFactor();
+            if (accept(Type.MINUS)) {
+                return new Expr.Neg(parseFactor());
             }
 
-            Node xNode;
-            int startPos = this.pos;
-            if (eat('(')) {
-                xNode = parseBoolean();
-                eat(')');
-            } else if ((ch >= '0' && ch <= '9') || ch == '.') {
-                while ((ch >= '0' && ch <= '9') || ch == '.') nextChar();
-                double val = Double.parseDouble(str.substring(startPos, this.pos));
-                xNode = (X, Y) -> val;
-            } else if ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z')) {
-                while ((ch >= 'a' && ch <= 'z') || (ch >= 'A' && ch <= 'Z')) nextChar();
-                String name = str.substring(startPos, this.pos).toLowerCase();
-
-                if (eat('(')) {
-                    Node a = parseExpression();
-                    eat(')');
-                    // --- FULL STANDARD SCIENTIFIC LIBRARY SUPPORT ---
-                    switch (name) {
-                        case "sin":
-                            xNode = (X, Y) -> Math.sin(a.eval(X, Y));
-                            break;
-                        case "cos":
-                            xNode = (X, Y) -> Math.cos(a.eval(X, Y));
-                            break;
-                        case "tan":
-                            xNode = (X, Y) -> Math.tan(a.eval(X, Y));
-                            break;
-
-                        // Supports both 'asin' and 'arcsin' naming conventions
-                        case "asin":
-                        case "arcsin":
-                            xNode = (X, Y) -> Math.asin(a.eval(X, Y));
-                            break;
-                        case "acos":
-                        case "arccos":
-                            xNode = (X, Y) -> Math.acos(a.eval(X, Y));
-                            break;
-                        case "atan":
-                        case "arctan":
-                            xNode = (X, Y) -> Math.atan(a.eval(X, Y));
-                            break;
-
-                        case "sinh":
-                            xNode = (X, Y) -> Math.sinh(a.eval(X, Y));
-                            break;
-                        case "cosh":
-                            xNode = (X, Y) -> Math.cosh(a.eval(X, Y));
-                            break;
-                        case "tanh":
-                            xNode = (X, Y) -> Math.tanh(a.eval(X, Y));
-                            break;
-
-                        case "sqrt":
-                            xNode = (X, Y) -> Math.sqrt(a.eval(X, Y));
-                            break;
-                        case "cbrt":
-                            xNode = (X, Y) -> Math.cbrt(a.eval(X, Y));
-                            break;
-                        case "abs":
-                            xNode = (X, Y) -> Math.abs(a.eval(X, Y));
-                            break;
-                        case "log":
-                            xNode = (X, Y) -> Math.log10(a.eval(X, Y));
-                            break;
-                        case "ln":
-                            xNode = (X, Y) -> Math.log(a.eval(X, Y));
-                            break;
-                        case "exp":
-                            xNode = (X, Y) -> Math.exp(a.eval(X, Y));
-                            break;
-
-                        case "floor":
-                            xNode = (X, Y) -> Math.floor(a.eval(X, Y));
-                            break;
-                        case "ceil":
-                            xNode = (X, Y) -> Math.ceil(a.eval(X, Y));
-                            break;
-                        case "round":
-                            xNode = (X, Y) -> Math.round(a.eval(X, Y));
-                            break;
-                        case "sign":
-                        case "signum":
-                            xNode = (X, Y) -> Math.signum(a.eval(X, Y));
-                            break;
-                        default:
-                            throw new RuntimeException("Unknown function: " + name);
-                    }
+            Expr xNode;
+            Token t = peek();
+            if (isDerivativeOperator()) {
+                // d/dx applies to the parenthesised group or the next factor
+                Expr a;
+                if (accept(Type.LPAREN)) {
+                    a = parseBoolean();
+                    expectClose();
                 } else {
-                    if (name.equals("x")) xNode = (X, Y) -> X;
-                    else if (name.equals("y")) xNode = (X, Y) -> Y;
-                    else if (name.equals("pi")) xNode = (X, Y) -> Math.PI;
-                    else if (name.equals("e")) xNode = (X, Y) -> Math.E;
-                    else if (name.length() == 1 && params.containsKey(name.charAt(0))) {
-                        Parameter p = params.get(name.charAt(0));
-                        xNode = (X, Y) -> p.getArgumentValue();
-                    } else {
-                        // Support for implicit variables like 'ax' -> a * x
-                        Node chain = (X, Y) -> 1.0;
-                        for (int i = 0; i < name.length(); i++) {
-                            char c = name.charAt(i);
-                            Node part;
-                            if (c == 'x') part = (X, Y) -> X;
-                            else if (c == 'y') part = (X, Y) -> Y;
-                            else if (params.containsKey(c)) {
-                                Parameter p = params.get(c);
-                                part = (X, Y) -> p.getArgumentValue();
-                            } else part = (X, Y) -> 1.0;
-
-                            Node prev = chain;
-                            chain = (X, Y) -> prev.eval(X, Y) * part.eval(X, Y);
-                        }
-                        xNode = chain;
-                    }
+                    a = parseFactor();
                 }
+                xNode = a.derive('x').simplifyDerivative();
+            } else if (accept(Type.LPAREN)) {
+                xNode = parseBoolean();
+                expectClose();
+            } else if (accept(Type.NUMBER)) {
+                xNode = new Expr.Num(t.value());
+            } else if (accept(Type.IDENT)) {
+                xNode = parseIdentifier(t.text());
             } else {
-                throw new RuntimeException("Unexpected char: " + (char) ch);
+                throw error("Unexpected '" + t.text() + "'", t);
             }
 
-            if (eat('^')) {
-                Node a = xNode, b = parseFactor();
-                xNode = (X, Y) -> Math.pow(a.eval(X, Y), b.eval(X, Y));
+            if (accept(Type.CARET)) {
+                xNode = new Expr.Binary('^', xNode, parseFactor());
             }
 
             return xNode;
         }
+
+        // Consumes "d/dx" or MathLive's "(d)/(dx)" if it is next
+        private boolean isDerivativeOperator() {
+            if (peek().isIdent("d") && peek(1).is(Type.SLASH) && peek(2).isIdent("dx")) {
+                p += 3;
+                return true;
+            }
+            if (peek().is(Type.LPAREN) && peek(1).isIdent("d") && peek(2).is(Type.RPAREN) && peek(3).is(Type.SLASH)
+                    && peek(4).is(Type.LPAREN) && peek(5).isIdent("dx") && peek(6).is(Type.RPAREN)) {
+                p += 7;
+                return true;
+            }
+            return false;
+        }
+
+        private Expr parseIdentifier(String name) throws ParseException {
+            // --- FULL STANDARD SCIENTIFIC LIBRARY SUPPORT ---
+            String fn = FUNCTIONS.get(name);
+            if (fn != null) {
+                Expr a;
+                if (accept(Type.LPAREN)) {
+                    a = parseExpression();
+                    expectClose();
+                } else {
+                    a = parseFactor(); // "sin x"
+                }
+                return new Expr.Call(fn, a);
+            }
+            if (peek().is(Type.LPAREN) && name.length() > 1) {
+                throw error("Unknown function '" + name + "'", tokens.get(p - 1));
+            }
+
+            switch (name) {
+                case "x":
+                    return new Expr.Var('x');
+                case "y":
+                    return new Expr.Var('y');
+                case "pi":
+                    return new Expr.Num(Math.PI);
+                case "e":
+                    return new Expr.Num(Math.E);
+            }
+
+            // Support for implicit variables like 'ax' -> a * x.
+            // Function names inside a run of letters are erased so they never become sliders.
+            Expr chain = null;
+            for (int i = 0; i < name.length(); ) {
+                int skip = reservedAt(name, i);
+                if (skip > 0) {
+                    i += skip;
+                    continue;
+                }
+                char c = name.charAt(i++);
+                Expr part;
+                if (c == 'x' || c == 'y') part = new Expr.Var(c);
+                else if (c == 'e') part = new Expr.Num(Math.E);
+                else {
+                    params.computeIfAbsent(c, k -> new Parameter());
+                    part = new Expr.Param(c);
+                }
+                chain = (chain == null) ? part : new Expr.Binary('*', chain, part);
+            }
+            return chain == null ? new Expr.Num(1.0) : chain;
+        }
+
+        private static int reservedAt(String name, int i) {
+            for (String reserved : RESERVED_NAMES) {
+                if (name.startsWith(reserved, i)) return reserved.length();
+            }
+            return 0;
+        }
     }
-}
\ No newline at end of file
+}
@@ -1,29 +1,26 @@
 package org.example.equation_plotter;
 
-import javafx.concurrent.Worker;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
-import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.AnchorPane;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
-import javafx.scene.web.WebView;
 import javafx.stage.FileChooser;
-import netscape.javascript.JSObject;
 import org.kordamp.ikonli.javafx.FontIcon;
 
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Map;
 
 public class EquatorController {
     @FXML
@@ -50,6 +47,12 @@ public class EquatorController {
             Color.ORANGE, Color.PURPLE, Color.BLACK
     );
     private int colorIndex = 0;
+    private static final int SWEEP_FRAMES = 60;
+    private final Map<String, List<ParameterAnimator>> animators = new HashMap<>();
+    // Slider per row and parameter, so File > Save can store values and ranges
+    private final Map<String, Map<Character, Slider>> sliders = new HashMap<>();
+    // Slider ranges from a loaded workspace, picked up when the row's sliders are created
+    private final Map<String, Map<Character, Workspace.Param>> restoredParams = new HashMap<>();
 
     @FXML
     public void initialize() {
@@ -111,45 +114,19 @@ public class EquatorController {
     }
 
     private void addEquation() {
-        String id = "eq-" + System.nanoTime();
+        addEquation(null, null);
+    }
 
-        WebView webView = new WebView();
-        webView.setPrefSize(350, 60); // Updated size for better visibility
-        webView.setContextMenuEnabled(false);
-
-        // Standard event filter for keys
-        webView.addEventFilter(KeyEvent.KEY_PRESSED, event -> {
-            String command = null;
-            switch (event.getCode()) {
-                case BACK_SPACE:
-                    command = "deleteBackward";
-                    break;
-                case LEFT:
-                    command = "moveToPreviousChar";
-                    break;
-                case RIGHT:
-                    command = "moveToNextChar";
-                    break;
-                case UP:
-                    command = "moveUp";
-                    break;
-                case DOWN:
-                    command = "moveDown";
-                    break;
-                default:
-                    break;
-            }
-            if (command != null) {
-                webView.getEngine().executeScript("document.getElementById('mf').executeCommand('" + command + "');");
-                event.consume();
-            }
-        });
+    // initialText/color come from a loaded file; the row's bridge is returned so the caller can plot it
+    private MathBridge addEquation(String initialText, Color color) {
+        String id = "eq-" + System.nanoTime();
 
-        // Load the HTML file
-        java.net.URL htmlUrl = getClass().getResource("/org/example/equation_plotter/math_input.html");
-        if (htmlUrl != null) {
-            webView.getEngine().load(htmlUrl.toExternalForm());
-        }
+        // Plain text input with a typeset preview underneath (see LatexPreview)
+        TextField tf = new TextField();
+        tf.getStyleClass().add("glass-input");
+        tf.setPromptText("y = ...");
+        tf.setPrefWidth(350);
+        LatexPreview preview = new LatexPreview();
 
         Button btn_rmv = new Button();
         btn_rmv.getStyleClass().add("icon-button");
@@ -158,63 +135,81 @@ public class EquatorController {
         btn_rmv_icon.setIconSize(18);
         btn_rmv.setGraphic(btn_rmv_icon);
 
-        Color initCol = defaultColors.get(colorIndex % defaultColors.size());
+        Color initCol = color != null ? color : defaultColors.get(colorIndex % defaultColors.size());
         colorIndex++;
         ColorPicker cp = new ColorPicker(initCol);
         cp.getStyleClass().add("dot-color-picker");
 
+        Button btn_fit = new Button();
+        btn_fit.getStyleClass().add("icon-button");
+        FontIcon btn_fit_icon = new FontIcon("fas-chart-line");
+        btn_fit_icon.setIconColor(Color.web("#00FFFF"));
+        btn_fit_icon.setIconSize(16);
+        btn_fit.setGraphic(btn_fit_icon);
+        btn_fit.setTooltip(new Tooltip("Fit the parameters to imported data"));
+        btn_fit.setOnAction(e -> fitEquation(id, btn_fit));
+
         HBox topRow = new HBox(10);
         topRow.setAlignment(Pos.CENTER_LEFT);
-        topRow.getChildren().addAll(webView, btn_rmv, cp);
+        topRow.getChildren().addAll(tf, btn_rmv, cp, btn_fit);
 
         VBox sliderBox = new VBox(5);
         VBox equationBlock = new VBox(5);
         equationBlock.setPadding(new Insets(5, 0, 5, 0));
-        equationBlock.getChildren().addAll(topRow, sliderBox);
+        equationBlock.getChildren().addAll(topRow, preview, sliderBox);
 
-        // --- THE FIX: MOVE LOGIC INSIDE THE LOAD WORKER ---
         MathBridge bridge = new MathBridge(id, graphPlotter, cp, sliderBox, this);
 
-        webView.getEngine().getLoadWorker().stateProperty().addListener((obs, oldState, newState) -> {
-            if (newState == Worker.State.SUCCEEDED) {
-                JSObject window = (JSObject) webView.getEngine().executeScript("window");
-                window.setMember("javaConnector", bridge);
-
-                // If there's already text in the field (from a file load), plot it now
-                String currentMath = (String) webView.getEngine().executeScript("document.getElementById('mf').getValue('ascii-math')");
-                if (currentMath != null && !currentMath.trim().isEmpty()) {
-                    bridge.updateMath(currentMath);
-                }
-            }
+        // Loaded rows are already plotted by the caller; the field only has to show the text
+        if (initialText != null) {
+            tf.setText(initialText);
+            preview.show(initialText);
+        }
+        tf.textProperty().addListener((obs, oldText, newText) -> {
+            preview.show(newText);
+            bridge.updateMath(newText);
         });
 
         btn_rmv.setOnAction(event -> {
+            stopAnimators(id);
+            sliders.remove(id);
             equation_container.getChildren().remove(equationBlock);
             graphPlotter.removeEquation(id);
             addEqCount--;
             if (addEqCount == 0) addEquation();
         });
 
+        equationBlock.setUserData(bridge);
         equation_container.getChildren().add(equationBlock);
         addEqCount++;
+        return bridge;
     }
 
     public void createSlidersBridge(EquationParser parser, VBox box, String id) {
+        stopAnimators(id);
         box.getChildren().clear();
+        Map<Character, Slider> rowSliders = new HashMap<>();
+        sliders.put(id, rowSliders);
+        Map<Character, Workspace.Param> restored = restoredParams.remove(id);
 
         parser.getParameters().forEach((ch, arg) -> {
+            Workspace.Param saved = restored != null ? restored.get(ch) : null;
+            double min = saved != null ? saved.min() : -10;
+            double max = saved != null ? saved.max() : 10;
+            double initial = saved != null ? arg.getArgumentValue() : 1;
 
-            Label lbl = new Label(ch + " = 1");
+            Label lbl = new Label(saved != null ? ch + " = " + String.format("%.2f", initial) : ch + " = 1");
             lbl.setStyle("-fx-text-fill: white; -fx-font-size: 14px;");
 
-            Slider s = new Slider(-10, 10, 1);
+            Slider s = new Slider(min, max, initial);
             s.setPrefWidth(300);
             s.setPrefHeight(40);
             s.setShowTickMarks(true);
             s.setShowTickLabels(true);
+            rowSliders.put(ch, s);
 
-            TextField minField = new TextField("-10");
-            TextField maxField = new TextField("10");
+            TextField minField = new TextField(formatBound(min));
+            TextField maxField = new TextField(formatBound(max));
 
             minField.setPrefWidth(45);
             maxField.setPrefWidth(45);
@@ -223,14 +218,18 @@ public class EquatorController {
             minField.setStyle("-fx-font-size: 10px; -fx-alignment: center;");
             maxField.setStyle("-fx-font-size: 10px; -fx-alignment: center;");
 
-            s.setMin(-10);
-            s.setMax(10);
+            s.setMin(min);
+            s.setMax(max);
+            // A fit may move a bound to take in its result
+            s.minProperty().addListener((o, old, v) -> minField.setText(formatBound(v.doubleValue())));
+            s.maxProperty().addListener((o, old, v) -> maxField.setText(formatBound(v.doubleValue())));
 
             minField.setOnAction(e -> {
                 try {
                     double newMin = Double.parseDouble(minField.getText());
                     if (newMin < s.getMax()) {
                         s.setMin(newMin);
+                        graphPlotter.cancelSweep(id);
                         graphPlotter.refreshEquationData(id);
                         graphPlotter.draw();
                     }
@@ -243,6 +242,7 @@ public class EquatorController {
                     double newMax = Double.parseDouble(maxField.getText());
                     if (newMax > s.getMin()) {
                         s.setMax(newMax);
+                        graphPlotter.cancelSweep(id);
                         graphPlotter.refreshEquationData(id);
                         graphPlotter.draw();
                     }
@@ -253,8 +253,9 @@ public class EquatorController {
             javafx.animation.PauseTransition sliderThrottle = new javafx.animation.PauseTransition(javafx.util.Duration.millis(50));
 
             s.valueProperty().addListener((obs, oldv, newv) -> {
-                arg.setArgumentValue(newv.doubleValue());
-                lbl.setText(ch + " = " + String.format("%.2f", newv.doubleValue()));
+                double value = graphPlotter.snapToSweep(id, ch, newv.doubleValue());
+                arg.setArgumentValue(value);
+                lbl.setText(ch + " = " + String.format("%.2f", value));
 
                 sliderThrottle.setOnFinished(event -> {
                     graphPlotter.refreshEquationData(id);
@@ -271,17 +272,171 @@ public class EquatorController {
                 }
             });
 
+            // Precompute frames across [min, max] so scrubbing plays from cache
+            ProgressBar sweepProgress = new ProgressBar();
+            sweepProgress.setPrefWidth(300);
+            sweepProgress.setVisible(false);
+            sweepProgress.setManaged(false);
+
+            Button btn_sweep = new Button();
+            btn_sweep.getStyleClass().add("icon-button");
+            FontIcon btn_sweep_icon = new FontIcon("fas-film");
+            btn_sweep_icon.setIconColor(Color.web("#00FFFF"));
+            btn_sweep_icon.setIconSize(14);
+            btn_sweep.setGraphic(btn_sweep_icon);
+            btn_sweep.setTooltip(new Tooltip("Precompute frames across the slider range"));
+            btn_sweep.setOnAction(e -> {
+                javafx.concurrent.Task<Void> sweep = graphPlotter.precomputeSweep(id, ch, s.getMin(), s.getMax(), SWEEP_FRAMES);
+                if (sweep == null) return;
+                btn_sweep.setDisable(true);
+                sweepProgress.progressProperty().bind(sweep.progressProperty());
+                sweepProgress.setVisible(true);
+                sweepProgress.setManaged(true);
+                sweep.runningProperty().addListener((o, wasRunning, running) -> {
+                    if (!running) {
+                        btn_sweep.setDisable(false);
+                        sweepProgress.progressProperty().unbind();
+                        sweepProgress.setVisible(false);
+                        sweepProgress.setManaged(false);
+                    }
+                });
+            });
+
+            // Play/loop animation of this parameter, with achieved FPS next to the label
+            Label fpsLabel = new Label();
+            fpsLabel.setStyle("-fx-text-fill: #888888; -fx-font-size: 11px;");
+            ParameterAnimator animator = new ParameterAnimator(graphPlotter, id, ch, arg, s, fpsLabel::setText);
+            animators.computeIfAbsent(id, k -> new ArrayList<>()).add(animator);
+
+            Button btn_play = new Button();
+            btn_play.getStyleClass().add("icon-button");
+            FontIcon btn_play_icon = new FontIcon("fas-play");
+            btn_play_icon.setIconColor(Color.web("#00FFFF"));
+            btn_play_icon.setIconSize(14);
+            btn_play.setGraphic(btn_play_icon);
+            btn_play.setTooltip(new Tooltip("Animate this parameter"));
+            btn_play.setOnAction(e -> {
+                if (animator.isPlaying()) {
+                    animator.stop();
+                    btn_play_icon.setIconLiteral("fas-play");
+                } else {
+                    animator.play();
+                    btn_play_icon.setIconLiteral("fas-pause");
+                }
+            });
+
+            ToggleButton btn_loop = new ToggleButton();
+            btn_loop.getStyleClass().add("icon-button");
+            btn_loop.setSelected(animator.isLoop());
+            FontIcon btn_loop_icon = new FontIcon("fas-redo");
+            btn_loop_icon.setIconColor(Color.web("#00FFFF"));
+            btn_loop_icon.setIconSize(12);
+            btn_loop.setGraphic(btn_loop_icon);
+            btn_loop.setTooltip(new Tooltip("Loop playback"));
+            btn_loop.selectedProperty().addListener((o, was, loop) -> animator.setLoop(loop));
+
             HBox sliderRow = new HBox(5);
             sliderRow.setAlignment(Pos.CENTER_LEFT);
-            sliderRow.getChildren().addAll(minField, s, maxField);
+            sliderRow.getChildren().addAll(minField, s, maxField, btn_sweep, btn_play, btn_loop);
+
+            HBox labelRow = new HBox(10);
+            labelRow.setAlignment(Pos.CENTER_LEFT);
+            labelRow.getChildren().addAll(lbl, fpsLabel);
 
             VBox sliderBlock = new VBox(3);
-            sliderBlock.getChildren().addAll(lbl, sliderRow);
+            sliderBlock.getChildren().addAll(labelRow, sliderRow, sweepProgress);
 
             box.getChildren().add(sliderBlock);
         });
     }
 
+    // --- CURVE FITTING ---
+    // Fits the row's parameters to an imported series on a background thread, then moves the sliders
+    private void fitEquation(String id, Button btn_fit) {
+        EquationData data = graphPlotter.getEquation(id);
+        Map<String, PointSeries> series = graphPlotter.getSeries();
+        if (data == null || series.isEmpty()) {
+            showInfo("Curve Fitting", "Import a data set and enter an equation with parameters, e.g. y = a*exp(b*x) + c.");
+            return;
+        }
+
+        PointSeries target = series.values().iterator().next();
+        if (series.size() > 1) {
+            Map<String, PointSeries> byName = new java.util.LinkedHashMap<>();
+            series.values().forEach(ps -> byName.putIfAbsent(ps.name, ps));
+            ChoiceDialog<String> choice = new ChoiceDialog<>(target.name, byName.keySet());
+            choice.setTitle("Curve Fitting");
+            choice.setHeaderText("Fit to which data set?");
+            String name = choice.showAndWait().orElse(null);
+            if (name == null) return;
+            target = byName.get(name);
+        }
+
+        CurveFitter fitter;
+        try {
+            fitter = new CurveFitter(data.parser, target);
+        } catch (IllegalArgumentException ex) {
+            showInfo("Curve Fitting", "Cannot fit: " + ex.getMessage() + ".");
+            return;
+        }
+
+        javafx.concurrent.Task<CurveFitter.Result> task = new javafx.concurrent.Task<>() {
+            @Override
+            protected CurveFitter.Result call() {
+                return fitter.onProgress(p -> updateProgress(p, 1)).cancelWhen(this::isCancelled).fit();
+            }
+        };
+        btn_fit.setDisable(true);
+        task.setOnSucceeded(e -> {
+            btn_fit.setDisable(false);
+            // Only write back if the row still shows the equation that was fitted
+            if (graphPlotter.getEquation(id) != data) return;
+            stopAnimators(id);
+            graphPlotter.cancelSweep(id);
+            Map<Character, Slider> rowSliders = sliders.getOrDefault(id, Map.of());
+            task.getValue().values().forEach((ch, value) -> {
+                Slider s = rowSliders.get(ch);
+                if (s != null) {
+                    if (value < s.getMin()) s.setMin(Math.floor(value));
+                    if (value > s.getMax()) s.setMax(Math.ceil(value));
+                    s.setValue(value);
+                }
+                EquationParser.Parameter arg = data.parser.getParameters().get(ch);
+                if (arg != null) arg.setArgumentValue(value);
+            });
+            graphPlotter.refreshAllData();
+            graphPlotter.draw();
+        });
+        task.setOnFailed(e -> {
+            btn_fit.setDisable(false);
+            showInfo("Curve Fitting", "Fit failed: " + task.getException().getMessage());
+        });
+        Thread thread = new Thread(task, "curve-fit");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void showInfo(String title, String message) {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+
+    private static String formatBound(double v) {
+        return v == Math.rint(v) ? String.valueOf((long) v) : String.valueOf(v);
+    }
+
+    private void stopAnimators(String id) {
+        List<ParameterAnimator> running = animators.remove(id);
+        if (running != null) running.forEach(ParameterAnimator::stop);
+    }
+
+    private void stopAllAnimators() {
+        new ArrayList<>(animators.keySet()).forEach(this::stopAnimators);
+    }
+
     private void setBtn_home() {
         FontIcon btn_home_icon = new FontIcon("fas-home");
         btn_home_icon.setIconColor(Color.web("#00FFFF"));
@@ -319,79 +474,299 @@ public class EquatorController {
     }
 
     public void handleNewFile(ActionEvent event) {
-        equation_container.getChildren().clear();
-        graphPlotter.clearAllEquations();
-        colorIndex = 0;
-        addEqCount = 0;
+        clearRows();
         addEquation();
     }
 
     public void handleOpenFile(ActionEvent event) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Open Equations");
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Text Files", "*.txt"));
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Equation Files", "*.eqw", "*.txt"),
+                new FileChooser.ExtensionFilter("Workspace", "*.eqw"),
+                new FileChooser.ExtensionFilter("Text Files", "*.txt"));
         File file = fileChooser.showOpenDialog(mainBorderPane.getScene().getWindow());
+        if (file == null) return;
 
-        if (file != null) {
-            equation_container.getChildren().clear();
-            graphPlotter.clearAllEquations();
-            colorIndex = 0;
-            addEqCount = 0;
-
-            boolean loadedAny = false;
-            try (Scanner scanner = new Scanner(file)) {
-                while (scanner.hasNextLine()) {
-                    String line = scanner.nextLine().trim();
-                    if (!line.isEmpty()) {
-                        addEquation();
-
-                        // Navigate: VBox (equationBlock) -> HBox (topRow) -> TextField
-                        VBox equationBlock = (VBox) equation_container.getChildren().getLast();
-                        HBox topRow = (HBox) equationBlock.getChildren().get(0);
-                        TextField tf = (TextField) topRow.getChildren().get(0);
-                        ColorPicker cp = (ColorPicker) topRow.getChildren().get(2);
-
-                        tf.setText(line);
-
-                        // Manually trigger the plot since setText() doesn't fire listeners
-                        graphPlotter.addEquationToHashmap(tf.getId(), line, cp.getValue());
-                        loadedAny = true;
-                    }
-                }
-            } catch (FileNotFoundException e) {
-                e.printStackTrace();
-            }
+        if (Workspace.isWorkspace(file.toPath())) {
+            openWorkspace(file);
+            return;
+        }
+
+        openEquationFile(file);
+    }
 
-            if (!loadedAny) {
+    // Text files are streamed, parsed and traced in parallel off the FX thread (see EquationLoader);
+    // the rows and curves are then applied in one batch with a single refresh
+    private void openEquationFile(File file) {
+        EquationLoader loader = new EquationLoader(file.toPath(), graphPlotter.getCenterX(), graphPlotter.getCenterY(),
+                graphPlotter.getScale(), graphPlotter.getWidth(), graphPlotter.getHeight(),
+                graphPlotter.getCanvasWidth(), graphPlotter.getCanvasHeight());
+        javafx.concurrent.Task<List<EquationLoader.Loaded>> task = new javafx.concurrent.Task<>() {
+            @Override
+            protected List<EquationLoader.Loaded> call() throws IOException {
+                return loader.onProgress(p -> updateProgress(p, 1)).cancelWhen(this::isCancelled).load();
+            }
+        };
+
+        Label loadingLabel = new Label("Loading " + file.getName() + "...");
+        loadingLabel.setStyle("-fx-text-fill: white; -fx-font-size: 14px;");
+        ProgressBar loadingProgress = new ProgressBar();
+        loadingProgress.setPrefWidth(300);
+        loadingProgress.progressProperty().bind(task.progressProperty());
+        VBox loadingBlock = new VBox(5, loadingLabel, loadingProgress);
+        loadingBlock.setPadding(new Insets(5, 0, 5, 0));
+        equation_container.getChildren().addFirst(loadingBlock);
+
+        task.setOnSucceeded(e -> {
+            clearRows();
+            for (EquationLoader.Loaded loaded : task.getValue()) {
+                addEquation(loaded.text(), null).restore(loaded.text(), loaded.parser(), loaded.samples(), loaded.implicit());
+            }
+            if (task.getValue().isEmpty()) {
                 addEquation();
             }
 
-            // Final refresh to ensure all points and lines calculate
+            // One refresh for the whole file, so the intersection and intercept passes run once
             graphPlotter.refreshAllData();
             graphPlotter.draw();
+        });
+        task.setOnFailed(e -> {
+            equation_container.getChildren().remove(loadingBlock);
+            showInfo("Open Equations", "Could not open " + file.getName() + ": " + task.getException().getMessage());
+        });
+        Thread thread = new Thread(task, "equation-load");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void clearRows() {
+        stopAllAnimators();
+        equation_container.getChildren().clear();
+        graphPlotter.clearAllEquations();
+        sliders.clear();
+        restoredParams.clear();
+        colorIndex = 0;
+        addEqCount = 0;
+    }
+
+    // The file is mapped and parsed off the FX thread; the rows, view and cached geometry are then
+    // applied in one go, so the saved picture is on screen without evaluating anything
+    private void openWorkspace(File file) {
+        javafx.concurrent.Task<List<EquationParser>> task = new javafx.concurrent.Task<>() {
+            private Workspace workspace;
+
+            @Override
+            protected List<EquationParser> call() throws IOException {
+                workspace = Workspace.read(file.toPath());
+                List<EquationParser> parsers = new ArrayList<>();
+                for (Workspace.Row row : workspace.rows) {
+                    EquationParser parser = ParseCache.obtain(ParseCache.normalize(row.text()));
+                    // Saved slider values go in before the parser is keyed, so the saved geometry matches
+                    row.params().forEach((ch, p) -> {
+                        EquationParser.Parameter arg = parser.getParameters().get(ch);
+                        if (arg != null) arg.setArgumentValue(p.value());
+                    });
+                    parsers.add(parser);
+                }
+                return parsers;
+            }
+
+            @Override
+            protected void succeeded() {
+                applyWorkspace(workspace, getValue());
+            }
+        };
+        task.setOnFailed(e -> showInfo("Open Workspace", "Could not open " + file.getName() + ": " + task.getException().getMessage()));
+        Thread thread = new Thread(task, "workspace-load");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void applyWorkspace(Workspace workspace, List<EquationParser> parsers) {
+        clearRows();
+        graphPlotter.setView(workspace.cx, workspace.cy, workspace.scale);
+        for (int i = 0; i < workspace.rows.size(); i++) {
+            Workspace.Row row = workspace.rows.get(i);
+            MathBridge bridge = addEquation(row.text(), row.color());
+            restoredParams.put(bridge.getEquationId(), row.params());
+            bridge.restore(row.text(), parsers.get(i), row.samples(), row.implicit());
         }
+        if (workspace.rows.isEmpty()) {
+            addEquation();
+        }
+        graphPlotter.refreshAllData();
+        graphPlotter.draw();
     }
 
     public void handleSaveFile(ActionEvent event) {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Save Equations");
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Text Files", "*.txt"));
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Workspace", "*.eqw"),
+                new FileChooser.ExtensionFilter("Text Files", "*.txt"));
         File file = fileChooser.showSaveDialog(mainBorderPane.getScene().getWindow());
+        if (file == null) return;
 
-        if (file != null) {
-            try (PrintWriter writer = new PrintWriter(file)) {
-                equation_container.getChildren().forEach(node -> {
-                    if (node instanceof VBox equationBlock && !equationBlock.getChildren().isEmpty()) {
-                        HBox topRow = (HBox) equationBlock.getChildren().get(0);
-                        TextField tf = (TextField) topRow.getChildren().get(0);
-                        if (!tf.getText().isBlank()) {
-                            writer.println(tf.getText());
-                        }
-                    }
-                });
+        List<MathBridge> rows = new ArrayList<>();
+        equation_container.getChildren().forEach(node -> {
+            if (node.getUserData() instanceof MathBridge bridge && !bridge.currentText().isBlank()) {
+                rows.add(bridge);
+            }
+        });
+
+        if (Workspace.isWorkspace(file.toPath())) {
+            try {
+                workspaceOf(rows).write(file.toPath(), true);
             } catch (IOException e) {
-                e.printStackTrace();
+                showInfo("Save Equations", "Could not save " + file.getName() + ": " + e.getMessage());
             }
+            return;
+        }
+
+        try (PrintWriter writer = new PrintWriter(file)) {
+            rows.forEach(bridge -> writer.println(bridge.currentText()));
+        } catch (IOException e) {
+            showInfo("Save Equations", "Could not save " + file.getName() + ": " + e.getMessage());
+        }
+    }
+
+    private Workspace workspaceOf(List<MathBridge> bridges) {
+        List<Workspace.Row> rows = new ArrayList<>();
+        for (MathBridge bridge : bridges) {
+            String id = bridge.getEquationId();
+            Map<Character, Workspace.Param> params = new java.util.LinkedHashMap<>();
+            sliders.getOrDefault(id, Map.of()).forEach((ch, s) -> params.put(ch, new Workspace.Param(s.getValue(), s.getMin(), s.getMax())));
+            rows.add(new Workspace.Row(bridge.currentText(), bridge.currentColor(), params,
+                    graphPlotter.savedSamples(id), graphPlotter.savedImplicit(id)));
         }
+        return new Workspace(graphPlotter.getCenterX(), graphPlotter.getCenterY(), graphPlotter.getScale(), rows);
+    }
+
+    // Measured data (CSV or raw float64 pairs) shown as one series next to the curves
+    public void handleImportData(ActionEvent event) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Import Data");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Point Data", "*.csv", "*.txt", "*.tsv", "*.bin", "*.f64"),
+                new FileChooser.ExtensionFilter("All Files", "*.*"));
+        File file = fileChooser.showOpenDialog(mainBorderPane.getScene().getWindow());
+        if (file == null) return;
+
+        javafx.concurrent.Task<PointSeries> task = new javafx.concurrent.Task<>() {
+            @Override
+            protected PointSeries call() throws IOException {
+                return PointImporter.read(file.toPath(), this::isCancelled);
+            }
+        };
+        task.setOnSucceeded(e -> addSeriesRow(task.getValue()));
+        task.setOnFailed(e -> showInfo("Import Data", "Could not import " + file.getName() + ": " + task.getException().getMessage()));
+        Thread thread = new Thread(task, "data-import");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void addSeriesRow(PointSeries series) {
+        String id = "data-" + System.nanoTime();
+
+        Label name = new Label(series.name + "  (" + String.format("%,d", series.size) + " points)");
+        name.setStyle("-fx-text-fill: white; -fx-font-size: 14px;");
+        name.setPrefWidth(350);
+
+        Button btn_rmv = new Button();
+        btn_rmv.getStyleClass().add("icon-button");
+        FontIcon btn_rmv_icon = new FontIcon("fas-times");
+        btn_rmv_icon.setIconColor(Color.web("#ff4444"));
+        btn_rmv_icon.setIconSize(18);
+        btn_rmv.setGraphic(btn_rmv_icon);
+
+        Color initCol = defaultColors.get(colorIndex % defaultColors.size());
+        colorIndex++;
+        ColorPicker cp = new ColorPicker(initCol);
+        cp.getStyleClass().add("dot-color-picker");
+        cp.setOnAction(e -> graphPlotter.updateSeriesColor(id, cp.getValue()));
+
+        HBox topRow = new HBox(10);
+        topRow.setAlignment(Pos.CENTER_LEFT);
+        topRow.getChildren().addAll(name, btn_rmv, cp);
+
+        VBox seriesBlock = new VBox(5);
+        seriesBlock.setPadding(new Insets(5, 0, 5, 0));
+        seriesBlock.getChildren().add(topRow);
+
+        btn_rmv.setOnAction(e -> {
+            equation_container.getChildren().remove(seriesBlock);
+            graphPlotter.removeSeries(id);
+        });
+
+        equation_container.getChildren().add(seriesBlock);
+        graphPlotter.addSeries(id, series, initCol);
+    }
+
+    public void handleExport(ActionEvent event) {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Export Graph");
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("PNG Image", "*.png"),
+                new FileChooser.ExtensionFilter("SVG Image", "*.svg"));
+        File file = fileChooser.showSaveDialog(mainBorderPane.getScene().getWindow());
+        if (file == null) return;
+
+        ChoiceDialog<Integer> sizeDialog = new ChoiceDialog<>(4000, 1920, 4000, 8000, 16000);
+        sizeDialog.setTitle("Export Graph");
+        sizeDialog.setHeaderText("Output width in pixels");
+        Integer outputWidth = sizeDialog.showAndWait().orElse(null);
+        if (outputWidth == null) return;
+
+        // Everything the export needs is captured here; the rendering itself runs off the FX thread
+        PlotExporter exporter = graphPlotter.exporter(outputWidth);
+        boolean svg = file.getName().toLowerCase().endsWith(".svg");
+        javafx.concurrent.Task<Void> task = new javafx.concurrent.Task<>() {
+            @Override
+            protected Void call() throws IOException {
+                exporter.onProgress(p -> updateProgress(p, 1)).cancelWhen(this::isCancelled);
+                try {
+                    if (svg) {
+                        try (var writer = java.nio.file.Files.newBufferedWriter(file.toPath())) {
+                            exporter.writeSvg(writer);
+                        }
+                    } else {
+                        try (var out = new java.io.BufferedOutputStream(new java.io.FileOutputStream(file), 1 << 16)) {
+                            exporter.writePng(out);
+                        }
+                    }
+                } catch (IOException | RuntimeException e) {
+                    // A partial image is of no use; the stream is closed by now, so the delete works everywhere
+                    java.nio.file.Files.deleteIfExists(file.toPath());
+                    throw e;
+                }
+                return null;
+            }
+        };
+
+        // Same progress block as a file load, with a way out of a long export
+        Label exportLabel = new Label("Exporting " + file.getName() + "...");
+        exportLabel.setStyle("-fx-text-fill: white; -fx-font-size: 14px;");
+        ProgressBar exportProgress = new ProgressBar();
+        exportProgress.setPrefWidth(300);
+        exportProgress.progressProperty().bind(task.progressProperty());
+        Button cancelExport = new Button("Cancel");
+        cancelExport.setOnAction(e -> task.cancel());
+        VBox exportBlock = new VBox(5, exportLabel, new HBox(5, exportProgress, cancelExport));
+        exportBlock.setPadding(new Insets(5, 0, 5, 0));
+        equation_container.getChildren().addFirst(exportBlock);
+
+        task.setOnSucceeded(e -> {
+            equation_container.getChildren().remove(exportBlock);
+            showInfo("Export Graph", "Exported " + file.getName() + ".");
+        });
+        task.setOnFailed(e -> {
+            equation_container.getChildren().remove(exportBlock);
+            showInfo("Export Graph", "Could not export " + file.getName() + ": " + task.getException().getMessage());
+        });
+        task.setOnCancelled(e -> equation_container.getChildren().remove(exportBlock));
+        Thread thread = new Thread(task, "graph-export");
+        thread.setDaemon(true);
+        thread.start();
     }
 }
@@ -0,0 +1,422 @@
+package org.example.equation_plotter;
+
+import java.util.Arrays;
+import java.util.Map;
+
+// Immutable expression tree built by the AST compiler.
+// Parameters are referenced by name only, so a tree can be compiled against any parameter map.
+public sealed interface Expr {
+
+    record Num(double value) implements Expr {
+    }
+
+    // 'x' or 'y'
+    record Var(char name) implements Expr {
+    }
+
+    // Slider parameter such as 'a'
+    record Param(char name) implements Expr {
+    }
+
+    record Neg(Expr a) implements Expr {
+    }
+
+    // op is one of + - * / ^
+    record Binary(char op, Expr a, Expr b) implements Expr {
+    }
+
+    // op is one of < <= > >= == && ||, evaluates to 1 or 0
+    record Compare(String op, Expr a, Expr b) implements Expr {
+    }
+
+    record Call(String fn, Expr a) implements Expr {
+    }
+
+    // --- COMPILE TO NATIVE LAMBDAS ---
+    default EquationParser.Node compile(Map<Character, EquationParser.Parameter> params) {
+        return compile(params, false);
+    }
+
+    // approximate = true swaps the transcendental functions for FastMath (preview quality, see its error bounds)
+    default EquationParser.Node compile(Map<Character, EquationParser.Parameter> params, boolean approximate) {
+        return switch (this) {
+            case Num n -> {
+                double val = n.value();
+                yield (X, Y) -> val;
+            }
+            case Var v -> v.name() == 'x' ? (X, Y) -> X : (X, Y) -> Y;
+            case Param p -> {
+                EquationParser.Parameter param = params.get(p.name());
+                if (param == null) yield (X, Y) -> 1.0;
+                yield (X, Y) -> param.getArgumentValue();
+            }
+            case Neg n -> {
+                EquationParser.Node a = n.a().compile(params, approximate);
+                yield (X, Y) -> -a.eval(X, Y);
+            }
+            case Binary bin -> {
+                EquationParser.Node a = bin.a().compile(params, approximate), b = bin.b().compile(params, approximate);
+                yield switch (bin.op()) {
+                    case '+' -> (X, Y) -> a.eval(X, Y) + b.eval(X, Y);
+                    case '-' -> (X, Y) -> a.eval(X, Y) - b.eval(X, Y);
+                    case '*' -> (X, Y) -> a.eval(X, Y) * b.eval(X, Y);
+                    case '/' -> (X, Y) -> a.eval(X, Y) / b.eval(X, Y);
+                    case '^' -> approximate ? (X, Y) -> FastMath.pow(a.eval(X, Y), b.eval(X, Y)) : (X, Y) -> Math.pow(a.eval(X, Y), b.eval(X, Y));
+                    default -> throw new IllegalStateException("Unknown operator: " + bin.op());
+                };
+            }
+            case Compare cmp -> {
+                EquationParser.Node a = cmp.a().compile(params, approximate), b = cmp.b().compile(params, approximate);
+                yield switch (cmp.op()) {
+                    case "<" -> (X, Y) -> a.eval(X, Y) < b.eval(X, Y) ? 1 : 0;
+                    case "<=" -> (X, Y) -> a.eval(X, Y) <= b.eval(X, Y) ? 1 : 0;
+                    case ">" -> (X, Y) -> a.eval(X, Y) > b.eval(X, Y) ? 1 : 0;
+                    case ">=" -> (X, Y) -> a.eval(X, Y) >= b.eval(X, Y) ? 1 : 0;
+                    case "==" -> (X, Y) -> Math.abs(a.eval(X, Y) - b.eval(X, Y)) < 1e-9 ? 1 : 0;
+                    case "&&" -> (X, Y) -> (a.eval(X, Y) > 0 && b.eval(X, Y) > 0) ? 1.0 : 0.0;
+                    case "||" -> (X, Y) -> (a.eval(X, Y) > 0 || b.eval(X, Y) > 0) ? 1.0 : 0.0;
+                    default -> throw new IllegalStateException("Unknown comparison: " + cmp.op());
+                };
+            }
+            case Call call -> {
+                EquationParser.Node a = call.a().compile(params, approximate);
+                yield switch (call.fn()) {
+                    case "sin" -> approximate ? (X, Y) -> FastMath.sin(a.eval(X, Y)) : (X, Y) -> Math.sin(a.eval(X, Y));
+                    case "cos" -> approximate ? (X, Y) -> FastMath.cos(a.eval(X, Y)) : (X, Y) -> Math.cos(a.eval(X, Y));
+                    case "tan" -> approximate ? (X, Y) -> FastMath.tan(a.eval(X, Y)) : (X, Y) -> Math.tan(a.eval(X, Y));
+                    case "asin" -> (X, Y) -> Math.asin(a.eval(X, Y));
+                    case "acos" -> (X, Y) -> Math.acos(a.eval(X, Y));
+                    case "atan" -> approximate ? (X, Y) -> FastMath.atan(a.eval(X, Y)) : (X, Y) -> Math.atan(a.eval(X, Y));
+                    case "sinh" -> approximate ? (X, Y) -> FastMath.sinh(a.eval(X, Y)) : (X, Y) -> Math.sinh(a.eval(X, Y));
+                    case "cosh" -> approximate ? (X, Y) -> FastMath.cosh(a.eval(X, Y)) : (X, Y) -> Math.cosh(a.eval(X, Y));
+                    case "tanh" -> approximate ? (X, Y) -> FastMath.tanh(a.eval(X, Y)) : (X, Y) -> Math.tanh(a.eval(X, Y));
+                    case "sqrt" -> (X, Y) -> Math.sqrt(a.eval(X, Y));
+                    case "cbrt" -> (X, Y) -> Math.cbrt(a.eval(X, Y));
+                    case "abs" -> (X, Y) -> Math.abs(a.eval(X, Y));
+                    case "log" -> approximate ? (X, Y) -> FastMath.log10(a.eval(X, Y)) : (X, Y) -> Math.log10(a.eval(X, Y));
+                    case "ln" -> approximate ? (X, Y) -> FastMath.ln(a.eval(X, Y)) : (X, Y) -> Math.log(a.eval(X, Y));
+                    case "exp" -> approximate ? (X, Y) -> FastMath.exp(a.eval(X, Y)) : (X, Y) -> Math.exp(a.eval(X, Y));
+                    case "floor" -> (X, Y) -> Math.floor(a.eval(X, Y));
+                    case "ceil" -> (X, Y) -> Math.ceil(a.eval(X, Y));
+                    case "round" -> (X, Y) -> Math.round(a.eval(X, Y));
+                    case "sign" -> (X, Y) -> Math.signum(a.eval(X, Y));
+                    default -> throw new IllegalStateException("Unknown function: " + call.fn());
+                };
+            }
+        };
+    }
+
+    // --- COMPILE TO DUAL-NUMBER LAMBDAS (value + d/dx + d/dy in one pass) ---
+    default EquationParser.DualNode compileDual(Map<Character, EquationParser.Parameter> params) {
+        return switch (this) {
+            case Num n -> {
+                Dual val = Dual.constant(n.value());
+                yield (X, Y) -> val;
+            }
+            case Var v -> v.name() == 'x' ? (X, Y) -> new Dual(X, 1, 0) : (X, Y) -> new Dual(Y, 0, 1);
+            case Param p -> {
+                EquationParser.Parameter param = params.get(p.name());
+                if (param == null) yield (X, Y) -> Dual.constant(1.0);
+                yield (X, Y) -> Dual.constant(param.getArgumentValue());
+            }
+            case Neg n -> {
+                EquationParser.DualNode a = n.a().compileDual(params);
+                yield (X, Y) -> a.eval(X, Y).neg();
+            }
+            case Binary bin -> {
+                EquationParser.DualNode a = bin.a().compileDual(params), b = bin.b().compileDual(params);
+                yield switch (bin.op()) {
+                    case '+' -> (X, Y) -> a.eval(X, Y).add(b.eval(X, Y));
+                    case '-' -> (X, Y) -> a.eval(X, Y).sub(b.eval(X, Y));
+                    case '*' -> (X, Y) -> a.eval(X, Y).mul(b.eval(X, Y));
+                    case '/' -> (X, Y) -> a.eval(X, Y).div(b.eval(X, Y));
+                    case '^' -> (X, Y) -> a.eval(X, Y).pow(b.eval(X, Y));
+                    default -> throw new IllegalStateException("Unknown operator: " + bin.op());
+                };
+            }
+            case Compare cmp -> {
+                // Indicator functions are piecewise constant
+                EquationParser.Node plain = cmp.compile(params);
+                yield (X, Y) -> Dual.constant(plain.eval(X, Y));
+            }
+            case Call call -> {
+                EquationParser.DualNode a = call.a().compileDual(params);
+                yield switch (call.fn()) {
+                    case "sin" -> (X, Y) -> a.eval(X, Y).sin();
+                    case "cos" -> (X, Y) -> a.eval(X, Y).cos();
+                    case "tan" -> (X, Y) -> a.eval(X, Y).tan();
+                    case "asin" -> (X, Y) -> a.eval(X, Y).asin();
+                    case "acos" -> (X, Y) -> a.eval(X, Y).acos();
+                    case "atan" -> (X, Y) -> a.eval(X, Y).atan();
+                    case "sinh" -> (X, Y) -> a.eval(X, Y).sinh();
+                    case "cosh" -> (X, Y) -> a.eval(X, Y).cosh();
+                    case "tanh" -> (X, Y) -> a.eval(X, Y).tanh();
+                    case "sqrt" -> (X, Y) -> a.eval(X, Y).sqrt();
+                    case "cbrt" -> (X, Y) -> a.eval(X, Y).cbrt();
+                    case "abs" -> (X, Y) -> a.eval(X, Y).abs();
+                    case "log" -> (X, Y) -> a.eval(X, Y).log10();
+                    case "ln" -> (X, Y) -> a.eval(X, Y).ln();
+                    case "exp" -> (X, Y) -> a.eval(X, Y).exp();
+                    case "floor" -> (X, Y) -> {
+                        Dual d = a.eval(X, Y);
+                        return d.step(Math.floor(d.v));
+                    };
+                    case "ceil" -> (X, Y) -> {
+                        Dual d = a.eval(X, Y);
+                        return d.step(Math.ceil(d.v));
+                    };
+                    case "round" -> (X, Y) -> {
+                        Dual d = a.eval(X, Y);
+                        return d.step(Math.round(d.v));
+                    };
+                    case "sign" -> (X, Y) -> {
+                        Dual d = a.eval(X, Y);
+                        return d.step(Math.signum(d.v));
+                    };
+                    default -> throw new IllegalStateException("Unknown function: " + call.fn());
+                };
+            }
+        };
+    }
+
+    // --- SYMBOLIC DIFFERENTIATION ---
+    // Partial derivative with respect to 'x', 'y' or a parameter name. Result is not simplified.
+    default Expr derive(char var) {
+        return switch (this) {
+            case Num n -> ZERO;
+            case Var v -> v.name() == var ? ONE : ZERO;
+            case Param p -> p.name() == var ? ONE : ZERO;
+            case Neg n -> new Neg(n.a().derive(var));
+            case Binary bin -> {
+                Expr a = bin.a(), b = bin.b();
+                Expr da = a.derive(var), db = b.derive(var);
+                yield switch (bin.op()) {
+                    case '+' -> add(da, db);
+                    case '-' -> sub(da, db);
+                    case '*' -> add(mul(da, b), mul(a, db));
+                    case '/' -> div(sub(mul(da, b), mul(a, db)), pow(b, new Num(2)));
+                    case '^' -> {
+                        if (!b.dependsOn(var)) {
+                            // Power rule
+                            yield mul(mul(b, pow(a, sub(b, ONE))), da);
+                        } else if (!a.dependsOn(var)) {
+                            yield mul(mul(this, new Call("ln", a)), db);
+                        }
+                        yield mul(this, add(mul(db, new Call("ln", a)), div(mul(b, da), a)));
+                    }
+                    default -> throw new IllegalStateException("Unknown operator: " + bin.op());
+                };
+            }
+            case Compare cmp -> ZERO;
+            case Call call -> {
+                Expr a = call.a();
+                Expr da = a.derive(var);
+                Expr outer = switch (call.fn()) {
+                    case "sin" -> new Call("cos", a);
+                    case "cos" -> new Neg(new Call("sin", a));
+                    case "tan" -> div(ONE, pow(new Call("cos", a), new Num(2)));
+                    case "asin" -> div(ONE, new Call("sqrt", sub(ONE, pow(a, new Num(2)))));
+                    case "acos" -> new Neg(div(ONE, new Call("sqrt", sub(ONE, pow(a, new Num(2))))));
+                    case "atan" -> div(ONE, add(ONE, pow(a, new Num(2))));
+                    case "sinh" -> new Call("cosh", a);
+                    case "cosh" -> new Call("sinh", a);
+                    case "tanh" -> sub(ONE, pow(new Call("tanh", a), new Num(2)));
+                    case "sqrt" -> div(ONE, mul(new Num(2), new Call("sqrt", a)));
+                    case "cbrt" -> div(ONE, mul(new Num(3), pow(new Call("cbrt", a), new Num(2))));
+                    case "abs" -> new Call("sign", a);
+                    case "log" -> div(ONE, mul(a, new Num(Math.log(10))));
+                    case "ln" -> div(ONE, a);
+                    case "exp" -> this;
+                    // Step functions are flat almost everywhere
+                    case "floor", "ceil", "round", "sign" -> ZERO;
+                    default -> throw new IllegalStateException("Unknown function: " + call.fn());
+                };
+                yield mul(outer, da);
+            }
+        };
+    }
+
+    default boolean dependsOn(char var) {
+        return switch (this) {
+            case Num n -> false;
+            case Var v -> v.name() == var;
+            case Param p -> p.name() == var;
+            case Neg n -> n.a().dependsOn(var);
+            case Binary bin -> bin.a().dependsOn(var) || bin.b().dependsOn(var);
+            case Compare cmp -> cmp.a().dependsOn(var) || cmp.b().dependsOn(var);
+            case Call call -> call.a().dependsOn(var);
+        };
+    }
+
+    // Replaces parameters with constants, e.g. to freeze slider values for a background computation
+    default Expr substitute(Map<Character, Double> values) {
+        return switch (this) {
+            case Num n -> n;
+            case Var v -> v;
+            case Param p -> values.containsKey(p.name()) ? new Num(values.get(p.name())) : p;
+            case Neg n -> new Neg(n.a().substitute(values));
+            case Binary bin -> new Binary(bin.op(), bin.a().substitute(values), bin.b().substitute(values));
+            case Compare cmp -> new Compare(cmp.op(), cmp.a().substitute(values), cmp.b().substitute(values));
+            case Call call -> new Call(call.fn(), call.a().substitute(values));
+        };
+    }
+
+    // --- POLYNOMIAL DECOMPOSITION ---
+    // Coefficients c[0] + c[1]*v + c[2]*v^2 ... if this is a polynomial in 'var' of at most maxDegree, else null.
+    // Coefficients may still depend on other variables and parameters. Trailing zero terms are dropped.
+    default Expr[] polynomialIn(char var, int maxDegree) {
+        Expr[] c = switch (this) {
+            case Var v when v.name() == var -> new Expr[]{ZERO, ONE};
+            case Neg n -> {
+                Expr[] a = n.a().polynomialIn(var, maxDegree);
+                if (a == null) yield null;
+                for (int i = 0; i < a.length; i++) a[i] = new Neg(a[i]);
+                yield a;
+            }
+            case Binary bin when dependsOn(var) -> {
+                Expr[] a = bin.a().polynomialIn(var, maxDegree);
+                if (a == null) yield null;
+                yield switch (bin.op()) {
+                    case '+', '-' -> {
+                        Expr[] b = bin.b().polynomialIn(var, maxDegree);
+                        if (b == null) yield null;
+                        Expr[] sum = new Expr[Math.max(a.length, b.length)];
+                        for (int i = 0; i < sum.length; i++) {
+                            Expr ai = i < a.length ? a[i] : ZERO, bi = i < b.length ? b[i] : ZERO;
+                            sum[i] = bin.op() == '+' ? add(ai, bi) : sub(ai, bi);
+                        }
+                        yield sum;
+                    }
+                    case '*' -> multiply(a, bin.b().polynomialIn(var, maxDegree), maxDegree);
+                    case '/' -> {
+                        if (bin.b().dependsOn(var)) yield null;
+                        for (int i = 0; i < a.length; i++) a[i] = div(a[i], bin.b());
+                        yield a;
+                    }
+                    case '^' -> {
+                        // Only small whole powers of the variable, e.g. y^2
+                        if (!(bin.b() instanceof Num n) || n.value() != Math.rint(n.value()) || n.value() < 0 || n.value() > maxDegree) {
+                            yield null;
+                        }
+                        Expr[] result = {ONE};
+                        for (int i = 0; i < (int) n.value() && result != null; i++) result = multiply(result, a, maxDegree);
+                        yield result;
+                    }
+                    default -> null;
+                };
+            }
+            // Anything else involving the variable (sin(y), y < 1 ...) is not a polynomial
+            default -> dependsOn(var) ? null : new Expr[]{this};
+        };
+        if (c == null) return null;
+        int degree = c.length - 1;
+        for (int i = 0; i < c.length; i++) c[i] = c[i].simplify();
+        while (degree > 0 && isNum(c[degree], 0)) degree--;
+        return degree == c.length - 1 ? c : Arrays.copyOf(c, degree + 1);
+    }
+
+    private static Expr[] multiply(Expr[] a, Expr[] b, int maxDegree) {
+        if (a == null || b == null || a.length + b.length - 2 > maxDegree) return null;
+        Expr[] product = new Expr[a.length + b.length - 1];
+        Arrays.fill(product, ZERO);
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 0; j < b.length; j++) {
+                product[i + j] = add(product[i + j], mul(a[i], b[j]));
+            }
+        }
+        return product;
+    }
+
+    // --- ALGEBRAIC SIMPLIFICATION ---
+    // Constant folding plus the identity rules that keep every value, NaN and infinities included
+    // (x*1, x+0, x^1 ...). This runs on what the user typed and on every bound slider frame, so it must
+    // never make a curve defined where the expression is not.
+    default Expr simplify() {
+        return simplify(false);
+    }
+
+    // Derivative output is full of 0*f and f-f terms from the constant and product rules; dropping
+    // them may hide a NaN of f, which is accepted for derivatives only
+    default Expr simplifyDerivative() {
+        return simplify(true);
+    }
+
+    private Expr simplify(boolean dropZeroTerms) {
+        return switch (this) {
+            case Num n -> n;
+            case Var v -> v;
+            case Param p -> p;
+            case Neg n -> {
+                Expr a = n.a().simplify(dropZeroTerms);
+                if (a instanceof Num num) yield new Num(-num.value());
+                if (a instanceof Neg inner) yield inner.a();
+                yield new Neg(a);
+            }
+            case Binary bin -> {
+                Expr a = bin.a().simplify(dropZeroTerms), b = bin.b().simplify(dropZeroTerms);
+                if (a instanceof Num && b instanceof Num) yield fold(new Binary(bin.op(), a, b));
+                yield switch (bin.op()) {
+                    case '+' -> isNum(a, 0) ? b : isNum(b, 0) ? a : new Binary('+', a, b);
+                    case '-' -> {
+                        if (isNum(b, 0)) yield a;
+                        if (isNum(a, 0)) yield new Neg(b);
+                        yield dropZeroTerms && a.equals(b) ? ZERO : new Binary('-', a, b);
+                    }
+                    case '*' -> {
+                        if (dropZeroTerms && (isNum(a, 0) || isNum(b, 0))) yield ZERO;
+                        if (isNum(a, 1)) yield b;
+                        if (isNum(b, 1)) yield a;
+                        if (isNum(a, -1)) yield new Neg(b);
+                        if (isNum(b, -1)) yield new Neg(a);
+                        yield new Binary('*', a, b);
+                    }
+                    case '/' -> dropZeroTerms && isNum(a, 0) ? ZERO : isNum(b, 1) ? a : new Binary('/', a, b);
+                    // Math.pow(v, 0) is 1 for every v, NaN included
+                    case '^' -> isNum(b, 1) ? a : isNum(b, 0) ? ONE : new Binary('^', a, b);
+                    default -> new Binary(bin.op(), a, b);
+                };
+            }
+            case Compare cmp -> {
+                Expr a = cmp.a().simplify(dropZeroTerms), b = cmp.b().simplify(dropZeroTerms);
+                Expr result = new Compare(cmp.op(), a, b);
+                yield (a instanceof Num && b instanceof Num) ? fold(result) : result;
+            }
+            case Call call -> {
+                Expr a = call.a().simplify(dropZeroTerms);
+                Expr result = new Call(call.fn(), a);
+                yield (a instanceof Num) ? fold(result) : result;
+            }
+        };
+    }
+
+    Num ZERO = new Num(0);
+    Num ONE = new Num(1);
+
+    private static boolean isNum(Expr e, double value) {
+        return e instanceof Num n && n.value() == value;
+    }
+
+    private static Expr fold(Expr constant) {
+        return new Num(constant.compile(Map.of()).eval(0, 0));
+    }
+
+    private static Expr add(Expr a, Expr b) {
+        return new Binary('+', a, b);
+    }
+
+    private static Expr sub(Expr a, Expr b) {
+        return new Binary('-', a, b);
+    }
+
+    private static Expr mul(Expr a, Expr b) {
+        return new Binary('*', a, b);
+    }
+
+    private static Expr div(Expr a, Expr b) {
+        return new Binary('/', a, b);
+    }
+
+    private static Expr pow(Expr a, Expr b) {
+        return new Binary('^', a, b);
+    }
+}
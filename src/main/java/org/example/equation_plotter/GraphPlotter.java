@@ -1,17 +1,22 @@
 package org.example.equation_plotter;
 
+import javafx.animation.AnimationTimer;
 import javafx.animation.PauseTransition;
 import javafx.geometry.Point2D;
 import javafx.scene.canvas.Canvas;
+import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
 import javafx.scene.input.MouseButton;
 import javafx.scene.layout.StackPane;
 import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
 import javafx.util.Duration;
 
-import java.text.DecimalFormat;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
 import java.util.stream.IntStream;
 
 //class EquationData {
@@ -94,8 +99,10 @@ public class GraphPlotter extends StackPane {
     private final PauseTransition scrollEndTimer = new PauseTransition(Duration.millis(120));
 
     private boolean isInteracting = false;
+    private final LodPolicy lod = new LodPolicy();
     private final Map<String, EquationData> currentEquations = new HashMap<>();
     private final Map<String, Points> pointsMap = new HashMap<>();
+    private final Map<String, PointSeries> seriesMap = new LinkedHashMap<>();
     // Interaction States
     private boolean isMouseDown = false;
     private boolean isHovering = false;
@@ -110,8 +117,37 @@ public class GraphPlotter extends StackPane {
     private final Canvas graphCanvas;
     private final Canvas overlayCanvas;
     // Cache Trackers for Implicit Functions
-    private final Map<String, CachedImplicit> implicitCache = new HashMap<>();
-    private final Map<String, javafx.concurrent.Task<?>> activeTasks = new HashMap<>();
+    private final Map<String, ParameterCache<CachedImplicit>> implicitCache = new HashMap<>();
+    // Active slider sweeps per equation; frames are only valid for the viewport they were computed at
+    private final Map<String, SweepInfo> sweeps = new HashMap<>();
+    private final Map<String, Set<ParameterKey>> inFlightFrames = new ConcurrentHashMap<>();
+    private final Map<String, ImplicitTrace> activeTasks = new HashMap<>();
+
+    // Frame scheduling: listeners only mark layers dirty, and each dirty layer is painted once on the next pulse
+    private static final int GRID_LAYER = 1;
+    private static final int GRAPH_LAYER = 2;
+    private static final int OVERLAY_LAYER = 4;
+    private static final int ALL_LAYERS = GRID_LAYER | GRAPH_LAYER | OVERLAY_LAYER;
+    private static final int PAN_SHIFT = 8; // grid and graph bitmaps need shifting, see panBy()
+    private int dirtyLayers = 0;
+
+    // Grid and graph are painted onto canvases this much larger than the view on every side.
+    // A drag just translates them; only once the margin is used up are the bitmaps shifted and the
+    // newly exposed strips painted. The full repaint waits until the gesture ends.
+    private static final double PAN_MARGIN = 192;
+    private double panOffsetX = 0;
+    private double panOffsetY = 0;
+    private WritableImage shiftBuffer;
+    private final GridRenderer gridRenderer = new GridRenderer();
+    // Above this many segments per paint the graph layer is rasterized in software (see CurveRasterizer)
+    private static final int SOFTWARE_RASTER_SEGMENTS = 20_000;
+    private final CurveRasterizer rasterizer = new CurveRasterizer(MAX_POWER_POOL);
+    private final AnimationTimer frameScheduler = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            paintDirtyLayers();
+        }
+    };
 
     public GraphPlotter(double width, double height) {
         setPrefSize(width, height);
@@ -121,14 +157,24 @@ public class GraphPlotter extends StackPane {
         graphCanvas = new Canvas(width, height);
         overlayCanvas = new Canvas(width, height);
 
-        // 2. Bind their sizes so they resize perfectly when the window resizes
-        gridCanvas.widthProperty().bind(this.widthProperty());
-        gridCanvas.heightProperty().bind(this.heightProperty());
-        graphCanvas.widthProperty().bind(this.widthProperty());
-        graphCanvas.heightProperty().bind(this.heightProperty());
+        // 2. Bind their sizes so they resize perfectly when the window resizes.
+        // Grid and graph overhang the view by PAN_MARGIN and are positioned by hand.
+        for (Canvas layer : new Canvas[]{gridCanvas, graphCanvas}) {
+            layer.widthProperty().bind(this.widthProperty().add(2 * PAN_MARGIN));
+            layer.heightProperty().bind(this.heightProperty().add(2 * PAN_MARGIN));
+            layer.setManaged(false);
+            layer.setLayoutX(-PAN_MARGIN);
+            layer.setLayoutY(-PAN_MARGIN);
+        }
         overlayCanvas.widthProperty().bind(this.widthProperty());
         overlayCanvas.heightProperty().bind(this.heightProperty());
 
+        // Hide the overhang
+        Rectangle viewClip = new Rectangle();
+        viewClip.widthProperty().bind(this.widthProperty());
+        viewClip.heightProperty().bind(this.heightProperty());
+        setClip(viewClip);
+
         // 3. Add them to the StackPane (Order matters! Bottom to Top)
         getChildren().addAll(gridCanvas, graphCanvas, overlayCanvas);
 
@@ -150,7 +196,7 @@ public class GraphPlotter extends StackPane {
                 prevMouseX = e.getX();
                 prevMouseY = e.getY();
                 getScene().setCursor(javafx.scene.Cursor.CLOSED_HAND);
-                draw();
+                requestLayers(OVERLAY_LAYER);
             }
         });
 
@@ -158,11 +204,12 @@ public class GraphPlotter extends StackPane {
             updateHoverState(e.getX(), e.getY());
             // Show HAND cursor only for snappable points
             getScene().setCursor(isSnapPoint ? javafx.scene.Cursor.HAND : javafx.scene.Cursor.DEFAULT);
-            draw();
+            // Hovering never changes the grid or the curves
+            requestLayers(OVERLAY_LAYER);
         });
 
         setOnMouseDragged(e -> {
-            isInteracting = true;
+            setInteracting(true);
             if (e.getButton() == MouseButton.PRIMARY) {
                 updateHoverState(e.getX(), e.getY());
 
@@ -172,22 +219,24 @@ public class GraphPlotter extends StackPane {
                     double dy = (e.getY() - prevMouseY) / scale;
                     graphCenterX -= dx;
                     graphCenterY += dy;
+                    panBy(e.getX() - prevMouseX, e.getY() - prevMouseY);
+                } else {
+                    requestLayers(OVERLAY_LAYER);
                 }
                 prevMouseX = e.getX();
                 prevMouseY = e.getY();
-                draw();
             }
         });
 
         setOnMouseReleased(e -> {
             isMouseDown = false;
-            isInteracting = false;
+            setInteracting(false);
             refreshAllData();
             draw();
         });
 
         setOnScroll(e -> {
-            isInteracting = true; // FIX: Prevent thread spam while scrolling
+            setInteracting(true); // FIX: Prevent thread spam while scrolling
             double mouseX = e.getX();
             double mouseY = e.getY();
             double prevScale = scale;
@@ -206,12 +255,22 @@ public class GraphPlotter extends StackPane {
         });
 
         scrollEndTimer.setOnFinished(e -> {
-            isInteracting = false;
+            setInteracting(false);
             refreshAllData();
             draw();
         });
     }
 
+    // Gestures drop to the LOD policy's reduced detail; full detail returns with the next full repaint
+    private void setInteracting(boolean interacting) {
+        isInteracting = interacting;
+        lod.setInteracting(interacting);
+    }
+
+    public LodPolicy getLodPolicy() {
+        return lod;
+    }
+
     private void togglePointSelection(Point2D point) {
         boolean removed = selectedPoints.removeIf(p -> p.distance(point) < 0.01);
         if (!removed) {
@@ -257,14 +316,16 @@ public class GraphPlotter extends StackPane {
             // FIX: This line MUST be uncommented to prevent NPE lag while panning
             if (eq.parser.isImplicit()) continue;
 
-            double cy = eq.getY(gx);
-            if (!Double.isNaN(cy)) {
-                double dist = Math.abs(cy - gy);
-                if (dist < threshold && dist < bestDist) {
-                    bestDist = dist;
-                    hoverPoint = new Point2D(gx, cy);
-                    hoverColor = eq.color;
-                    isHovering = true;
+            for (int b = 0; b < eq.branchCount(); b++) {
+                double cy = eq.getY(gx, b);
+                if (!Double.isNaN(cy)) {
+                    double dist = Math.abs(cy - gy);
+                    if (dist < threshold && dist < bestDist) {
+                        bestDist = dist;
+                        hoverPoint = new Point2D(gx, cy);
+                        hoverColor = eq.color;
+                        isHovering = true;
+                    }
                 }
             }
         }
@@ -310,22 +371,27 @@ public class GraphPlotter extends StackPane {
                 EquationData e2 = equations.get(j);
                 if (e2.parser.isImplicit()) continue;
 
-                double prevX = xMin;
-                double prevDiff = e1.getY(prevX) - e2.getY(prevX);
-
-                for (double x = xMin + scanStep; x <= xMax; x += scanStep) {
-                    double d1 = e1.getY(x);
-                    double d2 = e2.getY(x);
-                    if (Double.isNaN(d1) || Double.isNaN(d2)) continue;
-
-                    double diff = d1 - d2;
-                    if (prevDiff * diff <= 0 && !Double.isNaN(prevDiff)) {
-                        double t = Math.abs(prevDiff) / (Math.abs(prevDiff) + Math.abs(diff));
-                        double ix = prevX + t * (x - prevX);
-                        intersectionPoints.add(new Point2D(ix, e1.getY(ix)));
+                // Every branch of one curve against every branch of the other
+                for (int b1 = 0; b1 < e1.branchCount(); b1++) {
+                    for (int b2 = 0; b2 < e2.branchCount(); b2++) {
+                        double prevX = xMin;
+                        double prevDiff = e1.getY(prevX, b1) - e2.getY(prevX, b2);
+
+                        for (double x = xMin + scanStep; x <= xMax; x += scanStep) {
+                            double d1 = e1.getY(x, b1);
+                            double d2 = e2.getY(x, b2);
+                            if (Double.isNaN(d1) || Double.isNaN(d2)) continue;
+
+                            double diff = d1 - d2;
+                            if (prevDiff * diff <= 0 && !Double.isNaN(prevDiff)) {
+                                double t = Math.abs(prevDiff) / (Math.abs(prevDiff) + Math.abs(diff));
+                                double ix = prevX + t * (x - prevX);
+                                intersectionPoints.add(new Point2D(ix, e1.getY(ix, b1)));
+                            }
+                            prevX = x;
+                            prevDiff = diff;
+                        }
                     }
-                    prevX = x;
-                    prevDiff = diff;
                 }
             }
         }
@@ -339,64 +405,218 @@ public class GraphPlotter extends StackPane {
 
         for (EquationData eq : currentEquations.values()) {
             if (eq.parser.isImplicit()) continue;
+            EquationParser frame = eq.parser.bindCurrentValues();
 
-            // Y-Intercept
-            if (xMin <= 0 && xMax >= 0) {
-                double yVal = eq.getY(0);
-                if (!Double.isNaN(yVal)) interceptPoints.add(new Point2D(0, yVal));
-            }
+            for (int b = 0; b < eq.branchCount(); b++) {
+                // Y-Intercept
+                if (xMin <= 0 && xMax >= 0) {
+                    double yVal = eq.getY(0, b);
+                    if (!Double.isNaN(yVal)) interceptPoints.add(new Point2D(0, yVal));
+                }
+
+                // X-Intercepts
+                double prevX = xMin;
+                double prevY = eq.getY(prevX, b);
+                for (double x = xMin + scanStep; x <= xMax; x += scanStep) {
+                    double y = eq.getY(x, b);
+                    if (Double.isNaN(y)) {
+                        prevX = x;
+                        prevY = y;
+                        continue;
+                    }
 
-            // X-Intercepts
-            double prevX = xMin;
-            double prevY = eq.getY(prevX);
-            for (double x = xMin + scanStep; x <= xMax; x += scanStep) {
-                double y = eq.getY(x);
-                if (Double.isNaN(y)) {
+                    if (prevY * y <= 0 && !Double.isNaN(prevY)) {
+                        double t = Math.abs(prevY) / (Math.abs(prevY) + Math.abs(y));
+                        double root = refineRoot(frame, b, prevX + t * (x - prevX), prevX, x);
+                        interceptPoints.add(new Point2D(root, 0));
+                    }
                     prevX = x;
                     prevY = y;
-                    continue;
                 }
-
-                if (prevY * y <= 0 && !Double.isNaN(prevY)) {
-                    double t = Math.abs(prevY) / (Math.abs(prevY) + Math.abs(y));
-                    interceptPoints.add(new Point2D(prevX + t * (x - prevX), 0));
-                }
-                prevX = x;
-                prevY = y;
             }
         }
     }
 
+    // Newton steps using exact slopes from the dual-number evaluator.
+    // Falls back to the interpolated guess if an iterate leaves the bracket.
+    private double refineRoot(EquationParser parser, int branch, double guess, double lo, double hi) {
+        double x = guess;
+        for (int i = 0; i < 4; i++) {
+            Dual d = parser.evaluateBranchDual(x, branch);
+            if (Double.isNaN(d.v) || Double.isNaN(d.dx) || d.dx == 0) return guess;
+            double next = x - d.v / d.dx;
+            if (next < lo || next > hi) return guess;
+            if (Math.abs(next - x) < 1e-12) return next;
+            x = next;
+        }
+        return x;
+    }
 
-    // Call this when you need to completely refresh everything (e.g., resizing, panning, zooming)
+    // Call this when you need to completely refresh everything (e.g., resizing, panning, zooming).
+    // Painting happens on the next pulse, so any number of calls within one frame cost a single repaint.
     public void draw() {
-        drawGridLayer();
-        drawGraphLayer();
-        drawOverlayLayer();
+        requestLayers(ALL_LAYERS);
+    }
+
+    // Curves changed but the view did not (slider moves, finished background tasks)
+    void drawGraphLayer() {
+        requestLayers(GRAPH_LAYER | OVERLAY_LAYER);
     }
 
-    private void drawGridLayer() {
+    private void requestLayers(int layers) {
+        if (dirtyLayers == 0) frameScheduler.start();
+        dirtyLayers |= layers;
+    }
+
+    private void paintDirtyLayers() {
+        int layers = dirtyLayers;
+        dirtyLayers = 0;
+        frameScheduler.stop();
+        long start = System.nanoTime();
+
+        boolean bitmapsOffset = panOffsetX != 0 || panOffsetY != 0;
+        if ((layers & (GRID_LAYER | GRAPH_LAYER)) != 0 && bitmapsOffset) {
+            // A full repaint of either bitmap re-centres it, so both must move together
+            layers |= GRID_LAYER | GRAPH_LAYER;
+        }
+        if ((layers & (GRID_LAYER | GRAPH_LAYER)) != 0) {
+            resetPanOffset();
+            if ((layers & GRID_LAYER) != 0) paintGridLayer(0, 0, gridCanvas.getWidth(), gridCanvas.getHeight());
+            if ((layers & GRAPH_LAYER) != 0) paintGraphLayer(0, 0, graphCanvas.getWidth(), graphCanvas.getHeight());
+        } else if ((layers & PAN_SHIFT) != 0) {
+            shiftAndPaintStrips();
+        }
+        if ((layers & OVERLAY_LAYER) != 0) paintOverlayLayer();
+        lod.recordFrame((System.nanoTime() - start) / 1e6);
+    }
+
+    // --- BITMAP PANNING ---
+    private void panBy(double dxPx, double dyPx) {
+        panOffsetX += dxPx;
+        panOffsetY += dyPx;
+        if (Math.abs(panOffsetX) <= PAN_MARGIN && Math.abs(panOffsetY) <= PAN_MARGIN) {
+            // Pre-rendered margin still covers the view: moving the bitmaps is all it takes
+            for (Canvas layer : new Canvas[]{gridCanvas, graphCanvas}) {
+                layer.setTranslateX(panOffsetX);
+                layer.setTranslateY(panOffsetY);
+            }
+            requestLayers(OVERLAY_LAYER);
+        } else {
+            requestLayers(PAN_SHIFT | OVERLAY_LAYER);
+        }
+    }
+
+    private void resetPanOffset() {
+        panOffsetX = 0;
+        panOffsetY = 0;
+        for (Canvas layer : new Canvas[]{gridCanvas, graphCanvas}) {
+            layer.setTranslateX(0);
+            layer.setTranslateY(0);
+        }
+    }
+
+    // Moves the existing pixels of both bitmaps by the accumulated offset and paints only what was exposed
+    private void shiftAndPaintStrips() {
+        double dx = Math.round(panOffsetX);
+        double dy = Math.round(panOffsetY);
+        double remainderX = panOffsetX - dx;
+        double remainderY = panOffsetY - dy;
+        resetPanOffset();
+        double cw = graphCanvas.getWidth();
+        double ch = graphCanvas.getHeight();
+        if (Math.abs(dx) >= cw || Math.abs(dy) >= ch) {
+            paintGridLayer(0, 0, cw, ch);
+            paintGraphLayer(0, 0, cw, ch);
+            return;
+        }
+
+        shiftBitmap(gridCanvas, dx, dy);
+        shiftBitmap(graphCanvas, dx, dy);
+
+        // The bitmaps only moved by whole pixels, so the sub-pixel rest stays a translate and the strips are
+        // painted for the centre the shifted pixels show, not the exact one
+        double exactCx = graphCenterX;
+        double exactCy = graphCenterY;
+        graphCenterX += remainderX / scale;
+        graphCenterY -= remainderY / scale;
+        try {
+            paintStrips(dx, dy, cw, ch);
+        } finally {
+            graphCenterX = exactCx;
+            graphCenterY = exactCy;
+        }
+        panOffsetX = remainderX;
+        panOffsetY = remainderY;
+        for (Canvas layer : new Canvas[]{gridCanvas, graphCanvas}) {
+            layer.setTranslateX(remainderX);
+            layer.setTranslateY(remainderY);
+        }
+    }
+
+    private void paintStrips(double dx, double dy, double cw, double ch) {
+        // Vertical strip on the side we moved away from, then the horizontal strip without the corner
+        double stripX = dx > 0 ? 0 : cw + dx;
+        double stripY = dy > 0 ? 0 : ch + dy;
+        if (dx != 0) {
+            paintGridLayer(stripX, 0, Math.abs(dx), ch);
+            paintGraphLayer(stripX, 0, Math.abs(dx), ch);
+        }
+        if (dy != 0) {
+            double x0 = dx > 0 ? dx : 0;
+            double width = cw - Math.abs(dx);
+            paintGridLayer(x0, stripY, width, Math.abs(dy));
+            paintGraphLayer(x0, stripY, width, Math.abs(dy));
+        }
+    }
+
+    private void shiftBitmap(Canvas layer, double dx, double dy) {
+        int cw = (int) layer.getWidth(), ch = (int) layer.getHeight();
+        if (shiftBuffer == null || (int) shiftBuffer.getWidth() != cw || (int) shiftBuffer.getHeight() != ch) {
+            shiftBuffer = new WritableImage(cw, ch);
+        }
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        layer.snapshot(params, shiftBuffer);
+        GraphicsContext gc = layer.getGraphicsContext2D();
+        gc.clearRect(0, 0, cw, ch);
+        gc.drawImage(shiftBuffer, dx, dy);
+    }
+
+    // Paints the region [x, x + rw) x [y, y + rh) of the grid bitmap, clipped to that region
+    private void paintGridLayer(double x, double y, double rw, double rh) {
         GraphicsContext gc = gridCanvas.getGraphicsContext2D();
-        double w = getWidth();
-        double h = getHeight();
-        if (w == 0 || h == 0) return;
+        double w = gridCanvas.getWidth();
+        double h = gridCanvas.getHeight();
+        if (getWidth() == 0 || getHeight() == 0) return;
 
-        gc.clearRect(0, 0, w, h);
+        gc.clearRect(x, y, rw, rh);
         gc.setFill(Color.web("#1e1e1e"));
-        gc.fillRect(0, 0, w, h);
+        gc.fillRect(x, y, rw, rh);
 
+        gc.save();
+        clipTo(gc, x, y, rw, rh, w, h);
         drawGrid(gc, w, h); // Your existing drawGrid method
+        gc.restore();
     }
 
-    void drawGraphLayer() {
+    private void paintGraphLayer(double x, double y, double rw, double rh) {
         GraphicsContext gc = graphCanvas.getGraphicsContext2D();
-        double w = getWidth();
-        double h = getHeight();
-        if (w == 0 || h == 0) return;
-
-        gc.clearRect(0, 0, w, h); // Clear only the math layer!
-
-        drawFunction(gc, w, h); // Your existing drawFunction method
+        double w = graphCanvas.getWidth();
+        double h = graphCanvas.getHeight();
+        if (getWidth() == 0 || getHeight() == 0) return;
+
+        gc.clearRect(x, y, rw, rh); // Clear only the math layer!
+
+        gc.save();
+        clipTo(gc, x, y, rw, rh, w, h);
+        if (countSegments(w, h) > SOFTWARE_RASTER_SEGMENTS) {
+            // Too many strokes for the canvas pipeline: rasterize them ourselves and blit the result
+            rasterizer.begin((int) Math.ceil(w), (int) Math.ceil(h), x, y, rw, rh);
+            drawFunction(rasterizer, w, h, x, y, rw, rh);
+            gc.drawImage(rasterizer.finish(), 0, 0);
+        } else {
+            drawFunction(CurveSink.of(gc), w, h, x, y, rw, rh); // Your existing drawFunction method
+        }
 
         // Draw manually added user points on the graph layer
         for (Points p : pointsMap.values()) {
@@ -408,10 +628,119 @@ public class GraphPlotter extends StackPane {
             gc.setLineWidth(1);
             gc.strokeOval(px - 4, py - 4, 8, 8);
         }
+
+        boolean fullRepaint = x <= 0 && y <= 0 && rw >= w && rh >= h;
+        for (PointSeries series : seriesMap.values()) {
+            drawSeries(gc, series, w, h, x, y, rw, rh, fullRepaint);
+        }
+        gc.restore();
+    }
+
+    // Imported data. Few points in view: a marker each, like single points. Otherwise a per-pixel density
+    // heatmap from the series' PointCloud, whose cost follows the pixels of the region, not the points.
+    private static final int SERIES_MARKER_LIMIT = 2_000;
+
+    // Markers vs heatmap and the heatmap's colour scale are decided once for the whole canvas and kept
+    // while only strips are painted, so an exposed strip always matches the shifted bitmap next to it.
+    // A full repaint (or a new scale / canvas size) decides again.
+    private record SeriesLook(double scale, double w, double h, boolean markers, int max) {
+    }
+
+    private final Map<PointSeries, SeriesLook> seriesLooks = new HashMap<>();
+
+    private void drawSeries(GraphicsContext gc, PointSeries series, double w, double h, double x, double y, double rw, double rh,
+                            boolean fullRepaint) {
+        int cw = (int) Math.ceil(w), ch = (int) Math.ceil(h);
+        int x0 = (int) Math.max(0, Math.floor(x)), y0 = (int) Math.max(0, Math.floor(y));
+        int x1 = (int) Math.min(cw, Math.ceil(x + rw)), y1 = (int) Math.min(ch, Math.ceil(y + rh));
+        int bw = x1 - x0, bh = y1 - y0;
+        if (bw <= 0 || bh <= 0 || series.size == 0) return;
+
+        SeriesLook look = seriesLooks.get(series);
+        int[] bins = null;
+        if (fullRepaint || look == null || look.scale() != scale || look.w() != w || look.h() != h) {
+            double left = graphCenterX - w / 2 / scale, top = graphCenterY + h / 2 / scale;
+            boolean markers = series.cloud.countVisible(left, top - h / scale, left + w / scale, top) <= SERIES_MARKER_LIMIT;
+            int max = 0;
+            if (!markers) {
+                int[] canvasBins = series.cloud.density(left, top, scale, cw, ch, MAX_POWER_POOL);
+                for (int count : canvasBins) max = Math.max(max, count);
+                if (x0 == 0 && y0 == 0 && bw == cw && bh == ch) bins = canvasBins; // the region is the canvas
+            }
+            look = new SeriesLook(scale, w, h, markers, max);
+            seriesLooks.put(series, look);
+        }
+
+        // Graph coordinates of the region's top-left pixel and of its far corner
+        double left = graphCenterX + (x0 - w / 2) / scale, top = graphCenterY + (h / 2 - y0) / scale;
+        double right = left + bw / scale, bottom = top - bh / scale;
+
+        if (look.markers()) {
+            double m = 3 / scale; // markers poking in from just outside the region
+            gc.setFill(series.color);
+            gc.setStroke(Color.WHITE);
+            gc.setLineWidth(1);
+            series.cloud.forEachVisible(left - m, bottom - m, right + m, top + m, (px, py) -> {
+                double sx = (px - graphCenterX) * scale + w / 2, sy = h / 2 - (py - graphCenterY) * scale;
+                gc.fillOval(sx - 3, sy - 3, 6, 6);
+                gc.strokeOval(sx - 3, sy - 3, 6, 6);
+            });
+            return;
+        }
+
+        // A strip may hold denser pixels than the canvas did when the look was fixed; those clamp to the top
+        if (bins == null) bins = series.cloud.density(left, top, scale, bw, bh, MAX_POWER_POOL);
+        int max = Math.max(1, look.max());
+
+        // Log scale: sparse pixels stay visible in the series colour, the densest ones go towards white
+        Color c = series.color;
+        int[] ramp = new int[256];
+        for (int i = 0; i < 256; i++) {
+            double t = i / 255.0;
+            double alpha = 0.35 + 0.65 * t, white = 0.6 * t * t;
+            int r = (int) Math.round(255 * alpha * (c.getRed() + (1 - c.getRed()) * white));
+            int g = (int) Math.round(255 * alpha * (c.getGreen() + (1 - c.getGreen()) * white));
+            int b = (int) Math.round(255 * alpha * (c.getBlue() + (1 - c.getBlue()) * white));
+            ramp[i] = (int) Math.round(255 * alpha) << 24 | r << 16 | g << 8 | b;
+        }
+        double norm = 255 / Math.log1p(max);
+        int[] pixels = new int[bw * bh];
+        for (int i = 0; i < pixels.length; i++) {
+            if (bins[i] != 0) pixels[i] = ramp[Math.min(255, (int) (Math.log1p(bins[i]) * norm))];
+        }
+
+        javafx.scene.image.WritableImage image = new javafx.scene.image.WritableImage(bw, bh);
+        image.getPixelWriter().setPixels(0, 0, bw, bh, javafx.scene.image.PixelFormat.getIntArgbPreInstance(), pixels, 0, bw);
+        gc.drawImage(image, x0, y0);
+    }
+
+    // Rough number of line segments the next paint of the graph layer will stroke
+    private int countSegments(double w, double h) {
+        int total = 0;
+        for (Map.Entry<String, EquationData> entry : currentEquations.entrySet()) {
+            EquationData equation = entry.getValue();
+            if (equation.parser.isImplicit()) {
+                CachedImplicit cache = implicitCacheFor(entry.getKey()).get(equation.parser.parameterKey());
+                if (cache != null) {
+                    total += cache.countVisible(graphCenterX - w / 2 / scale, graphCenterY - h / 2 / scale,
+                            graphCenterX + w / 2 / scale, graphCenterY + h / 2 / scale);
+                }
+            } else {
+                total += equation.branchCount() * (int) (w / lod.explicitStride());
+            }
+        }
+        return total;
+    }
+
+    private static void clipTo(GraphicsContext gc, double x, double y, double rw, double rh, double w, double h) {
+        if (x <= 0 && y <= 0 && rw >= w && rh >= h) return; // full repaint, nothing to clip
+        gc.beginPath();
+        gc.rect(x, y, rw, rh);
+        gc.clip();
     }
 
     // This is the MAGIC. This layer clears and draws instantly without touching math.
-    private void drawOverlayLayer() {
+    private void paintOverlayLayer() {
         GraphicsContext gc = overlayCanvas.getGraphicsContext2D();
         double w = getWidth();
         double h = getHeight();
@@ -424,12 +753,15 @@ public class GraphPlotter extends StackPane {
             drawPointMarker(gc, p, Color.web("#FEFEFA"));
         }
 
-        // Draw neon indicators for special points
-        for (Point2D ip : intersectionPoints) {
-            drawSmallIndicator(gc, ip, Color.web("#444444"));
-        }
-        for (Point2D ip : interceptPoints) {
-            drawSmallIndicator(gc, ip, Color.web("#666666"));
+        // Draw neon indicators for special points (thinned out mid-gesture)
+        int indicatorStride = lod.indicatorStride();
+        if (indicatorStride > 0) {
+            for (int i = 0; i < intersectionPoints.size(); i += indicatorStride) {
+                drawSmallIndicator(gc, intersectionPoints.get(i), Color.web("#444444"));
+            }
+            for (int i = 0; i < interceptPoints.size(); i += indicatorStride) {
+                drawSmallIndicator(gc, interceptPoints.get(i), Color.web("#666666"));
+            }
         }
 
         // Coordinate label for hover
@@ -449,9 +781,9 @@ public class GraphPlotter extends StackPane {
         gc.strokeOval(px - 5, py - 5, 10, 10);
 
         String label = "(" + formatNumber(p.getX()) + ", " + formatNumber(p.getY()) + ")";
-        gc.setFont(javafx.scene.text.Font.font("JetBrains Mono", 13));
+        gc.setFont(GridRenderer.MARKER_FONT);
 
-        double textWidth = label.length() * 8.0;
+        double textWidth = gridRenderer.textWidth(label, GridRenderer.MARKER_FONT);
         double textHeight = 15;
         double padding = 8;
 
@@ -477,130 +809,86 @@ public class GraphPlotter extends StackPane {
     }
 
     private void drawGrid(GraphicsContext gc, double w, double h) {
-        double left = graphCenterX - w / 2 / scale;
-        double yAxisPixel = (0 - graphCenterX) * scale + w / 2;
-        double xAxisPixel = h / 2 - (0 - graphCenterY) * scale;
-        gc.setStroke(Color.web("#333333"));
-        gc.setLineWidth(1);
-        gc.setFill(Color.GRAY);
-        gc.setFont(javafx.scene.text.Font.font("JetBrains Mono", 12));
-
-        double targetPixels = 100.0;
-        double rawStep = targetPixels / scale;
-        double magnitude = Math.pow(10, Math.floor(Math.log10(rawStep)));
-        double fraction = rawStep / magnitude;
-
-        double majorStep = (fraction < 2.0) ? 1 * magnitude : (fraction < 5.0) ? 2 * magnitude : 5 * magnitude;
-        double minorStep = majorStep / 5.0;
-
-        gc.setStroke(Color.web("#2A2A2A"));
-        for (double x = Math.floor(left / minorStep) * minorStep; (x - left) * scale < w + scale; x += minorStep) {
-            double px = (x - graphCenterX) * scale + w / 2;
-            gc.strokeLine(px, 0, px, h);
-        }
-        for (double y = Math.floor((graphCenterY - h / 2 / scale) / minorStep) * minorStep; (y - (graphCenterY - h / 2 / scale)) * scale < h + scale; y += minorStep) {
-            double py = h / 2 - (y - graphCenterY) * scale;
-            gc.strokeLine(0, py, w, py);
-        }
-        gc.setTextAlign(javafx.scene.text.TextAlignment.CENTER);
-        gc.setStroke(Color.web("#404040"));
-        for (double x = Math.floor(left / majorStep) * majorStep; (x - left) * scale < w + scale; x += majorStep) {
-            double px = (x - graphCenterX) * scale + w / 2;
-            gc.strokeLine(px, 0, px, h);
-            if (Math.abs(x) > 1e-9) {
-                gc.setFill(Color.WHITE);
-                double labelY = Math.clamp(xAxisPixel + 15, 0, Math.max(0, h - 20));
-                gc.fillText(formatNumber(x), px, labelY);
-            }
-        }
-        for (double y = Math.floor((graphCenterY - h / 2 / scale) / majorStep) * majorStep; (y - (graphCenterY - h / 2 / scale)) * scale < h + scale; y += majorStep) {
-            double py = h / 2 - (y - graphCenterY) * scale;
-            gc.strokeLine(0, py, w, py);
-            if (Math.abs(y) > 1e-9) {
-                gc.setFill(Color.WHITE);
-                double labelX = Math.clamp(yAxisPixel - 15, Math.min(45, w), Math.max(45, w - 5));
-                gc.fillText(formatNumber(y), labelX, py);
-            }
-        }
-
-        gc.setStroke(Color.WHITE);
-        gc.setLineWidth(2);
-        gc.strokeLine(yAxisPixel, 0, yAxisPixel, h);
-        gc.strokeLine(0, xAxisPixel, w, xAxisPixel);
-        gc.fillText("0", yAxisPixel - 10, xAxisPixel + 15);
+        gridRenderer.draw(gc, w, h, graphCenterX, graphCenterY, scale, PAN_MARGIN, lod.labelStride());
     }
 
     private String formatNumber(double d) {
-        return new DecimalFormat("#.##").format(d);
+        return gridRenderer.format(d);
     }
 
-    private void drawFunction(GraphicsContext gc, double w, double h) {
+    // Curves are only traced across the region [x, x + rw) x [y, y + rh); the caller clips the rest
+    private void drawFunction(CurveSink sink, double w, double h, double x, double y, double rw, double rh) {
         for (Map.Entry<String, EquationData> entry : currentEquations.entrySet()) {
             String id = entry.getKey();
             EquationData equation = entry.getValue();
 
             if (equation.parser.isImplicit()) {
-                drawFunction_MarchingSquares(gc, w, h, equation.parser, equation, id);
+                drawFunction_MarchingSquares(sink, w, h, x, y, rw, rh, equation.parser, equation, id);
             } else {
-                drawFunction_Explicit(gc, w, h, equation);
+                drawFunction_Explicit(sink, w, h, equation, x, x + rw);
             }
         }
     }
 
-    private void drawFunction_Explicit(GraphicsContext gc, double w, double h, EquationData data) {
-        gc.beginPath();
-        gc.setStroke(data.color);
-        gc.setLineWidth(2.5);
-        boolean firstPoint = true;
-        for (double pixelX = 0; pixelX < w; pixelX += 1.0) {
-            double graphX = graphCenterX + (pixelX - w / 2.0) / scale;
-            double graphY = data.getY(graphX);
-            if (Double.isNaN(graphY) || Double.isInfinite(graphY)) {
-                firstPoint = true;
-                continue;
-            }
-            double pixelY = h / 2.0 - (graphY - graphCenterY) * scale;
-            if (firstPoint) {
-                gc.moveTo(pixelX, pixelY);
-                firstPoint = false;
-            } else {
-                gc.lineTo(pixelX, pixelY);
-            }
+    private void drawFunction_Explicit(CurveSink sink, double w, double h, EquationData data, double fromPx, double toPx) {
+        sink.setStroke(data.color, 2.5);
+        EquationParser frame = data.parser.bindCurrentValues();
+        int stride = lod.explicitStride(); // decimated mid-gesture
+        for (int branch = 0; branch < data.branchCount(); branch++) {
+            PlotEngine.traceExplicit(sink, data::getY, frame, branch, graphCenterX, graphCenterY, scale, w, h, fromPx, toPx, stride);
         }
-        gc.stroke();
     }
 
-    private void drawFunction_MarchingSquares(GraphicsContext gc, double w, double h, EquationParser mainParser, EquationData data, String id) {
-        // --- 1. CHECK CACHE FOR INSTANT PANNING ---
-        if (implicitCache.containsKey(id)) {
-            CachedImplicit cache = implicitCache.get(id);
-
-            gc.setStroke(data.color);
-            gc.setLineWidth(2.5);
-
-            for (double[] line : cache.lines) {
-                double px1 = (line[0] - graphCenterX) * scale + w / 2.0;
-                double py1 = h / 2.0 - (line[1] - graphCenterY) * scale;
-                double px2 = (line[2] - graphCenterX) * scale + w / 2.0;
-                double py2 = h / 2.0 - (line[3] - graphCenterY) * scale;
+    // A background trace and what it was started for
+    private record ImplicitTrace(javafx.concurrent.Task<CachedImplicit> task, ParameterKey key, boolean approximate,
+                                 double cx, double cy, double scale, double w, double h) {
+        // Same tolerance the implicit cache uses before it recomputes
+        boolean covers(double cx, double cy, double scale, double w, double h) {
+            return scale == this.scale && w == this.w && h == this.h &&
+                    Math.abs(cx - this.cx) <= (w / scale) * 0.1 && Math.abs(cy - this.cy) <= (h / scale) * 0.1;
+        }
+    }
 
-                if ((px1 > -100 && px1 < w + 100 && py1 > -100 && py1 < h + 100) ||
-                        (px2 > -100 && px2 < w + 100 && py2 > -100 && py2 < h + 100)) {
-                    gc.strokeLine(px1, py1, px2, py2);
-                }
-            }
+    private void drawFunction_MarchingSquares(CurveSink sink, double w, double h, double x, double y, double rw, double rh,
+                                              EquationParser mainParser, EquationData data, String id) {
+        // --- 1. CHECK CACHE FOR INSTANT PANNING ---
+        // Keyed by slider values: a cache computed for other values is never drawn
+        ParameterKey paramKey = mainParser.parameterKey();
+        CachedImplicit cache = implicitCacheFor(id).get(paramKey);
+        // At high LOD levels even the cached fine segments are too many; the coarse preview stands in
+        boolean coarseOnly = cache != null && lod.getLevel() >= 2;
+        if (cache != null && !coarseOnly) {
+
+            sink.setStroke(data.color, 2.5);
+
+            // Only the grid cells in view (plus 100px) are visited, however large the cached curve is
+            double margin = 100 / scale;
+            cache.forEachVisible(graphCenterX - w / 2.0 / scale - margin, graphCenterY - h / 2.0 / scale - margin,
+                    graphCenterX + w / 2.0 / scale + margin, graphCenterY + h / 2.0 / scale + margin, line -> {
+                        double px1 = (line[0] - graphCenterX) * scale + w / 2.0;
+                        double py1 = h / 2.0 - (line[1] - graphCenterY) * scale;
+                        double px2 = (line[2] - graphCenterX) * scale + w / 2.0;
+                        double py2 = h / 2.0 - (line[3] - graphCenterY) * scale;
+                        sink.strokeLine(px1, py1, px2, py2);
+                    });
 
             boolean scaleChanged = cache.scale != scale;
             boolean pannedOutOfBounds = Math.abs(graphCenterX - cache.cx) > (w / scale) * 0.1 ||
                     Math.abs(graphCenterY - cache.cy) > (h / scale) * 0.1;
 
-            if (!scaleChanged && !pannedOutOfBounds) return;
+            if (!scaleChanged && !pannedOutOfBounds && !cache.approximate) return;
             if (isInteracting) return;
         }
 
-        // --- 2. CANCEL OLD TASKS ---
-        if (activeTasks.containsKey(id)) {
-            activeTasks.get(id).cancel(true);
+        // --- 2. KEEP OR CANCEL THE RUNNING TRACE ---
+        // A trace for these slider values is kept while it still covers the view; mid-gesture it is kept
+        // regardless, since every pan strip would otherwise start a new one and none would ever finish
+        ImplicitTrace running = activeTasks.get(id);
+        boolean keepRunning = running != null && running.key().equals(paramKey) &&
+                (isInteracting || (!running.approximate() && running.covers(graphCenterX, graphCenterY, scale, w, h)));
+        if (!coarseOnly && running != null && !keepRunning) {
+            running.task().cancel(true);
+            activeTasks.remove(id);
         }
 
         final double viewCx = graphCenterX;
@@ -608,22 +896,36 @@ public class GraphPlotter extends StackPane {
         final double viewScale = scale;
 
         // --- 3. FAST PROGRESSIVE RENDER (PREVIEW) ---
-        int coarseStep = 20;
-        int coarseCols = (int) w / coarseStep + 1;
-        int coarseRows = (int) h / coarseStep + 1;
+        // Only the coarse cells under the painted region are evaluated; the grid stays aligned to the
+        // canvas, so a strip's preview meets the one already on screen
+        int coarseStep = lod.previewCellPx();
+        int firstCol = (int) Math.max(0, Math.floor(x / coarseStep));
+        int firstRow = (int) Math.max(0, Math.floor(y / coarseStep));
+        int lastCol = (int) Math.min((int) w / coarseStep, Math.ceil((x + rw) / coarseStep));
+        int lastRow = (int) Math.min((int) h / coarseStep, Math.ceil((y + rh) / coarseStep));
+        int coarseCols = Math.max(0, lastCol - firstCol + 1);
+        int coarseRows = Math.max(0, lastRow - firstRow + 1);
+        double originX = firstCol * coarseStep;
+        double originY = firstRow * coarseStep;
         double[][] coarseVals = new double[coarseCols][coarseRows];
 
-        // Since AST is completely thread-safe, we no longer need ThreadLocal clones!
+        // One frozen frame for the whole render: the parallel workers only read constants.
+        // The preview is coarse anyway, so it always evaluates the FastMath version.
+        final EquationParser frozenParser = mainParser.bindCurrentValues();
+        final EquationParser previewParser = frozenParser.approximate();
         IntStream.range(0, coarseCols * coarseRows).parallel().forEach(i -> {
             int c = i % coarseCols;
             int r = i / coarseCols;
-            double gx = viewCx + (c * coarseStep - w / 2.0) / viewScale;
-            double gy = viewCy + (h / 2.0 - r * coarseStep) / viewScale;
-            coarseVals[c][r] = mainParser.evaluateImplicit(gx, gy);
+            double gx = viewCx + (originX + c * coarseStep - w / 2.0) / viewScale;
+            double gy = viewCy + (h / 2.0 - originY - r * coarseStep) / viewScale;
+            coarseVals[c][r] = previewParser.evaluateImplicit(gx, gy);
         });
 
-        gc.setStroke(data.color.deriveColor(0, 1, 1, 0.4));
-        gc.setLineWidth(4.0);
+        if (coarseOnly) {
+            sink.setStroke(data.color, 2.5);
+        } else {
+            sink.setStroke(data.color.deriveColor(0, 1, 1, 0.4), 4.0);
+        }
 
         for (int r = 0; r < coarseRows - 1; r++) {
             for (int c = 0; c < coarseCols - 1; c++) {
@@ -638,222 +940,259 @@ public class GraphPlotter extends StackPane {
 
                 if (state == 0 || state == 15) continue;
 
-                double topX = c * coarseStep + coarseStep * interp(vtl, vtr);
-                double topY = r * coarseStep;
-                double botX = c * coarseStep + coarseStep * interp(vbl, vbr);
-                double botY = (r + 1) * coarseStep;
-                double leftX = c * coarseStep;
-                double leftY = r * coarseStep + coarseStep * interp(vtl, vbl);
-                double rightX = (c + 1) * coarseStep;
-                double rightY = r * coarseStep + coarseStep * interp(vtr, vbr);
+                double cellX = originX + c * coarseStep;
+                double cellY = originY + r * coarseStep;
+                double topX = cellX + coarseStep * PlotEngine.interp(vtl, vtr);
+                double topY = cellY;
+                double botX = cellX + coarseStep * PlotEngine.interp(vbl, vbr);
+                double botY = cellY + coarseStep;
+                double leftX = cellX;
+                double leftY = cellY + coarseStep * PlotEngine.interp(vtl, vbl);
+                double rightX = cellX + coarseStep;
+                double rightY = cellY + coarseStep * PlotEngine.interp(vtr, vbr);
 
                 switch (state) {
                     case 1:
                     case 14:
-                        gc.strokeLine(leftX, leftY, botX, botY);
+                        sink.strokeLine(leftX, leftY, botX, botY);
                         break;
                     case 2:
                     case 13:
-                        gc.strokeLine(botX, botY, rightX, rightY);
+                        sink.strokeLine(botX, botY, rightX, rightY);
                         break;
                     case 4:
                     case 11:
-                        gc.strokeLine(topX, topY, rightX, rightY);
+                        sink.strokeLine(topX, topY, rightX, rightY);
                         break;
                     case 8:
                     case 7:
-                        gc.strokeLine(leftX, leftY, topX, topY);
+                        sink.strokeLine(leftX, leftY, topX, topY);
                         break;
                     case 3:
                     case 12:
-                        gc.strokeLine(leftX, leftY, rightX, rightY);
+                        sink.strokeLine(leftX, leftY, rightX, rightY);
                         break;
                     case 6:
                     case 9:
-                        gc.strokeLine(topX, topY, botX, botY);
+                        sink.strokeLine(topX, topY, botX, botY);
                         break;
                     case 5:
-                        gc.strokeLine(leftX, leftY, topX, topY);
-                        gc.strokeLine(botX, botY, rightX, rightY);
+                        sink.strokeLine(leftX, leftY, topX, topY);
+                        sink.strokeLine(botX, botY, rightX, rightY);
                         break;
                     case 10:
-                        gc.strokeLine(topX, topY, rightX, rightY);
-                        gc.strokeLine(leftX, leftY, botX, botY);
+                        sink.strokeLine(topX, topY, rightX, rightY);
+                        sink.strokeLine(leftX, leftY, botX, botY);
                         break;
                 }
             }
         }
 
-        // --- 4. HIGH-RES ADAPTIVE BACKGROUND CALCULATION ---
-        final double fineStep = 1.5 / viewScale; // 1.5-pixel HD resolution (Fixed jagged edges)
-        final double coarseStepMath = 15.0 / viewScale;
-        final double areaMultiplier = 1.2;
-        final double viewWidthMath = w / viewScale;
-        final double viewHeightMath = h / viewScale;
-
-        final double startX = viewCx - (viewWidthMath * areaMultiplier) / 2.0;
-        final double startY = viewCy + (viewHeightMath * areaMultiplier) / 2.0;
+        if (coarseOnly) return; // the fine cache is still valid, nothing to recompute
+        if (keepRunning) return; // the running trace will file its result and repaint
 
-        final int mathCoarseCols = (int) ((viewWidthMath * areaMultiplier) / coarseStepMath) + 1;
-        final int mathCoarseRows = (int) ((viewHeightMath * areaMultiplier) / coarseStepMath) + 1;
+        // --- 4. HIGH-RES ADAPTIVE BACKGROUND CALCULATION ---
+        // The task reuses the same frozen frame as the preview; mid-interaction it traces with FastMath
+        // and the result is redone exactly once the view settles
+        final ParameterKey taskKey = paramKey;
+        final EquationParser taskParser = isInteracting ? previewParser : frozenParser;
 
-        javafx.concurrent.Task<List<double[]>> task = new javafx.concurrent.Task<>() {
+        // The cache (and its spatial index) is built on the worker; the FX thread only files it
+        javafx.concurrent.Task<CachedImplicit> task = new javafx.concurrent.Task<>() {
             @Override
-            protected List<double[]> call() {
-                double[][] mathCoarseVals = new double[mathCoarseCols][mathCoarseRows];
+            protected CachedImplicit call() {
+                List<double[]> lines = PlotEngine.traceImplicitView(taskParser, viewCx, viewCy, viewScale, w, h, this::isCancelled);
+                if (lines == null) return null;
+                return new CachedImplicit(lines, viewScale, viewCx, viewCy, taskParser.isApproximate());
+            }
+        };
 
-                // 4A. Evaluate coarse grid
-                IntStream.range(0, mathCoarseCols * mathCoarseRows).parallel().forEach(i -> {
-                    if (isCancelled()) return;
-                    int c = i % mathCoarseCols;
-                    int r = i / mathCoarseCols;
-                    double gx = startX + c * coarseStepMath;
-                    double gy = startY - r * coarseStepMath;
-                    mathCoarseVals[c][r] = mainParser.evaluateImplicit(gx, gy);
-                });
+        task.setOnSucceeded(e -> {
+            CachedImplicit result = task.getValue();
+            if (result == null) return;
+            implicitCacheFor(id).put(taskKey, result);
+            ImplicitTrace current = activeTasks.get(id);
+            if (current != null && current.task() == task) activeTasks.remove(id);
+            drawGraphLayer();
+        });
 
-                if (isCancelled()) return null;
+        activeTasks.put(id, new ImplicitTrace(task, taskKey, taskParser.isApproximate(), viewCx, viewCy, viewScale, w, h));
+        Thread thread = new Thread(task);
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-                // Use synchronized list because we are parallelizing the line construction
-                List<double[]> lines = Collections.synchronizedList(new ArrayList<>());
-                int subdivisions = 10; // 15 / 1.5 = 10 cells per coarse box
+    private ParameterCache<CachedImplicit> implicitCacheFor(String id) {
+        return implicitCache.computeIfAbsent(id, k -> new ParameterCache<>());
+    }
 
-                // 4B. FULLY PARALLELIZED High-Res Refinement
-                IntStream.range(0, (mathCoarseRows - 1) * (mathCoarseCols - 1)).parallel().forEach(i -> {
-                    if (isCancelled()) return;
-                    int c = i % (mathCoarseCols - 1);
-                    int r = i / (mathCoarseCols - 1);
-
-                    double vtl = mathCoarseVals[c][r], vtr = mathCoarseVals[c + 1][r];
-                    double vbl = mathCoarseVals[c][r + 1], vbr = mathCoarseVals[c + 1][r + 1];
-
-                    int state = 0;
-                    if (vtl > 0) state |= 8;
-                    if (vtr > 0) state |= 4;
-                    if (vbr > 0) state |= 2;
-                    if (vbl > 0) state |= 1;
-
-                    if (state == 0 || state == 15) return; // Skip empty boxes
-
-                    double boxStartX = startX + c * coarseStepMath;
-                    double boxStartY = startY - r * coarseStepMath;
-
-                    double[][] fineVals = new double[subdivisions + 1][subdivisions + 1];
-                    fineVals[0][0] = vtl;
-                    fineVals[subdivisions][0] = vtr;
-                    fineVals[0][subdivisions] = vbl;
-                    fineVals[subdivisions][subdivisions] = vbr;
-
-                    for (int fr = 0; fr <= subdivisions; fr++) {
-                        for (int fc = 0; fc <= subdivisions; fc++) {
-                            if ((fr == 0 && fc == 0) || (fr == 0 && fc == subdivisions) ||
-                                    (fr == subdivisions && fc == 0) || (fr == subdivisions && fc == subdivisions)) {
-                                continue;
-                            }
-                            double fx = boxStartX + fc * fineStep;
-                            double fy = boxStartY - fr * fineStep;
-                            fineVals[fc][fr] = mainParser.evaluateImplicit(fx, fy);
-                        }
-                    }
+    // --- PRECOMPUTED SLIDER SWEEPS ---
+    private record SweepInfo(char name, double min, double max, int frames,
+                             double cx, double cy, double scale, double w, double h) {
+        double frameValue(int i) {
+            return min + i * (max - min) / (frames - 1);
+        }
 
-                    List<double[]> localLines = new ArrayList<>();
-                    for (int fr = 0; fr < subdivisions; fr++) {
-                        for (int fc = 0; fc < subdivisions; fc++) {
-                            double fvtl = fineVals[fc][fr], fvtr = fineVals[fc + 1][fr];
-                            double fvbl = fineVals[fc][fr + 1], fvbr = fineVals[fc + 1][fr + 1];
-
-                            int fstate = 0;
-                            if (fvtl > 0) fstate |= 8;
-                            if (fvtr > 0) fstate |= 4;
-                            if (fvbr > 0) fstate |= 2;
-                            if (fvbl > 0) fstate |= 1;
-
-                            if (fstate == 0 || fstate == 15) continue;
-
-                            double ftopX = boxStartX + (fc + interp(fvtl, fvtr)) * fineStep;
-                            double ftopY = boxStartY - fr * fineStep;
-                            double fbotX = boxStartX + (fc + interp(fvbl, fvbr)) * fineStep;
-                            double fbotY = boxStartY - (fr + 1) * fineStep;
-                            double fleftX = boxStartX + fc * fineStep;
-                            double fleftY = boxStartY - (fr + interp(fvtl, fvbl)) * fineStep;
-                            double frightX = boxStartX + (fc + 1) * fineStep;
-                            double frightY = boxStartY - (fr + interp(fvtr, fvbr)) * fineStep;
-
-                            switch (fstate) {
-                                case 1:
-                                case 14:
-                                    localLines.add(new double[]{fleftX, fleftY, fbotX, fbotY});
-                                    break;
-                                case 2:
-                                case 13:
-                                    localLines.add(new double[]{fbotX, fbotY, frightX, frightY});
-                                    break;
-                                case 4:
-                                case 11:
-                                    localLines.add(new double[]{ftopX, ftopY, frightX, frightY});
-                                    break;
-                                case 8:
-                                case 7:
-                                    localLines.add(new double[]{fleftX, fleftY, ftopX, ftopY});
-                                    break;
-                                case 3:
-                                case 12:
-                                    localLines.add(new double[]{fleftX, fleftY, frightX, frightY});
-                                    break;
-                                case 6:
-                                case 9:
-                                    localLines.add(new double[]{ftopX, ftopY, fbotX, fbotY});
-                                    break;
-                                case 5:
-                                    localLines.add(new double[]{fleftX, fleftY, ftopX, ftopY});
-                                    localLines.add(new double[]{fbotX, fbotY, frightX, frightY});
-                                    break;
-                                case 10:
-                                    localLines.add(new double[]{ftopX, ftopY, frightX, frightY});
-                                    localLines.add(new double[]{fleftX, fleftY, fbotX, fbotY});
-                                    break;
-                            }
-                        }
-                    }
-                    lines.addAll(localLines);
-                });
+        double snap(double value) {
+            int i = (int) Math.round((value - min) / (max - min) * (frames - 1));
+            return frameValue(Math.clamp(i, 0, frames - 1));
+        }
 
-                return lines;
+        // Same tolerance the implicit cache uses before it recomputes
+        boolean matchesView(double cx, double cy, double scale, double w, double h) {
+            return scale == this.scale && w == this.w && h == this.h &&
+                    Math.abs(cx - this.cx) <= (w / scale) * 0.1 && Math.abs(cy - this.cy) <= (h / scale) * 0.1;
+        }
+    }
+
+    // Computes frames for evenly spaced values of one parameter across [min, max] at the current viewport.
+    // Other parameters keep their current values. Frames land in the regular parameter-keyed caches.
+    public javafx.concurrent.Task<Void> precomputeSweep(String id, char name, double min, double max, int frames) {
+        EquationData data = currentEquations.get(id);
+        if (data == null || frames < 2 || !(max > min)) return null;
+        cancelSweep(id);
+
+        // Implicit frames are traced over the whole canvas, overhang included, like drawFunction_MarchingSquares
+        double w = graphCanvas.getWidth(), h = graphCanvas.getHeight();
+        SweepInfo sweep = new SweepInfo(name, min, max, frames, graphCenterX, graphCenterY, scale, w, h);
+        Map<Character, Double> baseValues = data.parser.getParameterValues();
+        ParameterCache<CachedImplicit> cache = implicitCacheFor(id);
+        cache.ensureCapacity(frames + 16);
+        data.reserveCacheFrames(frames);
+
+        javafx.concurrent.Task<Void> task = new javafx.concurrent.Task<>() {
+            @Override
+            protected Void call() throws Exception {
+                java.util.concurrent.atomic.AtomicInteger done = new java.util.concurrent.atomic.AtomicInteger();
+                MAX_POWER_POOL.submit(() -> IntStream.range(0, frames).parallel().forEach(i -> {
+                    if (isCancelled()) return;
+                    Map<Character, Double> values = new TreeMap<>(baseValues);
+                    values.put(name, sweep.frameValue(i));
+                    computeFrame(data, cache, values, sweep.cx(), sweep.cy(), sweep.scale(), w, h, this::isCancelled);
+                    updateProgress(done.incrementAndGet(), frames);
+                })).get();
+                return null;
             }
         };
+        task.setOnCancelled(e -> sweeps.remove(id, sweep));
+        task.setOnFailed(e -> sweeps.remove(id, sweep));
 
-        task.setOnSucceeded(e -> {
-            List<double[]> result = task.getValue();
-            if (result == null) return;
-            implicitCache.put(id, new CachedImplicit(result, viewScale, viewCx, viewCy));
-            activeTasks.remove(id);
-            drawGraphLayer();
-        });
-
-        activeTasks.put(id, task);
+        sweeps.put(id, sweep);
         Thread thread = new Thread(task);
         thread.setDaemon(true);
         thread.start();
+        return task;
     }
 
-    private double interp(double v1, double v2) {
-        if (Double.isNaN(v1) || Double.isNaN(v2)) return 0.5;
-        double sum = Math.abs(v1) + Math.abs(v2);
-        if (sum == 0.0) return 0.5;
-        return Math.abs(v1) / sum;
+    // Evaluates one parameter combination at the given view and files it in the keyed caches.
+    // w and h are the canvas size (view plus PAN_MARGIN on every side).
+    private void computeFrame(EquationData data, ParameterCache<CachedImplicit> cache, Map<Character, Double> values,
+                              double cx, double cy, double viewScale, double w, double h, BooleanSupplier cancelled) {
+        ParameterKey key = ParameterKey.of(values);
+        EquationParser frozen = data.parser.bind(values);
+        if (data.parser.isImplicit()) {
+            if (cache.get(key) != null) return;
+            List<double[]> lines = PlotEngine.traceImplicitView(frozen, cx, cy, viewScale, w, h, cancelled);
+            if (lines != null) cache.put(key, new CachedImplicit(lines, viewScale, cx, cy));
+        } else {
+            // Explicit samples are keyed to the view width like refreshAllData; they span 3x the view anyway
+            double viewW = w - 2 * PAN_MARGIN;
+            double graphMinX = cx - (viewW / 2) / viewScale;
+            double graphMaxX = cx + (viewW / 2) / viewScale;
+            data.precomputeExplicit(frozen, key, graphMinX, graphMaxX, viewW);
+        }
+    }
+
+    // --- ANIMATION FRAME PIPELINE ---
+    // Queues a frame on the worker pool unless it is cached or already in flight. Never blocks.
+    public void prefetchFrame(String id, Map<Character, Double> values) {
+        EquationData data = currentEquations.get(id);
+        if (data == null || isFrameReady(id, values)) return;
+        ParameterKey key = ParameterKey.of(values);
+        Set<ParameterKey> pending = inFlightFrames.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet());
+        if (!pending.add(key)) return;
+
+        double cx = graphCenterX, cy = graphCenterY, viewScale = scale, w = graphCanvas.getWidth(), h = graphCanvas.getHeight();
+        ParameterCache<CachedImplicit> cache = implicitCacheFor(id);
+        MAX_POWER_POOL.execute(() -> {
+            try {
+                computeFrame(data, cache, values, cx, cy, viewScale, w, h, () -> data.retired);
+            } finally {
+                pending.remove(key);
+            }
+        });
+    }
+
+    // True when the frame for these values can be drawn for the current view straight from cache
+    public boolean isFrameReady(String id, Map<Character, Double> values) {
+        EquationData data = currentEquations.get(id);
+        if (data == null) return false;
+        ParameterKey key = ParameterKey.of(values);
+        if (!data.parser.isImplicit()) {
+            double w = getWidth();
+            return data.hasSamples(key, graphCenterX - (w / 2) / scale, graphCenterX + (w / 2) / scale, w);
+        }
+        // Same test drawFunction_MarchingSquares applies before it redraws from cache
+        double w = graphCanvas.getWidth(), h = graphCanvas.getHeight();
+        CachedImplicit cache = implicitCacheFor(id).get(key);
+        return cache != null && cache.scale == scale &&
+                Math.abs(graphCenterX - cache.cx) <= (w / scale) * 0.1 &&
+                Math.abs(graphCenterY - cache.cy) <= (h / scale) * 0.1;
+    }
+
+    // Reserves room in the keyed caches for frames scheduled ahead of playback
+    public void reserveFrames(String id, int frames) {
+        EquationData data = currentEquations.get(id);
+        if (data == null) return;
+        implicitCacheFor(id).ensureCapacity(frames + 16);
+        data.reserveCacheFrames(frames);
+    }
+
+    public void cancelSweep(String id) {
+        sweeps.remove(id);
+    }
+
+    // While a sweep is valid, slider values snap to its frames so scrubbing plays straight from cache
+    public double snapToSweep(String id, char name, double value) {
+        SweepInfo sweep = sweeps.get(id);
+        if (sweep == null || sweep.name() != name) return value;
+        if (!sweep.matchesView(graphCenterX, graphCenterY, scale, graphCanvas.getWidth(), graphCanvas.getHeight())) {
+            sweeps.remove(id);
+            return value;
+        }
+        return sweep.snap(value);
     }
 
     public void addEquationToHashmap(String id, String fullInput, Color color) {
+        addParsedEquation(id, new EquationParser(fullInput), color);
+    }
+
+    // Same as addEquationToHashmap for a parser that was already built (e.g. off the FX thread)
+    public void addParsedEquation(String id, EquationParser parser, Color color) {
+        if (storeEquation(id, parser, color, null, null)) refreshAllData();
+        draw();
+    }
+
+    // Workspace load: files the equation together with the geometry saved for its slider values.
+    // No refresh or draw here; the caller does one of each after restoring every row.
+    void restoreEquation(String id, EquationParser parser, Color color, EquationData.Samples samples, CachedImplicit implicit) {
+        storeEquation(id, parser, color, samples, implicit);
+    }
+
+    // Returns true if the equation is a curve (as opposed to a point)
+    private boolean storeEquation(String id, EquationParser parser, Color color, EquationData.Samples samples, CachedImplicit implicit) {
         EquationData data = new EquationData();
-        data.raw = fullInput;
-        data.parser = new EquationParser(fullInput);
+        data.raw = parser.getRawInput();
+        data.parser = parser;
         data.setColor(color);
         pointsMap.remove(id);
+        retire(currentEquations.get(id));
 
         // --- FIX: CLEAR THE CACHE WHEN EQUATION CHANGES ---
         implicitCache.remove(id);
+        sweeps.remove(id);
         if (activeTasks.containsKey(id)) {
-            activeTasks.get(id).cancel(true);
+            activeTasks.get(id).task().cancel(true);
             activeTasks.remove(id);
         }
         // --------------------------------------------------
@@ -861,21 +1200,113 @@ public class GraphPlotter extends StackPane {
         if (data.parser.getPoints() != null) {
             Points p = data.parser.getPoints();
             pointsMap.put(id, new Points(p.getX(), p.getY(), color));
-        } else {
-            currentEquations.put(id, data);
-            refreshAllData();
+            currentEquations.remove(id);
+            return false;
+        }
+        ParameterKey key = parser.parameterKey();
+        if (samples != null) data.seedSamples(key, samples);
+        if (implicit != null) implicitCacheFor(id).put(key, implicit);
+        currentEquations.put(id, data);
+        return true;
+    }
+
+    // What a workspace save stores for a row: the geometry computed for its current slider values
+    EquationData.Samples savedSamples(String id) {
+        EquationData data = currentEquations.get(id);
+        if (data == null || data.parser.isImplicit()) return null;
+        return data.samplesFor(data.parser.parameterKey());
+    }
+
+    CachedImplicit savedImplicit(String id) {
+        EquationData data = currentEquations.get(id);
+        if (data == null || !data.parser.isImplicit()) return null;
+        ParameterCache<CachedImplicit> cache = implicitCache.get(id);
+        return cache == null ? null : cache.get(data.parser.parameterKey());
+    }
+
+    double getCenterX() {
+        return graphCenterX;
+    }
+
+    double getCenterY() {
+        return graphCenterY;
+    }
+
+    double getScale() {
+        return scale;
+    }
+
+    // The bitmaps are larger than the view by the pan margin; implicit caches are traced for this size
+    double getCanvasWidth() {
+        return graphCanvas.getWidth();
+    }
+
+    double getCanvasHeight() {
+        return graphCanvas.getHeight();
+    }
+
+    void setView(double cx, double cy, double newScale) {
+        graphCenterX = cx;
+        graphCenterY = cy;
+        scale = Math.clamp(newScale, MIN_SCALE, MAX_SCALE);
+    }
+
+    // An exporter for the current view at the given output width; the height keeps the view's aspect
+    // ratio and line widths scale with the output so it looks like the screen
+    PlotExporter exporter(int outputWidth) {
+        double w = getWidth(), h = getHeight();
+        int outputHeight = (int) Math.max(1, Math.round(outputWidth * h / w));
+        double ratio = outputWidth / w;
+        List<PlotExporter.Curve> curves = new ArrayList<>();
+        for (EquationData data : currentEquations.values()) {
+            if (!data.parser.isValid()) continue;
+            curves.add(new PlotExporter.Curve(data.parser.bindCurrentValues(), data.color));
+        }
+        return new PlotExporter(curves, graphCenterX, graphCenterY, scale * ratio, outputWidth, outputHeight)
+                .strokeScale(ratio);
+    }
+
+    // --- IMPORTED DATA ---
+    void addSeries(String id, PointSeries series, Color color) {
+        series.color = color;
+        seriesMap.put(id, series);
+        drawGraphLayer();
+    }
+
+    void updateSeriesColor(String id, Color color) {
+        PointSeries series = seriesMap.get(id);
+        if (series != null) {
+            series.color = color;
+            drawGraphLayer();
+        }
+    }
+
+    Map<String, PointSeries> getSeries() {
+        return Collections.unmodifiableMap(seriesMap);
+    }
+
+    void removeSeries(String id) {
+        PointSeries series = seriesMap.remove(id);
+        if (series != null) {
+            seriesLooks.remove(series);
+            drawGraphLayer();
         }
-        draw();
     }
 
     public void removeEquation(String id) {
-        currentEquations.remove(id);
+        retire(currentEquations.remove(id));
         refreshAllData();
         implicitCache.remove(id); // Clear cache if equation is removed
+        sweeps.remove(id);
         pointsMap.remove(id);
         draw();
     }
 
+    // Workers never read currentEquations; they stop once the data they were given is retired
+    private void retire(EquationData data) {
+        if (data != null) data.retired = true;
+    }
+
     public void zoomIn() {
         scale = Math.min(scale * 1.1, MAX_SCALE);
         draw();
@@ -903,9 +1334,13 @@ public class GraphPlotter extends StackPane {
     }
 
     public void clearAllEquations() {
+        currentEquations.values().forEach(this::retire);
         currentEquations.clear();
         pointsMap.clear();
+        seriesMap.clear();
+        seriesLooks.clear();
         implicitCache.clear();
+        sweeps.clear();
         draw();
     }
 
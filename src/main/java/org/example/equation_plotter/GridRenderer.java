@@ -0,0 +1,172 @@
+package org.example.equation_plotter;
+
+import javafx.geometry.VPos;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.Text;
+import javafx.scene.text.TextAlignment;
+
+import java.text.DecimalFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Draws the background grid, axes and tick labels. FX thread only.
+// Grid lines repeat every major step, so once the zoom has settled they are rasterized into one
+// pattern image and later frames at the same scale just blit it at the right offset. Only the axes
+// and labels are drawn fresh, and label strings are cached per tick value.
+public class GridRenderer {
+    static final Font LABEL_FONT = Font.font("JetBrains Mono", 12);
+    static final Font MARKER_FONT = Font.font("JetBrains Mono", 13);
+
+    private static final Color MINOR_LINE = Color.web("#2A2A2A");
+    private static final Color MAJOR_LINE = Color.web("#404040");
+    private static final int LABEL_CACHE_SIZE = 1024;
+    private static final int PHASE_STEPS = 8; // sub-pixel grid phases the pattern is built for
+
+    private final DecimalFormat formatter = new DecimalFormat("#.##");
+    private final Map<Double, String> labels = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Double, String> eldest) {
+            return size() > LABEL_CACHE_SIZE;
+        }
+    };
+    private final Map<String, Double> textWidths = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Double> eldest) {
+            return size() > LABEL_CACHE_SIZE;
+        }
+    };
+    private final Text measure = new Text();
+
+    // Rasterized grid lines, valid for one (scale, sub-pixel offset, size)
+    private WritableImage pattern;
+    private double patternScale = Double.NaN;
+    private double patternFracX, patternFracY;
+    private double patternW, patternH;
+    private double lastScale = Double.NaN;
+
+    public String format(double value) {
+        return labels.computeIfAbsent(value, formatter::format);
+    }
+
+    // Rendered width of a string in the given font, measured once
+    public double textWidth(String text, Font font) {
+        return textWidths.computeIfAbsent(font.getSize() + "|" + text, k -> {
+            measure.setFont(font);
+            measure.setText(text);
+            return measure.getLayoutBounds().getWidth();
+        });
+    }
+
+    // Labels are kept inside [margin, size - margin] so they stay in view on an oversized canvas.
+    // labelStride > 1 only labels every n-th major tick (used while interacting).
+    public void draw(GraphicsContext gc, double w, double h, double centerX, double centerY, double scale, double margin,
+                     int labelStride) {
+        double left = centerX - w / 2 / scale;
+        double top = centerY + h / 2 / scale;
+        double yAxisPixel = (0 - centerX) * scale + w / 2;
+        double xAxisPixel = h / 2 - (0 - centerY) * scale;
+
+        double majorStep = PlotEngine.majorGridStep(scale);
+        double minorStep = majorStep / 5.0;
+
+        // --- LINES ---
+        // First major line at or left of / above the canvas edge
+        long firstCol = (long) Math.floor(left / majorStep);
+        long firstRow = (long) Math.ceil(top / majorStep);
+        double originX = (firstCol * majorStep - centerX) * scale + w / 2;
+        double originY = h / 2 - (firstRow * majorStep - centerY) * scale;
+
+        if (scale == lastScale) {
+            // Zoom has settled: reuse (or build once) the rasterized pattern. The sub-pixel phase is snapped
+            // to 1/8 px; otherwise roundoff in the centre during a drag would rebuild the pattern every strip.
+            double snappedX = Math.round(originX * PHASE_STEPS) / (double) PHASE_STEPS;
+            double snappedY = Math.round(originY * PHASE_STEPS) / (double) PHASE_STEPS;
+            double blitX = Math.floor(snappedX), blitY = Math.floor(snappedY);
+            double fracX = snappedX - blitX, fracY = snappedY - blitY;
+            if (pattern == null || scale != patternScale || fracX != patternFracX || fracY != patternFracY || w != patternW || h != patternH) {
+                buildPattern(w, h, scale, majorStep, minorStep, fracX, fracY);
+            }
+            gc.drawImage(pattern, blitX, blitY);
+        } else {
+            // Mid-zoom the pattern would be thrown away next frame; stroke directly
+            strokeLines(gc, originX, originY, w, h, majorStep * scale, minorStep * scale);
+        }
+        lastScale = scale;
+
+        // --- AXES AND LABELS ---
+        gc.setFont(LABEL_FONT);
+        gc.setTextBaseline(VPos.BASELINE);
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setFill(Color.WHITE);
+        for (long k = firstCol; (k * majorStep - left) * scale < w + scale; k++) {
+            double x = k * majorStep;
+            if (k == 0 || k % labelStride != 0) continue;
+            double px = (x - centerX) * scale + w / 2;
+            double labelY = Math.clamp(xAxisPixel + 15, margin, Math.max(margin, h - margin - 20));
+            gc.fillText(format(x), px, labelY);
+        }
+        for (long k = firstRow; (top - k * majorStep) * scale < h + scale; k--) {
+            double y = k * majorStep;
+            if (k == 0 || k % labelStride != 0) continue;
+            double py = h / 2 - (y - centerY) * scale;
+            double labelX = Math.clamp(yAxisPixel - 15, Math.min(margin + 45, w), Math.max(margin + 45, w - margin - 5));
+            gc.fillText(format(y), labelX, py);
+        }
+
+        gc.setStroke(Color.WHITE);
+        gc.setLineWidth(2);
+        gc.strokeLine(yAxisPixel, 0, yAxisPixel, h);
+        gc.strokeLine(0, xAxisPixel, w, xAxisPixel);
+        gc.fillText("0", yAxisPixel - 10, xAxisPixel + 15);
+    }
+
+    private void buildPattern(double w, double h, double scale, double majorStep, double minorStep, double fracX, double fracY) {
+        double majorPx = majorStep * scale;
+        // One extra period on each axis so the pattern still covers the canvas after the blit offset
+        int pw = (int) Math.ceil(w + majorPx) + 1;
+        int ph = (int) Math.ceil(h + majorPx) + 1;
+        Canvas scratch = new Canvas(pw, ph);
+        strokeLines(scratch.getGraphicsContext2D(), fracX, fracY, pw, ph, majorPx, minorStep * scale);
+
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        if (pattern == null || (int) pattern.getWidth() != pw || (int) pattern.getHeight() != ph) {
+            pattern = new WritableImage(pw, ph);
+        }
+        scratch.snapshot(params, pattern);
+        patternScale = scale;
+        patternFracX = fracX;
+        patternFracY = fracY;
+        patternW = w;
+        patternH = h;
+    }
+
+    // Minor then major lines, starting from a major line at (originX, originY) and repeating right and down
+    private static void strokeLines(GraphicsContext gc, double originX, double originY, double w, double h,
+                                    double majorPx, double minorPx) {
+        gc.setLineWidth(1);
+        gc.setStroke(MINOR_LINE);
+        for (int i = 0; originX + i * minorPx < w + minorPx; i++) {
+            double px = originX + i * minorPx;
+            gc.strokeLine(px, 0, px, h);
+        }
+        for (int i = 0; originY + i * minorPx < h + minorPx; i++) {
+            double py = originY + i * minorPx;
+            gc.strokeLine(0, py, w, py);
+        }
+        gc.setStroke(MAJOR_LINE);
+        for (int i = 0; originX + i * majorPx < w + majorPx; i++) {
+            double px = originX + i * majorPx;
+            gc.strokeLine(px, 0, px, h);
+        }
+        for (int i = 0; originY + i * majorPx < h + majorPx; i++) {
+            double py = originY + i * majorPx;
+            gc.strokeLine(0, py, w, py);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package org.example.equation_plotter;
+
+import javafx.application.Platform;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.Image;
+import javafx.scene.image.ImageView;
+import org.scilab.forge.jlatexmath.TeXConstants;
+import org.scilab.forge.jlatexmath.TeXFormula;
+import org.scilab.forge.jlatexmath.TeXIcon;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.text.ParseException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Typeset preview of an equation row, drawn by jlatexmath under the row's plain text field.
+// No browser engine per row and nothing fetched from the network; every row renders on one shared
+// background thread.
+public class LatexPreview extends ImageView {
+    private static final ExecutorService RENDER_POOL = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "latex-preview");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final float FONT_SIZE = 20;
+
+    private static final Map<String, String> FUNCTIONS = Map.ofEntries(
+            Map.entry("sin", "\\sin"), Map.entry("cos", "\\cos"), Map.entry("tan", "\\tan"),
+            Map.entry("asin", "\\arcsin"), Map.entry("arcsin", "\\arcsin"),
+            Map.entry("acos", "\\arccos"), Map.entry("arccos", "\\arccos"),
+            Map.entry("atan", "\\arctan"), Map.entry("arctan", "\\arctan"),
+            Map.entry("sinh", "\\sinh"), Map.entry("cosh", "\\cosh"), Map.entry("tanh", "\\tanh"),
+            Map.entry("log", "\\log"), Map.entry("ln", "\\ln"), Map.entry("exp", "\\exp"),
+            Map.entry("pi", "\\pi"));
+
+    // Only touched on the FX thread; a render that finishes after a newer edit is dropped
+    private long generation = 0;
+
+    public LatexPreview() {
+        setPreserveRatio(true);
+        setManaged(false);
+        setVisible(false);
+    }
+
+    // Shows the typeset form of the input, or hides the preview while it cannot be typeset
+    public void show(String input) {
+        long gen = ++generation;
+        if (input == null || input.isBlank()) {
+            apply(gen, null);
+            return;
+        }
+        RENDER_POOL.submit(() -> {
+            Image image = render(input);
+            Platform.runLater(() -> apply(gen, image));
+        });
+    }
+
+    private void apply(long gen, Image image) {
+        if (gen != generation) return;
+        if (image != null) setImage(image);
+        boolean visible = image != null;
+        setVisible(visible);
+        setManaged(visible);
+    }
+
+    private static Image render(String input) {
+        try {
+            TeXIcon icon = new TeXFormula(toLatex(input)).createTeXIcon(TeXConstants.STYLE_DISPLAY, FONT_SIZE);
+            icon.setForeground(java.awt.Color.WHITE);
+            int w = Math.max(1, icon.getIconWidth()), h = Math.max(1, icon.getIconHeight());
+            BufferedImage image = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = image.createGraphics();
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            icon.paintIcon(null, g, 0, 0);
+            g.dispose();
+            return SwingFXUtils.toFXImage(image, null);
+        } catch (Exception e) {
+            return null; // half-typed input; keep editing
+        }
+    }
+
+    // --- ASCII INPUT TO LATEX ---
+    // Works on the same tokens the parser sees, so the preview shows what will be plotted.
+    // Unbalanced brackets while typing are closed at the end of the input.
+    static String toLatex(String input) throws ParseException {
+        List<Lexer.Token> tokens = Lexer.tokenize(input);
+        StringBuilder sb = new StringBuilder();
+        emit(tokens, 0, tokens.size() - 1, sb);
+        return sb.toString();
+    }
+
+    private static void emit(List<Lexer.Token> t, int from, int to, StringBuilder sb) {
+        int i = from;
+        while (i < to) {
+            Lexer.Token tok = t.get(i);
+            switch (tok.type()) {
+                case NUMBER -> sb.append(tok.text());
+                case IDENT -> {
+                    String name = tok.text();
+                    boolean call = i + 1 < to && t.get(i + 1).is(Lexer.Type.LPAREN);
+                    if (call && (name.equals("sqrt") || name.equals("cbrt") || name.equals("abs"))) {
+                        int close = matching(t, i + 1, to);
+                        sb.append(switch (name) {
+                            case "sqrt" -> "\\sqrt{";
+                            case "cbrt" -> "\\sqrt[3]{";
+                            default -> "\\left|";
+                        });
+                        emit(t, i + 2, close, sb);
+                        sb.append(name.equals("abs") ? "\\right|" : "}");
+                        i = close + 1;
+                        continue;
+                    }
+                    String mapped = FUNCTIONS.get(name);
+                    if (mapped != null) sb.append(mapped).append(' ');
+                    else if (call && name.length() > 1) sb.append("\\mathrm{").append(name).append('}');
+                    else sb.append(name);
+                }
+                case CARET -> {
+                    // The exponent is the next bracket group (without its brackets) or the next atom
+                    sb.append("^{");
+                    int j = i + 1;
+                    if (j < to && t.get(j).is(Lexer.Type.MINUS)) {
+                        sb.append('-');
+                        j++;
+                    }
+                    if (j < to && t.get(j).is(Lexer.Type.LPAREN)) {
+                        int close = matching(t, j, to);
+                        emit(t, j + 1, close, sb);
+                        i = close + 1;
+                    } else {
+                        if (j < to) emit(t, j, j + 1, sb);
+                        i = j + 1;
+                    }
+                    sb.append('}');
+                    continue;
+                }
+                case LPAREN -> {
+                    int close = matching(t, i, to);
+                    sb.append("\\left(");
+                    emit(t, i + 1, close, sb);
+                    sb.append("\\right)");
+                    i = close + 1;
+                    continue;
+                }
+                case STAR -> sb.append("\\cdot ");
+                case SLASH -> sb.append('/');
+                case PLUS -> sb.append('+');
+                case MINUS -> sb.append('-');
+                case LBRACE -> sb.append("\\quad\\{");
+                case RBRACE -> sb.append("\\}");
+                case COMMA -> sb.append(",\\,");
+                case PRIME -> sb.append('\'');
+                case ASSIGN, EQ -> sb.append('=');
+                case LT -> sb.append('<');
+                case LE -> sb.append("\\le ");
+                case GT -> sb.append('>');
+                case GE -> sb.append("\\ge ");
+                case AND -> sb.append("\\wedge ");
+                case OR -> sb.append("\\vee ");
+                default -> {
+                }
+            }
+            i++;
+        }
+    }
+
+    // Index of the ')' closing the '(' at open, or to when it is not closed yet
+    private static int matching(List<Lexer.Token> t, int open, int to) {
+        int depth = 0;
+        for (int i = open; i < to; i++) {
+            if (t.get(i).is(Lexer.Type.LPAREN)) depth++;
+            else if (t.get(i).is(Lexer.Type.RPAREN) && --depth == 0) return i;
+        }
+        return to;
+    }
+}
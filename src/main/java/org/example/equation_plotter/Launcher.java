@@ -5,7 +5,17 @@ import org.mariuszgromada.math.mxparser.License;
 import org.mariuszgromada.math.mxparser.mXparser;
 
 public class Launcher {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        // Headless batch rendering: no stage, no display needed
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchRenderer.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        // Local HTTP render service, also headless
+        if (args.length > 0 && args[0].equals("--serve")) {
+            RenderServer.main(java.util.Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         System.setProperty("prism.order", "d3d,es2,sw");
         System.setProperty("prism.verbose", "true");
         /* Non-Commercial Use Confirmation */
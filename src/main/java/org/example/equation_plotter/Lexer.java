@@ -0,0 +1,133 @@
+package org.example.equation_plotter;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Single-pass tokenizer for equation input. Every token keeps its offset in the original text,
+// so parse errors can point at the exact character.
+public final class Lexer {
+
+    public enum Type {
+        NUMBER, IDENT,
+        PLUS, MINUS, STAR, SLASH, CARET,
+        LPAREN, RPAREN, LBRACE, RBRACE, COMMA, PRIME,
+        ASSIGN, EQ, LT, LE, GT, GE, AND, OR,
+        EOF
+    }
+
+    public record Token(Type type, String text, double value, int pos) {
+        boolean is(Type t) {
+            return type == t;
+        }
+
+        boolean isIdent(String name) {
+            return type == Type.IDENT && text.equals(name);
+        }
+    }
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private Lexer() {
+    }
+
+    public static List<Token> tokenize(String input) throws ParseException {
+        List<Token> tokens = new ArrayList<>(input.length() / 2 + 2);
+        int n = input.length();
+        int i = 0;
+        while (i < n) {
+            char c = input.charAt(i);
+            int start = i;
+
+            if (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+                i++;
+            } else if ((c >= '0' && c <= '9') || c == '.') {
+                // Digits are accumulated as one integer mantissa; a single division by a power of ten
+                // is then exact-rounded (Clinger's fast path). Anything longer goes to the JDK.
+                long mantissa = 0;
+                int digits = 0;
+                int fractionDigits = 0;
+                boolean seenDot = false;
+                while (i < n) {
+                    char d = input.charAt(i);
+                    if (d >= '0' && d <= '9') {
+                        mantissa = mantissa * 10 + (d - '0');
+                        digits++;
+                        if (seenDot) fractionDigits++;
+                    } else if (d == '.') {
+                        if (seenDot) throw new ParseException("Second decimal point in number", i);
+                        seenDot = true;
+                    } else {
+                        break;
+                    }
+                    i++;
+                }
+                String text = input.substring(start, i);
+                if (digits == 0) throw new ParseException("Lone decimal point", start);
+                double value = (digits <= 15 && fractionDigits < POW10.length)
+                        ? mantissa / POW10[fractionDigits]
+                        : Double.parseDouble(text);
+                tokens.add(new Token(Type.NUMBER, text, value, start));
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                while (i < n && isLetter(input.charAt(i))) i++;
+                tokens.add(new Token(Type.IDENT, input.substring(start, i).toLowerCase(), 0, start));
+            } else {
+                i++;
+                char next = i < n ? input.charAt(i) : 0;
+                Type type;
+                switch (c) {
+                    case '+' -> type = Type.PLUS;
+                    case '-', '−' -> type = Type.MINUS;
+                    case '*', '⋅', '·', '×' -> type = Type.STAR;
+                    case '/', '÷' -> type = Type.SLASH;
+                    case '^' -> type = Type.CARET;
+                    case '(' -> type = Type.LPAREN;
+                    case ')' -> type = Type.RPAREN;
+                    case '{' -> type = Type.LBRACE;
+                    case '}' -> type = Type.RBRACE;
+                    case ',' -> type = Type.COMMA;
+                    case '\'', '′' -> type = Type.PRIME;
+                    case 'π' -> {
+                        tokens.add(new Token(Type.IDENT, "pi", 0, start));
+                        continue;
+                    }
+                    case '≤' -> type = Type.LE;
+                    case '≥' -> type = Type.GE;
+                    case '<' -> {
+                        type = (next == '=') ? Type.LE : Type.LT;
+                        if (next == '=') i++;
+                    }
+                    case '>' -> {
+                        type = (next == '=') ? Type.GE : Type.GT;
+                        if (next == '=') i++;
+                    }
+                    case '=' -> {
+                        type = (next == '=') ? Type.EQ : Type.ASSIGN;
+                        if (next == '=') i++;
+                    }
+                    case '&' -> {
+                        if (next != '&') throw new ParseException("Expected '&&'", start);
+                        i++;
+                        type = Type.AND;
+                    }
+                    case '|' -> {
+                        if (next != '|') throw new ParseException("Expected '||'", start);
+                        i++;
+                        type = Type.OR;
+                    }
+                    default -> throw new ParseException("Unexpected character '" + c + "'", start);
+                }
+                tokens.add(new Token(type, input.substring(start, i), 0, start));
+            }
+        }
+        tokens.add(new Token(Type.EOF, "", 0, n));
+        return tokens;
+    }
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+}
@@ -0,0 +1,79 @@
+package org.example.equation_plotter;
+
+// Level-of-detail while the user drags or scrolls.
+// Frames painted during a gesture are timed; when they run over the target the level goes up
+// (sparser explicit samples, coarser implicit preview, fewer labels and indicators), and it comes back
+// down once frames are comfortably fast. The learned level carries over to the next gesture so a slow
+// machine starts degraded instead of stuttering first. Settled frames always get full detail.
+public class LodPolicy {
+    public static final double DEFAULT_TARGET_MS = 1000.0 / 60;
+    private static final int MAX_LEVEL = 3;
+
+    private double targetFrameMs;
+    private double avgFrameMs;
+    private int level = 0;
+    private boolean interacting = false;
+
+    public LodPolicy() {
+        this(DEFAULT_TARGET_MS);
+    }
+
+    public LodPolicy(double targetFrameMs) {
+        setTargetFrameMs(targetFrameMs);
+    }
+
+    public void setTargetFrameMs(double targetFrameMs) {
+        this.targetFrameMs = Math.max(1, targetFrameMs);
+        this.avgFrameMs = this.targetFrameMs / 2;
+    }
+
+    public double getTargetFrameMs() {
+        return targetFrameMs;
+    }
+
+    void setInteracting(boolean interacting) {
+        this.interacting = interacting;
+    }
+
+    public boolean isInteracting() {
+        return interacting;
+    }
+
+    public int getLevel() {
+        return interacting ? level : 0;
+    }
+
+    // Feed the paint time of every frame; only frames painted mid-gesture count
+    void recordFrame(double frameMs) {
+        if (!interacting) return;
+        avgFrameMs = avgFrameMs * 0.6 + frameMs * 0.4;
+        if (avgFrameMs > targetFrameMs && level < MAX_LEVEL) {
+            level++;
+            avgFrameMs = targetFrameMs * 0.75; // give the new level a few frames before judging it
+        } else if (avgFrameMs < targetFrameMs * 0.35 && level > 0) {
+            level--;
+            avgFrameMs = targetFrameMs * 0.5;
+        }
+    }
+
+    // Pixel columns between explicit samples: 1, 2, 4, 8
+    int explicitStride() {
+        return 1 << getLevel();
+    }
+
+    // Pixel size of the implicit preview grid
+    int previewCellPx() {
+        return 20 << getLevel();
+    }
+
+    // Draw every n-th axis label
+    int labelStride() {
+        return 1 << getLevel();
+    }
+
+    // Draw every n-th intercept / intersection indicator; 0 hides them all
+    int indicatorStride() {
+        int lvl = getLevel();
+        return lvl >= MAX_LEVEL ? 0 : 1 << lvl;
+    }
+}
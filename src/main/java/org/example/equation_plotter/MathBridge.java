@@ -1,9 +1,25 @@
 package org.example.equation_plotter;
 
+import javafx.application.Platform;
 import javafx.scene.control.ColorPicker;
 import javafx.scene.layout.VBox;
+import javafx.scene.paint.Color;
+import javafx.util.Duration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class MathBridge {
+    // Parsing runs here as keystrokes arrive, so the FX thread only has to apply the result
+    private static final ExecutorService PARSE_POOL = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "equation-parser");
+        t.setDaemon(true);
+        return t;
+    });
+    private static final double MIN_DEBOUNCE_MS = 15;
+    private static final double MAX_DEBOUNCE_MS = 300;
+
     private final String equationId;
     private final GraphPlotter plotter;
     private final ColorPicker cp;
@@ -11,41 +27,119 @@ public class MathBridge {
     private final VBox sliderBox;
     private final EquatorController controller;
 
+    // Keystroke state, only touched on the FX thread
+    private long generation = 0;
+    private Future<?> pendingParse;
+    private String pendingText;
+    private EquationParser readyParser;
+    private boolean debounceElapsed;
+
+    // Smoothed cost of parsing + applying one edit; the debounce shrinks when it is cheap
+    private double avgParseMs = 5;
+    private double avgApplyMs = 30;
+
     public MathBridge(String equationId, GraphPlotter plotter, ColorPicker cp, VBox sliderBox, EquatorController controller) {
         this.equationId = equationId;
         this.plotter = plotter;
         this.cp = cp;
         this.sliderBox = sliderBox;
         this.controller = controller;
-        this.debounceTimer = new javafx.animation.PauseTransition(javafx.util.Duration.millis(300));
+        this.debounceTimer = new javafx.animation.PauseTransition(Duration.millis(MAX_DEBOUNCE_MS));
     }
 
-    // 2. MUST BE PUBLIC
+    // Called with the row's text on every edit
     public void updateMath(String asciiMath) {
-        // Debugging: Watch the console to see the exact text JavaScript is sending to Java!
-        System.out.println("Received from Desmos UI: " + asciiMath);
+        String text = ParseCache.normalize(asciiMath);
+        long gen = ++generation;
+        pendingText = text;
+        readyParser = null;
+        debounceElapsed = false;
 
-        debounceTimer.playFromStart();
+        // A newer keystroke makes any parse still in flight useless
+        if (pendingParse != null) pendingParse.cancel(true);
+        pendingParse = null;
 
-        debounceTimer.setOnFinished(e -> {
-            String text = asciiMath.trim();
-            if (text.isEmpty()) {
-                plotter.removeEquation(equationId);
-                sliderBox.getChildren().clear();
+        if (!text.isEmpty()) {
+            EquationParser cached = ParseCache.lookup(text);
+            if (cached != null) {
+                readyParser = cached;
             } else {
-                try {
-                    // Convert ASCII math slightly to match your AST compiler
-                    String javaMath = text.replace("⋅", "*").replace("pi", "π");
-                    plotter.addEquationToHashmap(equationId, javaMath, cp.getValue());
-
-                    EquationData data = plotter.getEquation(equationId);
-                    if (data != null && data.parser != null) {
-                        controller.createSlidersBridge(data.parser, sliderBox, equationId);
-                    }
-                } catch (Exception ex) {
-                    ex.printStackTrace(); // Print errors if the compiler fails to parse it
-                }
+                pendingParse = PARSE_POOL.submit(() -> {
+                    long start = System.nanoTime();
+                    EquationParser parser = ParseCache.obtain(text);
+                    double parseMs = (System.nanoTime() - start) / 1e6;
+                    Platform.runLater(() -> onParsed(gen, parser, parseMs));
+                });
             }
+        }
+
+        debounceTimer.setDuration(Duration.millis(Math.clamp((avgParseMs + avgApplyMs) * 2, MIN_DEBOUNCE_MS, MAX_DEBOUNCE_MS)));
+        debounceTimer.setOnFinished(e -> {
+            if (gen != generation) return;
+            debounceElapsed = true;
+            applyIfReady();
         });
+        debounceTimer.playFromStart();
+    }
+
+    private void onParsed(long gen, EquationParser parser, double parseMs) {
+        avgParseMs = smooth(avgParseMs, parseMs);
+        if (gen != generation) return; // stale
+        readyParser = parser;
+        applyIfReady();
+    }
+
+    private void applyIfReady() {
+        if (!debounceElapsed) return;
+        if (pendingText.isEmpty()) {
+            plotter.removeEquation(equationId);
+            sliderBox.getChildren().clear();
+            return;
+        }
+        if (readyParser == null) return; // parse still running, it will call back
+
+        EquationParser parser = readyParser;
+        readyParser = null;
+        long start = System.nanoTime();
+        try {
+            plotter.addParsedEquation(equationId, parser, cp.getValue());
+
+            EquationData data = plotter.getEquation(equationId);
+            if (data != null && data.parser != null) {
+                controller.createSlidersBridge(data.parser, sliderBox, equationId);
+            }
+        } catch (Exception ex) {
+            ex.printStackTrace(); // Print errors if the compiler fails to parse it
+        }
+        avgApplyMs = smooth(avgApplyMs, (System.nanoTime() - start) / 1e6);
+    }
+
+    // Row state for File > Save; the math field only reports text as it is typed
+    String getEquationId() {
+        return equationId;
+    }
+
+    String currentText() {
+        return pendingText == null ? "" : pendingText;
+    }
+
+    Color currentColor() {
+        return cp.getValue();
+    }
+
+    // Workspace load: the row gets its equation straight from the file, with the saved geometry, instead
+    // of waiting for the math field to load and report it
+    void restore(String text, EquationParser parser, EquationData.Samples samples, CachedImplicit implicit) {
+        generation++;
+        pendingText = text;
+        plotter.restoreEquation(equationId, parser, cp.getValue(), samples, implicit);
+        EquationData data = plotter.getEquation(equationId);
+        if (data != null && data.parser != null) {
+            controller.createSlidersBridge(data.parser, sliderBox, equationId);
+        }
+    }
+
+    private static double smooth(double average, double sample) {
+        return average * 0.7 + sample * 0.3;
     }
 }
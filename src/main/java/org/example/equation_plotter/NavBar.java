@@ -15,6 +15,10 @@ public class NavBar {
     @FXML
     private MenuItem menuSave;
     @FXML
+    private MenuItem menuImport;
+    @FXML
+    private MenuItem menuExport;
+    @FXML
     private MenuItem menuClose;
     @FXML
     private MenuItem menuDelete;
@@ -41,6 +45,16 @@ public class NavBar {
         if (mainController != null) mainController.handleSaveFile(event);
     }
 
+    @FXML
+    void onImport(ActionEvent event) {
+        if (mainController != null) mainController.handleImportData(event);
+    }
+
+    @FXML
+    void onExport(ActionEvent event) {
+        if (mainController != null) mainController.handleExport(event);
+    }
+
     @FXML
     void onClose(ActionEvent event) {
         Platform.exit();
@@ -0,0 +1,156 @@
+package org.example.equation_plotter;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.control.Slider;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+// Plays a slider parameter back and forth across its range.
+// Frames are quantised so they can be computed ahead on the worker pool; a frame that is not
+// ready when its time comes is dropped instead of stalling the FX thread.
+public class ParameterAnimator {
+    private static final int FRAMES = 120;
+    private static final int LOOKAHEAD = 8;
+    private static final double PERIOD_NANOS = 4_000_000_000.0; // one pass across the range
+
+    private final GraphPlotter plotter;
+    private final String equationId;
+    private final char name;
+    private final EquationParser.Parameter parameter;
+    private final Slider slider;
+    private final Consumer<String> status;
+    private final AnimationTimer timer;
+
+    private boolean loop = true;
+    private boolean playing = false;
+    private long startTime = -1;
+    private double startPosition;
+    private int lastIndex = -1;
+
+    // FPS bookkeeping
+    private long fpsWindowStart;
+    private int shownInWindow;
+    private int droppedInWindow;
+
+    public ParameterAnimator(GraphPlotter plotter, String equationId, char name, EquationParser.Parameter parameter,
+                             Slider slider, Consumer<String> status) {
+        this.plotter = plotter;
+        this.equationId = equationId;
+        this.name = name;
+        this.parameter = parameter;
+        this.slider = slider;
+        this.status = status;
+        this.timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                tick(now);
+            }
+        };
+    }
+
+    public void play() {
+        if (playing) return;
+        playing = true;
+        startTime = -1;
+        lastIndex = -1;
+        // Resume from the slider's current position
+        startPosition = (slider.getValue() - slider.getMin()) / (slider.getMax() - slider.getMin()) * (FRAMES - 1);
+        // A single pass that starts at the end would stop straight away, so it starts over instead
+        if (!loop && startPosition >= FRAMES - 1) startPosition = 0;
+        plotter.cancelSweep(equationId);
+        plotter.reserveFrames(equationId, LOOKAHEAD * 2);
+        timer.start();
+    }
+
+    public void stop() {
+        if (!playing) return;
+        playing = false;
+        timer.stop();
+        status.accept("");
+        // Settle on a full refresh (intersections, intercepts) for the final value
+        plotter.refreshAllData();
+        plotter.draw();
+    }
+
+    public boolean isPlaying() {
+        return playing;
+    }
+
+    public void setLoop(boolean loop) {
+        this.loop = loop;
+    }
+
+    public boolean isLoop() {
+        return loop;
+    }
+
+    private void tick(long now) {
+        if (startTime < 0) {
+            startTime = now;
+            fpsWindowStart = now;
+        }
+        double position = startPosition + (now - startTime) / PERIOD_NANOS * (FRAMES - 1);
+        if (!loop && position >= FRAMES - 1) {
+            showIfReady(FRAMES - 1);
+            stop();
+            return;
+        }
+
+        // Ping-pong over the frame range
+        int index = frameAt((long) Math.floor(position));
+        for (int k = 1; k <= LOOKAHEAD; k++) {
+            plotter.prefetchFrame(equationId, valuesFor(frameAt((long) Math.floor(position) + k)));
+        }
+
+        if (index != lastIndex) {
+            if (showIfReady(index)) {
+                shownInWindow++;
+            } else {
+                // Missed its budget: keep the last frame on screen and let the clock move on
+                plotter.prefetchFrame(equationId, valuesFor(index));
+                droppedInWindow++;
+            }
+        }
+
+        if (now - fpsWindowStart >= 1_000_000_000L) {
+            double seconds = (now - fpsWindowStart) / 1e9;
+            status.accept(String.format("%.0f fps, %d dropped", shownInWindow / seconds, droppedInWindow));
+            fpsWindowStart = now;
+            shownInWindow = 0;
+            droppedInWindow = 0;
+        }
+    }
+
+    private int frameAt(long position) {
+        long period = 2L * (FRAMES - 1);
+        long p = Math.floorMod(position, period);
+        return (int) (p <= FRAMES - 1 ? p : period - p);
+    }
+
+    private double frameValue(int index) {
+        double min = slider.getMin(), max = slider.getMax();
+        return min + index * (max - min) / (FRAMES - 1);
+    }
+
+    private Map<Character, Double> valuesFor(int index) {
+        EquationData data = plotter.getEquation(equationId);
+        Map<Character, Double> values = data == null ? new TreeMap<>() : data.parser.getParameterValues();
+        values.put(name, frameValue(index));
+        return values;
+    }
+
+    private boolean showIfReady(int index) {
+        Map<Character, Double> values = valuesFor(index);
+        if (!plotter.isFrameReady(equationId, values)) return false;
+        double value = values.get(name);
+        slider.setValue(value);
+        // The slider listener may snap; the frame must use exactly the cached value
+        parameter.setArgumentValue(value);
+        plotter.refreshEquationData(equationId);
+        plotter.drawGraphLayer();
+        lastIndex = index;
+        return true;
+    }
+}
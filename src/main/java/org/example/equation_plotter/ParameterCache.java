@@ -0,0 +1,36 @@
+package org.example.equation_plotter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Small LRU of computed geometry per slider combination.
+// Scrubbing back to a value that was already drawn (or precomputed by a sweep) is then a lookup.
+public class ParameterCache<V> {
+    private static final int DEFAULT_CAPACITY = 32;
+
+    private int capacity = DEFAULT_CAPACITY;
+    private final LinkedHashMap<ParameterKey, V> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ParameterKey, V> eldest) {
+            return size() > capacity;
+        }
+    };
+
+    public synchronized V get(ParameterKey key) {
+        return entries.get(key);
+    }
+
+    public synchronized void put(ParameterKey key, V value) {
+        entries.put(key, value);
+    }
+
+    // Sweeps grow the cache so their frames are not evicted by each other
+    public synchronized void ensureCapacity(int minCapacity) {
+        capacity = Math.max(capacity, minCapacity);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        capacity = DEFAULT_CAPACITY;
+    }
+}
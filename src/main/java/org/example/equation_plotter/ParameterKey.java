@@ -0,0 +1,56 @@
+package org.example.equation_plotter;
+
+import java.util.Arrays;
+import java.util.Map;
+
+// Identifies one combination of slider values (parameters sorted by name).
+// Used to key cached geometry so moving a slider never shows a stale curve.
+public final class ParameterKey {
+    public static final ParameterKey EMPTY = new ParameterKey(new char[0], new double[0]);
+
+    private final char[] names;
+    private final double[] values;
+    private final int hash;
+
+    private ParameterKey(char[] names, double[] values) {
+        this.names = names;
+        this.values = values;
+        this.hash = 31 * Arrays.hashCode(names) + Arrays.hashCode(values);
+    }
+
+    // Expects a sorted map such as the one from EquationParser.getParameterValues()
+    public static ParameterKey of(Map<Character, Double> sortedValues) {
+        if (sortedValues.isEmpty()) return EMPTY;
+        char[] names = new char[sortedValues.size()];
+        double[] values = new double[sortedValues.size()];
+        int i = 0;
+        for (Map.Entry<Character, Double> entry : sortedValues.entrySet()) {
+            names[i] = entry.getKey();
+            values[i] = entry.getValue();
+            i++;
+        }
+        return new ParameterKey(names, values);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ParameterKey other)) return false;
+        return hash == other.hash && Arrays.equals(names, other.names) && Arrays.equals(values, other.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(names[i]).append('=').append(values[i]);
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,47 @@
+package org.example.equation_plotter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+// LRU of parsed equations keyed by normalized input.
+// Retyping or undoing back to a recent text skips regex work and AST construction entirely.
+// Every caller gets its own copy so slider parameters are never shared between rows.
+public final class ParseCache {
+    private static final int CAPACITY = 256;
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final LinkedHashMap<String, EquationParser> CACHE = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, EquationParser> eldest) {
+            return size() > CAPACITY;
+        }
+    };
+
+    private ParseCache() {
+    }
+
+    public static String normalize(String input) {
+        String text = input.trim().replace("⋅", "*").replace("π", "pi");
+        return WHITESPACE.matcher(text).replaceAll(" ");
+    }
+
+    // Cached parse or null; does not parse on a miss
+    public static EquationParser lookup(String normalized) {
+        EquationParser template;
+        synchronized (CACHE) {
+            template = CACHE.get(normalized);
+        }
+        return template == null ? null : template.copy();
+    }
+
+    public static EquationParser obtain(String normalized) {
+        EquationParser cached = lookup(normalized);
+        if (cached != null) return cached;
+        EquationParser template = new EquationParser(normalized);
+        synchronized (CACHE) {
+            CACHE.put(normalized, template);
+        }
+        return template.copy();
+    }
+}
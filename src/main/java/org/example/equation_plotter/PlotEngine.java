@@ -0,0 +1,357 @@
+package org.example.equation_plotter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+// The curve tracing engines, free of any Canvas or scene graph state so both the on-screen plotter
+// and the exporters run the exact same code. All pixel coordinates are relative to a viewport given as
+// (center x, center y, pixels per unit, width, height).
+final class PlotEngine {
+    private PlotEngine() {
+    }
+
+    // y of one branch at x; NaN or infinite where the branch does not exist
+    @FunctionalInterface
+    interface BranchSampler {
+        double y(double x, int branch);
+    }
+
+    // Major grid spacing in graph units: a 1, 2 or 5 times a power of ten, about 100 pixels apart
+    static double majorGridStep(double scale) {
+        double targetPixels = 100.0;
+        double rawStep = targetPixels / scale;
+        double magnitude = Math.pow(10, Math.floor(Math.log10(rawStep)));
+        double fraction = rawStep / magnitude;
+        return (fraction < 2.0) ? 1 * magnitude : (fraction < 5.0) ? 2 * magnitude : 5 * magnitude;
+    }
+
+    // --- EXPLICIT ---
+    // Samples one branch at every stride-th pixel column of [fromPx, toPx) and
+    // traces it as one path. Where the branch ends between two samples the curve is run out to the exact
+    // edge with edgeParser, so the branches of a conic meet.
+    static void traceExplicit(CurveSink sink, BranchSampler sampler, EquationParser edgeParser, int branch,
+                              double cx, double cy, double scale, double w, double h,
+                              double fromPx, double toPx, int stride) {
+        sink.beginPath();
+        boolean firstPoint = true;
+        double prevX = Double.NaN;
+        // A couple of columns past each end so a curve leaving the range is traced up to the boundary
+        double startPx = Math.floor(fromPx) - 2;
+        double endPx = toPx + 2;
+        for (double pixelX = startPx; pixelX < endPx; pixelX += stride) {
+            double graphX = cx + (pixelX - w / 2.0) / scale;
+            double graphY = sampler.y(graphX, branch);
+            if (Double.isNaN(graphY) || Double.isInfinite(graphY)) {
+                // Curve ends inside this pixel: run it out to the exact edge so the branches of a conic meet
+                if (!firstPoint) {
+                    double[] edge = branchEdge(edgeParser, branch, prevX, graphX);
+                    if (edge != null) sink.lineTo((edge[0] - cx) * scale + w / 2.0, h / 2.0 - (edge[1] - cy) * scale);
+                }
+                firstPoint = true;
+                continue;
+            }
+            double pixelY = h / 2.0 - (graphY - cy) * scale;
+            if (firstPoint) {
+                if (pixelX > startPx) {
+                    double[] edge = branchEdge(edgeParser, branch, graphX, graphX - stride / scale);
+                    if (edge == null) edge = new double[]{graphX, edgeParser.evaluateBranch(graphX, branch)};
+                    sink.moveTo((edge[0] - cx) * scale + w / 2.0, h / 2.0 - (edge[1] - cy) * scale);
+                    sink.lineTo(pixelX, pixelY);
+                } else {
+                    sink.moveTo(pixelX, pixelY);
+                }
+                firstPoint = false;
+            } else {
+                sink.lineTo(pixelX, pixelY);
+            }
+            prevX = graphX;
+        }
+        sink.stroke();
+    }
+
+    // Bisects between a defined x and an undefined x for the last point where the branch still exists
+    static double[] branchEdge(EquationParser parser, int branch, double defined, double undefined) {
+        double y = parser.evaluateBranch(defined, branch);
+        if (Double.isNaN(y) || Double.isInfinite(y)) return null;
+        for (int i = 0; i < 30; i++) {
+            double mid = (defined + undefined) / 2;
+            double my = parser.evaluateBranch(mid, branch);
+            if (Double.isNaN(my) || Double.isInfinite(my)) {
+                undefined = mid;
+            } else {
+                defined = mid;
+                y = my;
+            }
+        }
+        return new double[]{defined, y};
+    }
+
+    // --- IMPLICIT ---
+    static List<double[]> traceImplicitView(EquationParser parser, double viewCx, double viewCy, double viewScale,
+                                            double w, double h, BooleanSupplier cancelled) {
+        final double fineStep = 1.5 / viewScale; // 1.5-pixel HD resolution (Fixed jagged edges)
+        final double coarseStepMath = 15.0 / viewScale;
+        final double areaMultiplier = 1.2;
+        final double viewWidthMath = w / viewScale;
+        final double viewHeightMath = h / viewScale;
+
+        double startX = viewCx - (viewWidthMath * areaMultiplier) / 2.0;
+        double startY = viewCy + (viewHeightMath * areaMultiplier) / 2.0;
+        double endX = startX + viewWidthMath * areaMultiplier;
+        double endY = startY - viewHeightMath * areaMultiplier;
+
+        // Shrink the grid to the box a "{...}" restriction allows, keeping one coarse cell of margin for the edge
+        double[] xRange = parser.getLimitRange('x');
+        double[] yRange = parser.getLimitRange('y');
+        startX = Math.max(startX, xRange[0] - coarseStepMath);
+        endX = Math.min(endX, xRange[1] + coarseStepMath);
+        startY = Math.min(startY, yRange[1] + coarseStepMath);
+        endY = Math.max(endY, yRange[0] - coarseStepMath);
+        if (endX <= startX || endY >= startY) return new ArrayList<>();
+
+        final int mathCoarseCols = (int) ((endX - startX) / coarseStepMath) + 1;
+        final int mathCoarseRows = (int) ((startY - endY) / coarseStepMath) + 1;
+
+        return traceImplicit(parser, startX, startY, mathCoarseCols, mathCoarseRows, coarseStepMath, fineStep, cancelled);
+    }
+
+    // Traces [x0, x1] x [y1, y0] (y0 is the top) on a grid anchored at (originX, originY), so separately
+    // traced regions of one picture share grid lines and their curves join up exactly
+    static List<double[]> traceImplicitRegion(EquationParser parser, double originX, double originY, double viewScale,
+                                              double x0, double y0, double x1, double y1, BooleanSupplier cancelled) {
+        final double fineStep = 1.5 / viewScale;
+        final double coarseStepMath = 15.0 / viewScale;
+
+        double[] xRange = parser.getLimitRange('x');
+        double[] yRange = parser.getLimitRange('y');
+        x0 = Math.max(x0, xRange[0] - coarseStepMath);
+        x1 = Math.min(x1, xRange[1] + coarseStepMath);
+        y0 = Math.min(y0, yRange[1] + coarseStepMath);
+        y1 = Math.max(y1, yRange[0] - coarseStepMath);
+        if (x1 <= x0 || y1 >= y0) return new ArrayList<>();
+
+        // Snap outwards to the anchored grid
+        double startX = originX + Math.floor((x0 - originX) / coarseStepMath) * coarseStepMath;
+        double startY = originY - Math.floor((originY - y0) / coarseStepMath) * coarseStepMath;
+        int cols = (int) Math.ceil((x1 - startX) / coarseStepMath) + 1;
+        int rows = (int) Math.ceil((startY - y1) / coarseStepMath) + 1;
+        return traceImplicit(parser, startX, startY, cols, rows, coarseStepMath, fineStep, cancelled);
+    }
+
+    // Two-level marching squares over a math-space grid: a coarse pass finds sign changes,
+    // then only crossing cells are refined at fine resolution. Thread-safe; returns null if cancelled.
+    static List<double[]> traceImplicit(EquationParser parser, double startX, double startY, int mathCoarseCols, int mathCoarseRows,
+                                        double coarseStepMath, double fineStep, BooleanSupplier cancelled) {
+        double[][] mathCoarseVals = new double[mathCoarseCols][mathCoarseRows];
+
+        // 4A. Evaluate coarse grid
+        IntStream.range(0, mathCoarseCols * mathCoarseRows).parallel().forEach(i -> {
+            if (cancelled.getAsBoolean()) return;
+            int c = i % mathCoarseCols;
+            int r = i / mathCoarseCols;
+            double gx = startX + c * coarseStepMath;
+            double gy = startY - r * coarseStepMath;
+            mathCoarseVals[c][r] = parser.evaluateImplicit(gx, gy);
+        });
+
+        if (cancelled.getAsBoolean()) return null;
+
+        // Use synchronized list because we are parallelizing the line construction
+        List<double[]> lines = Collections.synchronizedList(new ArrayList<>());
+        int subdivisions = 10; // 15 / 1.5 = 10 cells per coarse box
+
+        // 4B. FULLY PARALLELIZED High-Res Refinement
+        IntStream.range(0, (mathCoarseRows - 1) * (mathCoarseCols - 1)).parallel().forEach(i -> {
+            if (cancelled.getAsBoolean()) return;
+            int c = i % (mathCoarseCols - 1);
+            int r = i / (mathCoarseCols - 1);
+
+            double vtl = mathCoarseVals[c][r], vtr = mathCoarseVals[c + 1][r];
+            double vbl = mathCoarseVals[c][r + 1], vbr = mathCoarseVals[c + 1][r + 1];
+
+            int state = 0;
+            if (vtl > 0) state |= 8;
+            if (vtr > 0) state |= 4;
+            if (vbr > 0) state |= 2;
+            if (vbl > 0) state |= 1;
+
+            if (state == 0 || state == 15) return; // Skip empty boxes
+
+            double boxStartX = startX + c * coarseStepMath;
+            double boxStartY = startY - r * coarseStepMath;
+
+            double[][] fineVals = new double[subdivisions + 1][subdivisions + 1];
+            fineVals[0][0] = vtl;
+            fineVals[subdivisions][0] = vtr;
+            fineVals[0][subdivisions] = vbl;
+            fineVals[subdivisions][subdivisions] = vbr;
+
+            for (int fr = 0; fr <= subdivisions; fr++) {
+                for (int fc = 0; fc <= subdivisions; fc++) {
+                    if ((fr == 0 && fc == 0) || (fr == 0 && fc == subdivisions) ||
+                            (fr == subdivisions && fc == 0) || (fr == subdivisions && fc == subdivisions)) {
+                        continue;
+                    }
+                    double fx = boxStartX + fc * fineStep;
+                    double fy = boxStartY - fr * fineStep;
+                    fineVals[fc][fr] = parser.evaluateImplicit(fx, fy);
+                }
+            }
+
+            List<double[]> localLines = new ArrayList<>();
+            for (int fr = 0; fr < subdivisions; fr++) {
+                for (int fc = 0; fc < subdivisions; fc++) {
+                    double fvtl = fineVals[fc][fr], fvtr = fineVals[fc + 1][fr];
+                    double fvbl = fineVals[fc][fr + 1], fvbr = fineVals[fc + 1][fr + 1];
+
+                    int fstate = 0;
+                    if (fvtl > 0) fstate |= 8;
+                    if (fvtr > 0) fstate |= 4;
+                    if (fvbr > 0) fstate |= 2;
+                    if (fvbl > 0) fstate |= 1;
+
+                    if (fstate == 0 || fstate == 15) continue;
+
+                    double ftopX = boxStartX + (fc + interp(fvtl, fvtr)) * fineStep;
+                    double ftopY = boxStartY - fr * fineStep;
+                    double fbotX = boxStartX + (fc + interp(fvbl, fvbr)) * fineStep;
+                    double fbotY = boxStartY - (fr + 1) * fineStep;
+                    double fleftX = boxStartX + fc * fineStep;
+                    double fleftY = boxStartY - (fr + interp(fvtl, fvbl)) * fineStep;
+                    double frightX = boxStartX + (fc + 1) * fineStep;
+                    double frightY = boxStartY - (fr + interp(fvtr, fvbr)) * fineStep;
+
+                    switch (fstate) {
+                        case 1:
+                        case 14:
+                            localLines.add(new double[]{fleftX, fleftY, fbotX, fbotY});
+                            break;
+                        case 2:
+                        case 13:
+                            localLines.add(new double[]{fbotX, fbotY, frightX, frightY});
+                            break;
+                        case 4:
+                        case 11:
+                            localLines.add(new double[]{ftopX, ftopY, frightX, frightY});
+                            break;
+                        case 8:
+                        case 7:
+                            localLines.add(new double[]{fleftX, fleftY, ftopX, ftopY});
+                            break;
+                        case 3:
+                        case 12:
+                            localLines.add(new double[]{fleftX, fleftY, frightX, frightY});
+                            break;
+                        case 6:
+                        case 9:
+                            localLines.add(new double[]{ftopX, ftopY, fbotX, fbotY});
+                            break;
+                        case 5:
+                            localLines.add(new double[]{fleftX, fleftY, ftopX, ftopY});
+                            localLines.add(new double[]{fbotX, fbotY, frightX, frightY});
+                            break;
+                        case 10:
+                            localLines.add(new double[]{ftopX, ftopY, frightX, frightY});
+                            localLines.add(new double[]{fleftX, fleftY, fbotX, fbotY});
+                            break;
+                    }
+                }
+            }
+            lines.addAll(localLines);
+        });
+
+        return lines;
+    }
+
+    // Joins marching-squares segments that share endpoints into polylines {x0, y0, x1, y1, ...}.
+    // Neighbouring cells compute a shared edge crossing from the same two corner values, but across coarse
+    // boxes the arithmetic differs in the last bits, so endpoints are matched on a grid of size tolerance.
+    static List<double[]> stitch(List<double[]> segments, double tolerance) {
+        int n = segments.size();
+        Map<End, List<Integer>> ends = new HashMap<>(n * 2);
+        for (int i = 0; i < n; i++) {
+            double[] seg = segments.get(i);
+            ends.computeIfAbsent(endKey(seg[0], seg[1], tolerance), k -> new ArrayList<>(2)).add(i);
+            ends.computeIfAbsent(endKey(seg[2], seg[3], tolerance), k -> new ArrayList<>(2)).add(i);
+        }
+
+        boolean[] used = new boolean[n];
+        List<double[]> polylines = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            if (used[i]) continue;
+            used[i] = true;
+            double[] seg = segments.get(i);
+            DoubleList forward = new DoubleList();
+            forward.add(seg[0], seg[1]);
+            forward.add(seg[2], seg[3]);
+            extend(forward, segments, ends, used, tolerance);
+            DoubleList backward = new DoubleList();
+            backward.add(seg[2], seg[3]);
+            backward.add(seg[0], seg[1]);
+            extend(backward, segments, ends, used, tolerance);
+
+            // backward is {end, start, more...}: the "more" part, reversed, goes in front of forward
+            double[] line = new double[backward.size + forward.size - 4];
+            int k = 0;
+            for (int p = backward.size - 2; p >= 4; p -= 2) {
+                line[k++] = backward.data[p];
+                line[k++] = backward.data[p + 1];
+            }
+            System.arraycopy(forward.data, 0, line, k, forward.size);
+            polylines.add(line);
+        }
+        return polylines;
+    }
+
+    // Keeps appending unused segments that start or end where the list currently ends
+    private static void extend(DoubleList line, List<double[]> segments, Map<End, List<Integer>> ends,
+                               boolean[] used, double tolerance) {
+        while (true) {
+            double x = line.data[line.size - 2], y = line.data[line.size - 1];
+            End key = endKey(x, y, tolerance);
+            int next = -1;
+            for (int j : ends.getOrDefault(key, List.of())) {
+                if (!used[j]) {
+                    next = j;
+                    break;
+                }
+            }
+            if (next < 0) return;
+            used[next] = true;
+            double[] seg = segments.get(next);
+            if (endKey(seg[0], seg[1], tolerance).equals(key)) line.add(seg[2], seg[3]);
+            else line.add(seg[0], seg[1]);
+        }
+    }
+
+    private record End(long qx, long qy) {
+    }
+
+    private static End endKey(double x, double y, double tolerance) {
+        return new End(Math.round(x / tolerance), Math.round(y / tolerance));
+    }
+
+    private static final class DoubleList {
+        double[] data = new double[16];
+        int size;
+
+        void add(double x, double y) {
+            if (size + 2 > data.length) data = Arrays.copyOf(data, data.length * 2);
+            data[size++] = x;
+            data[size++] = y;
+        }
+    }
+
+    static double interp(double v1, double v2) {
+        if (Double.isNaN(v1) || Double.isNaN(v2)) return 0.5;
+        double sum = Math.abs(v1) + Math.abs(v2);
+        if (sum == 0.0) return 0.5;
+        return Math.abs(v1) / sum;
+    }
+}
@@ -0,0 +1,357 @@
+package org.example.equation_plotter;
+
+import javafx.scene.paint.Color;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+
+// Renders a set of curves to PNG or SVG at any resolution without a Canvas, a scene or the FX thread.
+// Tracing goes through PlotEngine, the same explicit and marching-squares code the plotter uses.
+//
+// PNG is produced in horizontal strips: a window of strips (one per core) is traced and rasterized at
+// once, then written in order through the streaming PngWriter. Each strip traces only its own slice of
+// the plane, so memory is bounded by the strip window no matter how tall the picture is.
+// SVG is vector output, so the implicit segments of the whole view are traced and stitched into polylines.
+//
+// Parsers must be frozen (bindCurrentValues()) since strips evaluate them from several threads.
+final class PlotExporter {
+    record Curve(EquationParser parser, Color color) {
+    }
+
+    private static final int BACKGROUND = 0x1e1e1e;
+    private static final Color MINOR_LINE = Color.web("#2A2A2A");
+    private static final Color MAJOR_LINE = Color.web("#404040");
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+    // Pixels held across all strips in flight (4 bytes each)
+    private static final long STRIP_BUDGET_PIXELS = 32L << 20;
+    private static final int COARSE_PX = 15; // PlotEngine's coarse implicit cell, strips are a multiple of it
+
+    private final List<Curve> curves;
+    private final double cx, cy, scale;
+    private final int width, height;
+    private double strokeScale = 1;
+    private boolean grid = true;
+    private DoubleConsumer progress = p -> {
+    };
+    private BooleanSupplier cancelled = () -> false;
+    private double anchorX = Double.NaN, anchorY = Double.NaN;
+
+    // (cx, cy) is the centre of the picture in graph units, scale is output pixels per unit
+    PlotExporter(List<Curve> curves, double cx, double cy, double scale, int width, int height) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Export size must be positive");
+        this.curves = List.copyOf(curves);
+        this.cx = cx;
+        this.cy = cy;
+        this.scale = scale;
+        this.width = width;
+        this.height = height;
+    }
+
+    // Line widths and grid spacing are multiplied by this; exporting the screen view at 4x its size with
+    // strokeScale 4 gives a picture that looks like the screen, only sharper
+    PlotExporter strokeScale(double strokeScale) {
+        this.strokeScale = Math.max(0.1, strokeScale);
+        return this;
+    }
+
+    PlotExporter grid(boolean grid) {
+        this.grid = grid;
+        return this;
+    }
+
+    // Called with a fraction in [0, 1] as strips are written
+    PlotExporter onProgress(DoubleConsumer progress) {
+        this.progress = progress;
+        return this;
+    }
+
+    // Checked while tracing; once true the export stops with a CancellationException
+    PlotExporter cancelWhen(BooleanSupplier cancelled) {
+        this.cancelled = cancelled;
+        return this;
+    }
+
+    // Point the implicit grid is anchored at (default: the picture's top-left corner). Pictures that share
+    // an anchor and scale, such as neighbouring tiles, trace the same grid and their curves meet exactly.
+    PlotExporter anchor(double x, double y) {
+        this.anchorX = x;
+        this.anchorY = y;
+        return this;
+    }
+
+    // The whole picture as premultiplied ARGB in one array; meant for small pictures such as tiles
+    int[] renderPixels() {
+        CurveRasterizer raster = new CurveRasterizer(ForkJoinPool.commonPool());
+        renderStrip(raster, 0, height);
+        return raster.pixels();
+    }
+
+    // --- PNG ---
+    void writePng(OutputStream out) throws IOException {
+        int stripRows = stripRows();
+        int strips = (height + stripRows - 1) / stripRows;
+        int window = Math.max(1, CORES);
+        CurveRasterizer[] rasterizers = new CurveRasterizer[window];
+        for (int i = 0; i < window; i++) rasterizers[i] = new CurveRasterizer(ForkJoinPool.commonPool());
+
+        try (PngWriter png = new PngWriter(out, width, height)) {
+            for (int first = 0; first < strips; first += window) {
+                List<ForkJoinTask<?>> batch = new ArrayList<>();
+                for (int k = 0; k < window && first + k < strips; k++) {
+                    int top = (first + k) * stripRows;
+                    int rows = Math.min(stripRows, height - top);
+                    CurveRasterizer raster = rasterizers[k];
+                    batch.add(ForkJoinPool.commonPool().submit(() -> renderStrip(raster, top, rows)));
+                }
+                for (int k = 0; k < batch.size(); k++) {
+                    batch.get(k).join();
+                    int rows = Math.min(stripRows, height - (first + k) * stripRows);
+                    int[] pixels = rasterizers[k].pixels();
+                    for (int r = 0; r < rows; r++) png.writeRow(pixels, r * width, BACKGROUND);
+                }
+                progress.accept(Math.min(1.0, (double) (first + batch.size()) / strips));
+            }
+        }
+    }
+
+    // Rows per strip: as many as the budget allows, a multiple of the coarse implicit cell
+    private int stripRows() {
+        long perStrip = STRIP_BUDGET_PIXELS / Math.max(1, CORES);
+        int rows = (int) Math.min(height, perStrip / width);
+        rows = rows / COARSE_PX * COARSE_PX;
+        return Math.max(COARSE_PX, Math.min(rows, 960));
+    }
+
+    private void renderStrip(CurveRasterizer raster, int top, int rows) {
+        // The strip is its own viewport: same scale and x centre, y centre moved to the strip's middle
+        double stripCy = cy + (height / 2.0 - (top + rows / 2.0)) / scale;
+        raster.begin(width, rows, 0, 0, width, rows);
+        if (grid) drawGrid(raster, stripCy, rows);
+
+        // Implicit strips are traced on a grid anchored at the picture's top-left corner so curves
+        // join up across strip boundaries; one coarse cell above and below covers strokes that overhang
+        double left = cx - width / 2.0 / scale;
+        double originX = Double.isNaN(anchorX) ? left : anchorX;
+        double originY = Double.isNaN(anchorY) ? cy + height / 2.0 / scale : anchorY;
+        double margin = COARSE_PX / scale;
+        double stripTop = stripCy + rows / 2.0 / scale;
+        double stripBottom = stripCy - rows / 2.0 / scale;
+
+        for (Curve curve : curves) {
+            checkCancelled();
+            raster.setStroke(curve.color(), 2.5 * strokeScale);
+            EquationParser parser = curve.parser();
+            if (parser.isImplicit()) {
+                List<double[]> lines = PlotEngine.traceImplicitRegion(parser, originX, originY, scale,
+                        left - margin, stripTop + margin, left + width / scale + margin, stripBottom - margin, cancelled);
+                if (lines == null) throw new CancellationException("export cancelled");
+                for (double[] line : lines) {
+                    raster.strokeLine((line[0] - cx) * scale + width / 2.0, rows / 2.0 - (line[1] - stripCy) * scale,
+                            (line[2] - cx) * scale + width / 2.0, rows / 2.0 - (line[3] - stripCy) * scale);
+                }
+            } else {
+                for (int branch = 0; branch < parser.getBranchCount(); branch++) {
+                    PlotEngine.traceExplicit(raster, parser::evaluateBranch, parser, branch, cx, stripCy, scale,
+                            width, rows, 0, width, 1);
+                }
+            }
+        }
+        raster.rasterize();
+    }
+
+    private void drawGrid(CurveSink sink, double viewCy, int rows) {
+        forEachGridLine(viewCy, rows, (major, vertical, px) -> {
+            sink.setStroke(major ? MAJOR_LINE : MINOR_LINE, strokeScale);
+            if (vertical) sink.strokeLine(px, -1, px, rows + 1);
+            else sink.strokeLine(-1, px, width + 1, px);
+        });
+        double yAxis = (0 - cx) * scale + width / 2.0;
+        double xAxis = rows / 2.0 - (0 - viewCy) * scale;
+        sink.setStroke(Color.WHITE, 2 * strokeScale);
+        sink.strokeLine(yAxis, -1, yAxis, rows + 1);
+        sink.strokeLine(-1, xAxis, width + 1, xAxis);
+    }
+
+    @FunctionalInterface
+    private interface GridLine {
+        void line(boolean major, boolean vertical, double px);
+    }
+
+    // Minor lines first so the major ones are drawn over them, as GridRenderer does
+    private void forEachGridLine(double viewCy, int rows, GridLine action) {
+        double majorStep = PlotEngine.majorGridStep(scale / strokeScale);
+        double minorStep = majorStep / 5.0;
+        double left = cx - width / 2.0 / scale, right = cx + width / 2.0 / scale;
+        double top = viewCy + rows / 2.0 / scale, bottom = viewCy - rows / 2.0 / scale;
+        for (boolean major : new boolean[]{false, true}) {
+            double step = major ? majorStep : minorStep;
+            for (long k = (long) Math.ceil(left / step); k * step <= right; k++) {
+                action.line(major, true, (k * step - cx) * scale + width / 2.0);
+            }
+            for (long k = (long) Math.ceil(bottom / step); k * step <= top; k++) {
+                action.line(major, false, rows / 2.0 - (k * step - viewCy) * scale);
+            }
+        }
+    }
+
+    // --- SVG ---
+    void writeSvg(Writer target) throws IOException {
+        BufferedWriter out = new BufferedWriter(target, 1 << 16);
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height
+                + "\" viewBox=\"0 0 " + width + " " + height + "\">\n");
+        out.write("<rect width=\"100%\" height=\"100%\" fill=\"" + hex(BACKGROUND) + "\"/>\n");
+
+        if (grid) {
+            // One path per line class instead of an element per grid line
+            for (boolean major : new boolean[]{false, true}) {
+                StringBuilder d = new StringBuilder();
+                forEachGridLine(cy, height, (isMajor, vertical, px) -> {
+                    if (isMajor != major) return;
+                    if (vertical) d.append('M').append(num(px)).append(" 0V").append(height);
+                    else d.append("M0 ").append(num(px)).append('H').append(width);
+                });
+                out.write("<path fill=\"none\" stroke=\"" + hex(major ? MAJOR_LINE : MINOR_LINE) + "\" stroke-width=\""
+                        + num(strokeScale) + "\" d=\"" + d + "\"/>\n");
+            }
+            double yAxis = (0 - cx) * scale + width / 2.0;
+            double xAxis = height / 2.0 - (0 - cy) * scale;
+            out.write("<path fill=\"none\" stroke=\"#FFFFFF\" stroke-width=\"" + num(2 * strokeScale) + "\" d=\"M"
+                    + num(yAxis) + " 0V" + height + "M0 " + num(xAxis) + "H" + width + "\"/>\n");
+        }
+
+        out.write("<g fill=\"none\" stroke-linejoin=\"round\" stroke-linecap=\"round\" stroke-width=\""
+                + num(2.5 * strokeScale) + "\">\n");
+        double originX = cx - width / 2.0 / scale;
+        double originY = cy + height / 2.0 / scale;
+        for (int i = 0; i < curves.size(); i++) {
+            checkCancelled();
+            Curve curve = curves.get(i);
+            EquationParser parser = curve.parser();
+            String stroke = "stroke=\"" + hex(curve.color()) + "\"" + (curve.color().getOpacity() < 1
+                    ? " stroke-opacity=\"" + num(curve.color().getOpacity()) + "\"" : "");
+            List<double[]> polylines = new ArrayList<>();
+            if (parser.isImplicit()) {
+                List<double[]> lines = PlotEngine.traceImplicitRegion(parser, originX, originY, scale,
+                        originX, originY, originX + width / scale, originY - height / scale, cancelled);
+                if (lines == null) throw new CancellationException("export cancelled");
+                for (double[] line : PlotEngine.stitch(lines, 1e-4 / scale)) {
+                    for (int k = 0; k < line.length; k += 2) {
+                        line[k] = (line[k] - cx) * scale + width / 2.0;
+                        line[k + 1] = height / 2.0 - (line[k + 1] - cy) * scale;
+                    }
+                    polylines.add(line);
+                }
+            } else {
+                for (int branch = 0; branch < parser.getBranchCount(); branch++) {
+                    PolylineSink sink = new PolylineSink(polylines);
+                    PlotEngine.traceExplicit(sink, parser::evaluateBranch, parser, branch, cx, cy, scale, width, height, 0, width, 1);
+                }
+            }
+            for (double[] line : polylines) {
+                if (line.length < 4) continue;
+                out.write("<polyline " + stroke + " points=\"");
+                for (int k = 0; k < line.length; k += 2) {
+                    if (k > 0) out.write(' ');
+                    out.write(num(line[k]));
+                    out.write(',');
+                    out.write(num(line[k + 1]));
+                }
+                out.write("\"/>\n");
+            }
+            progress.accept((i + 1.0) / curves.size());
+        }
+        out.write("</g>\n</svg>\n");
+        out.flush();
+    }
+
+    private void checkCancelled() {
+        if (cancelled.getAsBoolean()) throw new CancellationException("export cancelled");
+    }
+
+    // Collects the paths an explicit trace draws as separate polylines
+    private static final class PolylineSink implements CurveSink {
+        private final List<double[]> out;
+        private double[] current = new double[0];
+        private int size = 0;
+
+        PolylineSink(List<double[]> out) {
+            this.out = out;
+        }
+
+        @Override
+        public void setStroke(Color color, double lineWidth) {
+        }
+
+        @Override
+        public void beginPath() {
+            flush();
+        }
+
+        @Override
+        public void moveTo(double x, double y) {
+            flush();
+            lineTo(x, y);
+        }
+
+        @Override
+        public void lineTo(double x, double y) {
+            if (!Double.isFinite(x) || !Double.isFinite(y)) return;
+            if (size + 2 > current.length) current = Arrays.copyOf(current, Math.max(64, current.length * 2));
+            current[size++] = x;
+            current[size++] = y;
+        }
+
+        @Override
+        public void stroke() {
+            flush();
+        }
+
+        @Override
+        public void strokeLine(double x1, double y1, double x2, double y2) {
+            flush();
+            out.add(new double[]{x1, y1, x2, y2});
+        }
+
+        private void flush() {
+            if (size >= 4) out.add(Arrays.copyOf(current, size));
+            size = 0;
+        }
+    }
+
+    // Two decimals, no exponent, no trailing zeros; much cheaper than String.format over millions of points
+    private static String num(double v) {
+        long hundredths = Math.round(v * 100);
+        StringBuilder sb = new StringBuilder();
+        if (hundredths < 0) {
+            sb.append('-');
+            hundredths = -hundredths;
+        }
+        sb.append(hundredths / 100);
+        long frac = hundredths % 100;
+        if (frac != 0) {
+            sb.append('.').append(frac / 10);
+            if (frac % 10 != 0) sb.append(frac % 10);
+        }
+        return sb.toString();
+    }
+
+    private static String hex(Color c) {
+        return hex((int) Math.round(c.getRed() * 255) << 16 | (int) Math.round(c.getGreen() * 255) << 8
+                | (int) Math.round(c.getBlue() * 255));
+    }
+
+    private static String hex(int rgb) {
+        return String.format("#%06X", rgb & 0xffffff);
+    }
+}
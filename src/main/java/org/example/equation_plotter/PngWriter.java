@@ -0,0 +1,120 @@
+package org.example.equation_plotter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+// Minimal streaming PNG encoder (8-bit RGB). Rows go straight through the deflater into IDAT chunks,
+// so an image of any height is written with one row of memory; ImageIO would want the whole picture.
+final class PngWriter implements AutoCloseable {
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final DataOutputStream out;
+    private final int width;
+    private final int height;
+    private final DeflaterOutputStream deflated;
+    private final Deflater deflater = new Deflater(6);
+    private final byte[] row;
+    private final byte[] filtered;
+    private int rowsWritten = 0;
+
+    PngWriter(OutputStream target, int width, int height) throws IOException {
+        this.out = new DataOutputStream(target);
+        this.width = width;
+        this.height = height;
+        this.row = new byte[width * 3];
+        this.filtered = new byte[width * 3 + 1];
+
+        out.write(SIGNATURE);
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        DataOutputStream h = new DataOutputStream(header);
+        h.writeInt(width);
+        h.writeInt(height);
+        h.writeByte(8);  // bit depth
+        h.writeByte(2);  // colour type: RGB
+        h.writeByte(0);  // deflate
+        h.writeByte(0);  // adaptive filtering
+        h.writeByte(0);  // no interlace
+        writeChunk("IHDR", header.toByteArray(), header.size());
+        deflated = new DeflaterOutputStream(new IdatStream(), deflater, CHUNK_SIZE);
+    }
+
+    // One row of premultiplied ARGB pixels composited over an opaque background colour (0xRRGGBB)
+    void writeRow(int[] argb, int offset, int background) throws IOException {
+        int bgR = (background >> 16) & 0xff, bgG = (background >> 8) & 0xff, bgB = background & 0xff;
+        for (int x = 0, i = 0; x < width; x++) {
+            int p = argb[offset + x];
+            int inv = 255 - (p >>> 24);
+            row[i++] = (byte) Math.min(255, ((p >> 16) & 0xff) + (bgR * inv + 127) / 255);
+            row[i++] = (byte) Math.min(255, ((p >> 8) & 0xff) + (bgG * inv + 127) / 255);
+            row[i++] = (byte) Math.min(255, (p & 0xff) + (bgB * inv + 127) / 255);
+        }
+        // Sub filter: plots are mostly flat colour, which this turns into long runs of zeros
+        filtered[0] = 1;
+        for (int i = 0; i < row.length; i++) {
+            filtered[i + 1] = (byte) (row[i] - (i >= 3 ? row[i - 3] : 0));
+        }
+        deflated.write(filtered);
+        rowsWritten++;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (rowsWritten != height) throw new IOException("PNG has " + height + " rows but " + rowsWritten + " were written");
+        deflated.close(); // flushes the last IDAT
+        deflater.end();
+        writeChunk("IEND", new byte[0], 0);
+        out.flush();
+    }
+
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] typeBytes = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(typeBytes);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    // Collects compressed bytes and emits them as IDAT chunks of up to CHUNK_SIZE
+    private final class IdatStream extends OutputStream {
+        private final byte[] buffer = new byte[CHUNK_SIZE];
+        private int size = 0;
+
+        @Override
+        public void write(int b) throws IOException {
+            buffer[size++] = (byte) b;
+            if (size == buffer.length) flushChunk();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int n = Math.min(len, buffer.length - size);
+                System.arraycopy(b, off, buffer, size, n);
+                size += n;
+                off += n;
+                len -= n;
+                if (size == buffer.length) flushChunk();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (size > 0) flushChunk();
+        }
+
+        private void flushChunk() throws IOException {
+            writeChunk("IDAT", buffer, size);
+            size = 0;
+        }
+    }
+}
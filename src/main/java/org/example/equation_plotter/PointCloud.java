@@ -0,0 +1,172 @@
+package org.example.equation_plotter;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Spatial index over a PointSeries: the points are reordered by the cell of a power-of-two grid over
+// their bounding box, and a pyramid of per-cell counts (each level sums 2x2 cells of the one below)
+// sits on top. Zoomed out, a frame visits the pyramid level whose cells are about a pixel, so its cost
+// follows the pixel count, not the number of points; zoomed in, only the points of the cells in view
+// are touched. Both the index build and the per-frame binning run in parallel.
+final class PointCloud {
+    private static final int MAX_GRID = 1024;
+    private static final int POINTS_PER_CELL = 4;
+
+    private final double[] xs, ys;
+    private final double minX, minY, spanX, spanY;
+    private final int grid;            // cells per side at level 0
+    private final int[] cellStart;     // level 0: points of cell c are [cellStart[c], cellStart[c + 1])
+    private final int[][] counts;      // counts[k] has (grid >> k)^2 cells, row-major from minY up
+
+    // Reorders the series' arrays in place
+    PointCloud(PointSeries series) {
+        this.xs = series.xs;
+        this.ys = series.ys;
+        int n = series.size;
+        this.minX = n > 0 ? series.minX : 0;
+        this.minY = n > 0 ? series.minY : 0;
+        this.spanX = Math.max(series.maxX - minX, Math.ulp(minX) * 4 + Double.MIN_NORMAL);
+        this.spanY = Math.max(series.maxY - minY, Math.ulp(minY) * 4 + Double.MIN_NORMAL);
+
+        int g = 1;
+        while (g < MAX_GRID && (long) g * g * POINTS_PER_CELL < n) g *= 2;
+        grid = g;
+
+        // Cell of every point (parallel), then a counting sort by cell
+        int[] cellOf = new int[n];
+        IntStream.range(0, n).parallel().forEach(i -> cellOf[i] = cell(xs[i], ys[i]));
+        cellStart = new int[g * g + 1];
+        for (int i = 0; i < n; i++) cellStart[cellOf[i] + 1]++;
+        for (int c = 0; c < g * g; c++) cellStart[c + 1] += cellStart[c];
+        int[] fill = new int[g * g];
+        System.arraycopy(cellStart, 0, fill, 0, fill.length);
+        double[] sx = new double[n], sy = new double[n];
+        for (int i = 0; i < n; i++) {
+            int to = fill[cellOf[i]]++;
+            sx[to] = xs[i];
+            sy[to] = ys[i];
+        }
+        System.arraycopy(sx, 0, xs, 0, n);
+        System.arraycopy(sy, 0, ys, 0, n);
+
+        int levels = Integer.numberOfTrailingZeros(g) + 1;
+        counts = new int[levels][];
+        counts[0] = new int[g * g];
+        for (int c = 0; c < g * g; c++) counts[0][c] = cellStart[c + 1] - cellStart[c];
+        for (int k = 1; k < levels; k++) {
+            int[] below = counts[k - 1];
+            int side = g >> k, belowSide = side * 2;
+            int[] level = new int[side * side];
+            IntStream.range(0, side).parallel().forEach(r -> {
+                for (int c = 0; c < side; c++) {
+                    int b = 2 * r * belowSide + 2 * c;
+                    level[r * side + c] = below[b] + below[b + 1] + below[b + belowSide] + below[b + belowSide + 1];
+                }
+            });
+            counts[k] = level;
+        }
+    }
+
+    private int cell(double x, double y) {
+        int col = Math.clamp((long) ((x - minX) / spanX * grid), 0, grid - 1);
+        int row = Math.clamp((long) ((y - minY) / spanY * grid), 0, grid - 1);
+        return row * grid + col;
+    }
+
+    // Range of level-0 columns / rows that may hold points in [lo, hi]; empty when lo > hi
+    private int colOf(double x) {
+        return (int) Math.clamp(Math.floor((x - minX) / spanX * grid), -1, grid);
+    }
+
+    private int rowOf(double y) {
+        return (int) Math.clamp(Math.floor((y - minY) / spanY * grid), -1, grid);
+    }
+
+    // Upper bound on the points inside [x0, x1] x [y0, y1] (graph coordinates)
+    long countVisible(double x0, double y0, double x1, double y1) {
+        int c0 = Math.max(0, colOf(x0)), c1 = Math.min(grid - 1, colOf(x1));
+        int r0 = Math.max(0, rowOf(y0)), r1 = Math.min(grid - 1, rowOf(y1));
+        long total = 0;
+        for (int r = r0; r <= r1 && c0 <= c1; r++) total += cellStart[r * grid + c1 + 1] - cellStart[r * grid + c0];
+        return total;
+    }
+
+    interface PointAction {
+        void accept(double x, double y);
+    }
+
+    void forEachVisible(double x0, double y0, double x1, double y1, PointAction action) {
+        int c0 = Math.max(0, colOf(x0)), c1 = Math.min(grid - 1, colOf(x1));
+        int r0 = Math.max(0, rowOf(y0)), r1 = Math.min(grid - 1, rowOf(y1));
+        for (int r = r0; r <= r1 && c0 <= c1; r++) {
+            for (int i = cellStart[r * grid + c0], to = cellStart[r * grid + c1 + 1]; i < to; i++) {
+                if (xs[i] >= x0 && xs[i] <= x1 && ys[i] >= y0 && ys[i] <= y1) action.accept(xs[i], ys[i]);
+            }
+        }
+    }
+
+    // Points per pixel over a bw x bh bitmap whose top-left pixel shows graph point (left, top) at
+    // the given scale (pixels per unit). Rows are split into bands that are binned in parallel; every
+    // band only writes its own rows, so no two threads touch the same counter.
+    int[] density(double left, double top, double scale, int bw, int bh, ForkJoinPool pool) {
+        int[] bins = new int[bw * bh];
+        double right = left + bw / scale, bottom = top - bh / scale;
+
+        // Coarsest level whose cells are still at most a pixel; -1 when even level 0 is coarser
+        int level = -1;
+        for (int k = 0; k < counts.length; k++) {
+            int side = grid >> k;
+            if (spanX / side * scale <= 1 && spanY / side * scale <= 1) level = k;
+        }
+        final int lvl = level;
+
+        int bands = Math.min(bh, pool.getParallelism() * 4);
+        pool.submit(() -> IntStream.range(0, bands).parallel().forEach(b -> {
+            int py0 = (int) ((long) bh * b / bands), py1 = (int) ((long) bh * (b + 1) / bands);
+            double bandTop = top - py0 / scale, bandBottom = top - py1 / scale;
+            if (lvl >= 0) {
+                binCells(bins, lvl, left, top, scale, bw, py0, py1, left, bandBottom, right, bandTop);
+            } else {
+                binPoints(bins, left, top, scale, bw, py0, py1, left, bandBottom, right, bandTop);
+            }
+        })).join();
+        return bins;
+    }
+
+    // Each non-empty cell in view adds its count at the pixel under its centre
+    private void binCells(int[] bins, int k, double left, double top, double scale, int bw, int py0, int py1,
+                          double x0, double y0, double x1, double y1) {
+        int side = grid >> k;
+        double cellW = spanX / side, cellH = spanY / side;
+        int c0 = (int) Math.clamp(Math.floor((x0 - minX) / cellW), 0, side - 1);
+        int c1 = (int) Math.clamp(Math.floor((x1 - minX) / cellW), 0, side - 1);
+        int r0 = (int) Math.clamp(Math.floor((y0 - minY) / cellH), 0, side - 1);
+        int r1 = (int) Math.clamp(Math.floor((y1 - minY) / cellH), 0, side - 1);
+        int[] level = counts[k];
+        for (int r = r0; r <= r1; r++) {
+            int py = (int) Math.floor((top - (minY + (r + 0.5) * cellH)) * scale);
+            if (py < py0 || py >= py1) continue;
+            int rowBase = py * bw;
+            for (int c = c0; c <= c1; c++) {
+                int count = level[r * side + c];
+                if (count == 0) continue;
+                int px = (int) Math.floor((minX + (c + 0.5) * cellW - left) * scale);
+                if (px >= 0 && px < bw) bins[rowBase + px] += count;
+            }
+        }
+    }
+
+    // Zoomed in past the finest level: the points of the cells in view are binned one by one
+    private void binPoints(int[] bins, double left, double top, double scale, int bw, int py0, int py1,
+                           double x0, double y0, double x1, double y1) {
+        int c0 = Math.max(0, colOf(x0)), c1 = Math.min(grid - 1, colOf(x1));
+        int r0 = Math.max(0, rowOf(y0)), r1 = Math.min(grid - 1, rowOf(y1));
+        for (int r = r0; r <= r1 && c0 <= c1; r++) {
+            for (int i = cellStart[r * grid + c0], to = cellStart[r * grid + c1 + 1]; i < to; i++) {
+                int py = (int) Math.floor((top - ys[i]) * scale);
+                int px = (int) Math.floor((xs[i] - left) * scale);
+                if (py >= py0 && py < py1 && px >= 0 && px < bw) bins[py * bw + px]++;
+            }
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package org.example.equation_plotter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.stream.IntStream;
+
+// Reads large point data sets into a PointSeries. The file is memory mapped and split into one slice
+// per core; every slice is scanned in place (numbers are parsed straight from the mapped bytes, no line
+// or String objects) and the per-slice columns are concatenated at the end.
+//
+//   CSV / text: the first two numeric fields of each line are x and y. Fields may be separated by
+//               commas, semicolons, tabs or spaces; header, comment (#) and malformed lines are skipped.
+//   .bin / .f64: raw little-endian float64 pairs x0 y0 x1 y1 ... (numpy: a.astype('<f8').tofile(f))
+final class PointImporter {
+    private static final long MAX_SLICE = 1L << 30; // one mapping must stay below 2 GB
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+
+    private PointImporter() {
+    }
+
+    static boolean isBinary(Path path) {
+        String name = path.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".bin") || name.endsWith(".f64");
+    }
+
+    static PointSeries read(Path path, BooleanSupplier cancelled) throws IOException {
+        String name = path.getFileName().toString();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return isBinary(path) ? readBinary(name, channel, cancelled) : readCsv(name, channel, cancelled);
+        }
+    }
+
+    // --- BINARY ---
+    private static PointSeries readBinary(String name, FileChannel channel, BooleanSupplier cancelled) throws IOException {
+        long bytes = channel.size();
+        if (bytes % 16 != 0) throw new IOException(name + " is not a list of float64 x, y pairs");
+        long count = bytes / 16;
+        if (count > Integer.MAX_VALUE - 8) throw new IOException(name + " has more points than fit in memory");
+        int n = (int) count;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+
+        // Slices are whole pairs; each one is de-interleaved into its own range of the columns
+        long pairsPerSlice = Math.max(1, Math.min(MAX_SLICE / 16, (count + CORES - 1) / CORES));
+        int slices = (int) ((count + pairsPerSlice - 1) / pairsPerSlice);
+        IOException[] failure = new IOException[1];
+        IntStream.range(0, slices).parallel().forEach(s -> {
+            long first = s * pairsPerSlice;
+            int pairs = (int) Math.min(pairsPerSlice, count - first);
+            try {
+                DoubleBuffer values = channel.map(FileChannel.MapMode.READ_ONLY, first * 16, pairs * 16L)
+                        .order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+                double[] block = new double[Math.min(pairs, 1 << 15) * 2];
+                for (int done = 0; done < pairs; ) {
+                    if (cancelled.getAsBoolean()) throw new CancellationException();
+                    int m = Math.min(pairs - done, block.length / 2);
+                    values.get(block, 0, m * 2);
+                    int base = (int) first + done;
+                    for (int i = 0; i < m; i++) {
+                        xs[base + i] = block[2 * i];
+                        ys[base + i] = block[2 * i + 1];
+                    }
+                    done += m;
+                }
+            } catch (IOException e) {
+                synchronized (failure) {
+                    failure[0] = e;
+                }
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+        return compact(name, xs, ys, n);
+    }
+
+    // Drops NaN / infinite pairs in place
+    private static PointSeries compact(String name, double[] xs, double[] ys, int n) {
+        int kept = 0;
+        for (int i = 0; i < n; i++) {
+            if (Double.isFinite(xs[i]) && Double.isFinite(ys[i])) {
+                xs[kept] = xs[i];
+                ys[kept] = ys[i];
+                kept++;
+            }
+        }
+        return new PointSeries(name, xs, ys, kept);
+    }
+
+    // --- CSV ---
+    private static PointSeries readCsv(String name, FileChannel channel, BooleanSupplier cancelled) throws IOException {
+        long bytes = channel.size();
+        int slices = (int) Math.max(Math.min(CORES, Math.max(1, bytes / (1 << 20))), (bytes + MAX_SLICE - 1) / MAX_SLICE);
+        long[] bounds = new long[slices + 1];
+        bounds[slices] = bytes;
+        for (int s = 1; s < slices; s++) bounds[s] = nextLineStart(channel, Math.max(bounds[s - 1], bytes * s / slices));
+
+        List<Column> columns = new ArrayList<>(slices);
+        for (int s = 0; s < slices; s++) columns.add(new Column());
+        IOException[] failure = new IOException[1];
+        IntStream.range(0, slices).parallel().forEach(s -> {
+            long from = bounds[s], to = bounds[s + 1];
+            if (to <= from) return;
+            try {
+                MappedByteBuffer slice = channel.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+                parseLines(slice, columns.get(s), cancelled);
+            } catch (IOException e) {
+                synchronized (failure) {
+                    failure[0] = e;
+                }
+            }
+        });
+        if (failure[0] != null) throw failure[0];
+
+        long total = 0;
+        for (Column c : columns) total += c.size;
+        if (total > Integer.MAX_VALUE - 8) throw new IOException(name + " has more points than fit in memory");
+        double[] xs = new double[(int) total];
+        double[] ys = new double[(int) total];
+        int offset = 0;
+        for (Column c : columns) {
+            System.arraycopy(c.xs, 0, xs, offset, c.size);
+            System.arraycopy(c.ys, 0, ys, offset, c.size);
+            offset += c.size;
+        }
+        return new PointSeries(name, xs, ys, offset);
+    }
+
+    // First byte after the newline at or after pos (or the end of the file)
+    private static long nextLineStart(FileChannel channel, long pos) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(4096);
+        long size = channel.size();
+        while (pos < size) {
+            probe.clear();
+            int read = channel.read(probe, pos);
+            if (read <= 0) break;
+            for (int i = 0; i < read; i++) {
+                if (probe.get(i) == '\n') return pos + i + 1;
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    // Growable x / y columns for one slice
+    private static final class Column {
+        double[] xs = new double[1 << 12];
+        double[] ys = new double[1 << 12];
+        int size = 0;
+
+        void add(double x, double y) {
+            if (size == xs.length) {
+                xs = Arrays.copyOf(xs, size * 2);
+                ys = Arrays.copyOf(ys, size * 2);
+            }
+            xs[size] = x;
+            ys[size] = y;
+            size++;
+        }
+    }
+
+    private static void parseLines(ByteBuffer buf, Column out, BooleanSupplier cancelled) {
+        int end = buf.limit();
+        int pos = 0;
+        int lines = 0;
+        double[] parsed = new double[2];
+        while (pos < end) {
+            if ((++lines & 0xffff) == 0 && cancelled.getAsBoolean()) throw new CancellationException();
+            int lineEnd = pos;
+            while (lineEnd < end && buf.get(lineEnd) != '\n') lineEnd++;
+            if (parseFields(buf, pos, lineEnd, parsed)) out.add(parsed[0], parsed[1]);
+            pos = lineEnd + 1;
+        }
+    }
+
+    // Fills xy with the first two numeric fields of [from, to); false for headers, comments and junk
+    private static boolean parseFields(ByteBuffer buf, int from, int to, double[] xy) {
+        int found = 0;
+        int pos = from;
+        while (found < 2) {
+            while (pos < to && isSeparator(buf.get(pos))) pos++;
+            if (pos >= to || buf.get(pos) == '#') return false;
+            int fieldEnd = pos;
+            while (fieldEnd < to && !isSeparator(buf.get(fieldEnd))) fieldEnd++;
+            double v = parseNumber(buf, pos, fieldEnd);
+            if (!Double.isFinite(v)) return false;
+            xy[found++] = v;
+            pos = fieldEnd;
+        }
+        return true;
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ',' || b == ';' || b == '\t' || b == ' ' || b == '\r' || b == '"';
+    }
+
+    // Decimal number parsed in place. Up to 15 significant digits and a power of ten within 1e22 is
+    // exact in double arithmetic (the mantissa and the power are both exact, so one rounding);
+    // anything longer goes through Double.parseDouble. NaN when it is not a number.
+    private static double parseNumber(ByteBuffer buf, int from, int to) {
+        int pos = from;
+        boolean negative = false;
+        if (pos < to && (buf.get(pos) == '-' || buf.get(pos) == '+')) negative = buf.get(pos++) == '-';
+        long mantissa = 0;
+        int digits = 0, scale = 0;
+        boolean any = false, dot = false;
+        for (; pos < to; pos++) {
+            byte b = buf.get(pos);
+            if (b >= '0' && b <= '9') {
+                any = true;
+                if (digits > 0 || b != '0') {
+                    if (digits >= 18) return slowParse(buf, from, to);
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                }
+                if (dot) scale--;
+            } else if (b == '.' && !dot) {
+                dot = true;
+            } else {
+                break;
+            }
+        }
+        if (!any) return Double.NaN;
+        if (pos < to) {
+            byte b = buf.get(pos);
+            if (b != 'e' && b != 'E') return Double.NaN;
+            pos++;
+            boolean expNegative = false;
+            if (pos < to && (buf.get(pos) == '-' || buf.get(pos) == '+')) expNegative = buf.get(pos++) == '-';
+            if (pos >= to) return Double.NaN;
+            int exp = 0;
+            for (; pos < to; pos++) {
+                byte d = buf.get(pos);
+                if (d < '0' || d > '9') return Double.NaN;
+                if (exp < 10_000) exp = exp * 10 + (d - '0');
+            }
+            scale += expNegative ? -exp : exp;
+        }
+        if (digits > 15 || Math.abs(scale) > 22) return slowParse(buf, from, to);
+        double value = scale >= 0 ? mantissa * POW10[scale] : mantissa / POW10[-scale];
+        return negative ? -value : value;
+    }
+
+    private static double slowParse(ByteBuffer buf, int from, int to) {
+        byte[] bytes = new byte[to - from];
+        buf.get(from, bytes);
+        try {
+            return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
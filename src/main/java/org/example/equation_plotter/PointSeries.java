@@ -0,0 +1,36 @@
+package org.example.equation_plotter;
+
+import javafx.scene.paint.Color;
+
+// An imported data set drawn as one series: columnar x / y arrays (no object per point), the bounding
+// box and a PointCloud index, so millions of measurements fit next to the model curves.
+final class PointSeries {
+    final String name;
+    final double[] xs;
+    final double[] ys;
+    final int size;
+    final double minX, minY, maxX, maxY;
+    final PointCloud cloud;
+    Color color = Color.CYAN;
+
+    // Takes ownership of the arrays; only the first size entries are used
+    PointSeries(String name, double[] xs, double[] ys, int size) {
+        this.name = name;
+        this.xs = xs;
+        this.ys = ys;
+        this.size = size;
+        double x0 = Double.POSITIVE_INFINITY, y0 = Double.POSITIVE_INFINITY;
+        double x1 = Double.NEGATIVE_INFINITY, y1 = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < size; i++) {
+            x0 = Math.min(x0, xs[i]);
+            x1 = Math.max(x1, xs[i]);
+            y0 = Math.min(y0, ys[i]);
+            y1 = Math.max(y1, ys[i]);
+        }
+        minX = x0;
+        minY = y0;
+        maxX = x1;
+        maxY = y1;
+        cloud = new PointCloud(this); // reorders xs / ys by grid cell
+    }
+}
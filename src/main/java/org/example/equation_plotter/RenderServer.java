@@ -0,0 +1,456 @@
+package org.example.equation_plotter;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import javafx.scene.paint.Color;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Plots on demand over HTTP, one virtual thread per request.
+//
+//   GET  /render?eq=y%3Dsin(x)&eq=x^2%2By^2%3D4&x=-10,10&width=800&height=600&format=png
+//   POST /render?x=-10,10&format=svg          (body: one equation per line)
+//   GET  /stats
+//
+// Query options: width, height, x=MIN,MAX, center=X,Y, format=png|svg, grid=0|1, p=a:2.5 (slider value,
+// repeatable). Equations are parsed through the shared ParseCache, so repeated requests never re-parse.
+//
+// PNG is assembled from TILE x TILE tiles on a grid fixed in world pixels (graph units * scale), cached
+// across requests: panning a dashboard view only renders the newly exposed tiles. Tiles trace their
+// implicit curves on a grid anchored at the origin so neighbours join exactly. SVG responses are cached whole.
+//
+// Every request has an evaluation budget: an up-front estimate of samples is refused with 422 if too
+// large, and rendering is cancelled with 503 once the request's time budget runs out. Requests being
+// rendered hold their pixel count from a shared pool, so the image buffers in memory stay bounded;
+// a request that does not fit is refused with 503 rather than queued.
+public final class RenderServer {
+    static final int TILE = 256;
+    private static final int MAX_SIZE = 4096;
+    private static final int MAX_EQUATIONS = 32;
+    private static final int TILE_CACHE_TILES = 1024;   // 256 KB each
+    private static final int SVG_CACHE_ENTRIES = 128;
+    private static final int COMPILED_CACHE_ENTRIES = 512;
+    private static final int DEFAULT_MAX_PIXELS = 64 << 20; // about 256 MB of image buffers
+    private static final List<Color> COLORS = List.of(Color.RED, Color.BLUE, Color.GREEN, Color.ORANGE, Color.PURPLE, Color.BLACK);
+
+    private final HttpServer server;
+    private final long maxSamples;
+    private final long budgetMs;
+    private final Semaphore pixels;
+
+    private final Map<TileKey, TileJob> tiles = lru(TILE_CACHE_TILES);
+    private final Map<String, byte[]> svgs = lru(SVG_CACHE_ENTRIES);
+    // Frozen, compiled parsers per (equation, slider values); safe to share since they are immutable
+    private final Map<String, EquationParser> compiled = lru(COMPILED_CACHE_ENTRIES);
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong tileHits = new AtomicLong();
+    private final AtomicLong tileMisses = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+
+    private record TileKey(String scene, double scale, long col, long row) {
+    }
+
+    // A tile and the latest deadline of the requests waiting for it: the render is only cancelled once
+    // every one of them has run out of time, not when the request that happened to start it does
+    private record TileJob(CompletableFuture<int[]> future, AtomicLong deadline) {
+    }
+
+    private static <K, V> Map<K, V> lru(int capacity) {
+        return new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    public RenderServer(int port, long maxSamples, long budgetMs) throws IOException {
+        this(port, maxSamples, budgetMs, DEFAULT_MAX_PIXELS);
+    }
+
+    // maxPixels bounds the width * height summed over the requests rendering at once
+    public RenderServer(int port, long maxSamples, long budgetMs, int maxPixels) throws IOException {
+        if (maxPixels < MAX_SIZE * MAX_SIZE) throw new IllegalArgumentException("max pixels below one " + MAX_SIZE + "x" + MAX_SIZE + " image");
+        this.maxSamples = maxSamples;
+        this.budgetMs = budgetMs;
+        this.pixels = new Semaphore(maxPixels);
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/render", this::handleRender);
+        server.createContext("/stats", this::handleStats);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    //   --port N          (default 8080; 0 picks a free port)
+    //   --max-samples N   evaluation budget per request (default 50M)
+    //   --budget-ms N     time budget per request (default 10000)
+    //   --max-pixels N    pixels rendering at once over all requests (default 64M)
+    public static void main(String[] args) throws IOException {
+        int port = 8080, maxPixels = DEFAULT_MAX_PIXELS;
+        long maxSamples = 50_000_000L, budgetMs = 10_000;
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--port" -> port = Integer.parseInt(value(args, ++i, arg));
+                case "--max-samples" -> maxSamples = Long.parseLong(value(args, ++i, arg));
+                case "--budget-ms" -> budgetMs = Long.parseLong(value(args, ++i, arg));
+                case "--max-pixels" -> maxPixels = Integer.parseInt(value(args, ++i, arg));
+                default -> throw new IllegalArgumentException("unknown option " + arg);
+            }
+        }
+        RenderServer server = new RenderServer(port, maxSamples, budgetMs, maxPixels);
+        server.start();
+        System.out.println("Render server listening on http://127.0.0.1:" + server.port() + "/render");
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) throw new IllegalArgumentException(option + " needs a value");
+        return args[i];
+    }
+
+    // --- REQUESTS ---
+    private record Request(List<String> equations, Map<Character, Double> params, int width, int height,
+                           double cx, double cy, double scale, boolean svg, boolean grid) {
+        // Everything except the viewport, so requests over the same scene share tiles
+        String scene() {
+            return String.join("\n", equations) + "|" + params + "|" + grid;
+        }
+    }
+
+    private static final class BadRequest extends Exception {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        BadRequest(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private void handleRender(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            try {
+                Request request = parseRequest(exchange);
+                long deadline = System.nanoTime() + budgetMs * 1_000_000;
+                List<PlotExporter.Curve> curves = compile(request);
+                checkBudget(curves, request);
+
+                int size = request.width() * request.height();
+                if (!pixels.tryAcquire(size)) {
+                    exchange.getResponseHeaders().set("Retry-After", "1");
+                    throw new BadRequest(503, "Server busy, try again");
+                }
+                byte[] body;
+                String type;
+                try {
+                    if (request.svg()) {
+                        body = renderSvg(request, curves, deadline);
+                        type = "image/svg+xml";
+                    } else {
+                        body = renderPng(request, curves, deadline);
+                        type = "image/png";
+                    }
+                } finally {
+                    pixels.release(size);
+                }
+                exchange.getResponseHeaders().set("Content-Type", type);
+                exchange.sendResponseHeaders(200, body.length);
+                exchange.getResponseBody().write(body);
+            } catch (BadRequest e) {
+                rejected.incrementAndGet();
+                sendText(exchange, e.status, e.getMessage());
+            } catch (CancellationException e) {
+                rejected.incrementAndGet();
+                sendText(exchange, 503, "Time budget of " + budgetMs + " ms exceeded");
+            } catch (RuntimeException e) {
+                sendText(exchange, 500, String.valueOf(e.getMessage()));
+            }
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            long hits = tileHits.get(), misses = tileMisses.get();
+            int cachedTiles;
+            synchronized (tiles) {
+                cachedTiles = tiles.size();
+            }
+            sendText(exchange, 200, String.format(Locale.ROOT,
+                    "requests %d%nrejected %d%ntile_hits %d%ntile_misses %d%ntile_hit_rate %.3f%ncached_tiles %d%n",
+                    requests.get(), rejected.get(), hits, misses, hits + misses == 0 ? 0.0 : (double) hits / (hits + misses),
+                    cachedTiles));
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] body = (text + "\n").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private Request parseRequest(HttpExchange exchange) throws IOException, BadRequest {
+        Map<String, List<String>> query = new TreeMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw != null) {
+            for (String part : raw.split("&")) {
+                if (part.isEmpty()) continue;
+                int eq = part.indexOf('=');
+                String key = URLDecoder.decode(eq < 0 ? part : part.substring(0, eq), StandardCharsets.UTF_8);
+                String value = eq < 0 ? "" : URLDecoder.decode(part.substring(eq + 1), StandardCharsets.UTF_8);
+                query.computeIfAbsent(key, k -> new ArrayList<>()).add(value);
+            }
+        }
+
+        List<String> equations = new ArrayList<>(query.getOrDefault("eq", List.of()));
+        if (exchange.getRequestMethod().equalsIgnoreCase("POST")) {
+            String text = new String(exchange.getRequestBody().readNBytes(1 << 20), StandardCharsets.UTF_8);
+            text.lines().forEach(equations::add);
+        }
+        equations.replaceAll(ParseCache::normalize);
+        equations.removeIf(String::isEmpty);
+        if (equations.isEmpty()) throw new BadRequest(400, "No equations given");
+        if (equations.size() > MAX_EQUATIONS) throw new BadRequest(400, "At most " + MAX_EQUATIONS + " equations per request");
+
+        int width = intParam(query, "width", 800);
+        int height = intParam(query, "height", 600);
+        double[] x = pairParam(query, "x", new double[]{-10, 10});
+        if (!(x[1] > x[0])) throw new BadRequest(400, "x needs MIN < MAX");
+        double[] center = pairParam(query, "center", new double[]{(x[0] + x[1]) / 2, 0});
+        String format = first(query, "format", "png").toLowerCase(Locale.ROOT);
+        if (!format.equals("png") && !format.equals("svg")) throw new BadRequest(400, "format must be png or svg");
+        boolean grid = !first(query, "grid", "1").equals("0");
+
+        Map<Character, Double> params = new TreeMap<>();
+        for (String p : query.getOrDefault("p", List.of())) {
+            int colon = p.indexOf(':');
+            if (colon != 1) throw new BadRequest(400, "Parameter must look like a:1.5");
+            try {
+                params.put(p.charAt(0), Double.parseDouble(p.substring(2)));
+            } catch (NumberFormatException e) {
+                throw new BadRequest(400, "Bad parameter value " + p);
+            }
+        }
+        return new Request(equations, params, width, height, center[0], center[1], width / (x[1] - x[0]),
+                format.equals("svg"), grid);
+    }
+
+    private static String first(Map<String, List<String>> query, String key, String fallback) {
+        List<String> values = query.get(key);
+        return values == null || values.isEmpty() ? fallback : values.getFirst();
+    }
+
+    private static int intParam(Map<String, List<String>> query, String key, int fallback) throws BadRequest {
+        try {
+            int v = Integer.parseInt(first(query, key, String.valueOf(fallback)));
+            if (v > 0 && v <= MAX_SIZE) return v;
+        } catch (NumberFormatException ignored) {
+        }
+        throw new BadRequest(400, key + " must be between 1 and " + MAX_SIZE);
+    }
+
+    private static double[] pairParam(Map<String, List<String>> query, String key, double[] fallback) throws BadRequest {
+        String value = first(query, key, null);
+        if (value == null) return fallback;
+        String[] parts = value.split(",");
+        try {
+            if (parts.length == 2) {
+                double a = Double.parseDouble(parts[0].trim()), b = Double.parseDouble(parts[1].trim());
+                if (Double.isFinite(a) && Double.isFinite(b)) return new double[]{a, b};
+            }
+        } catch (NumberFormatException ignored) {
+        }
+        throw new BadRequest(400, key + " needs two comma separated numbers");
+    }
+
+    // Parses through the shared ParseCache and freezes slider values (request values override the
+    // defaults); the frozen result is cached too, so a repeated request compiles nothing
+    private List<PlotExporter.Curve> compile(Request request) throws BadRequest {
+        List<PlotExporter.Curve> curves = new ArrayList<>();
+        for (int i = 0; i < request.equations().size(); i++) {
+            String text = ParseCache.normalize(request.equations().get(i)); // same keys as the editor
+            String key = text + "|" + request.params();
+            EquationParser frozen;
+            synchronized (compiled) {
+                frozen = compiled.get(key);
+            }
+            if (frozen == null) {
+                EquationParser parser = ParseCache.obtain(text);
+                if (!parser.isValid()) throw new BadRequest(400, "Equation " + (i + 1) + ": " + parser.getErrorMessage());
+                Map<Character, Double> values = new TreeMap<>(parser.getParameterValues());
+                request.params().forEach((name, value) -> {
+                    if (values.containsKey(name)) values.put(name, value);
+                });
+                frozen = parser.bind(values);
+                synchronized (compiled) {
+                    compiled.put(key, frozen);
+                }
+            }
+            if (frozen.getPoints() != null) continue;
+            curves.add(new PlotExporter.Curve(frozen, COLORS.get(i % COLORS.size())));
+        }
+        return curves;
+    }
+
+    // Explicit curves cost a sample per column per branch; implicit ones a coarse grid plus refinement
+    // of the crossing cells, estimated here as one fine cell row per coarse column
+    private void checkBudget(List<PlotExporter.Curve> curves, Request request) throws BadRequest {
+        long w = request.width(), h = request.height();
+        long samples = 0;
+        for (PlotExporter.Curve curve : curves) {
+            EquationParser parser = curve.parser();
+            if (parser.isImplicit()) samples += (w / 15 + 2) * (h / 15 + 2) * 4 + (w + h) * 100L;
+            else samples += w * parser.getBranchCount();
+        }
+        if (samples > maxSamples) {
+            throw new BadRequest(422, "Request needs about " + samples + " evaluations, budget is " + maxSamples);
+        }
+    }
+
+    // --- RENDERING ---
+    private byte[] renderSvg(Request request, List<PlotExporter.Curve> curves, long deadline) throws IOException {
+        String key = request.scene() + "|" + request.width() + "x" + request.height() + "|" + request.cx() + ","
+                + request.cy() + "|" + request.scale();
+        synchronized (svgs) {
+            byte[] cached = svgs.get(key);
+            if (cached != null) return cached;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputStreamWriter writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+        new PlotExporter(curves, request.cx(), request.cy(), request.scale(), request.width(), request.height())
+                .grid(request.grid()).cancelWhen(() -> System.nanoTime() > deadline).writeSvg(writer);
+        byte[] body = bytes.toByteArray();
+        synchronized (svgs) {
+            svgs.put(key, body);
+        }
+        return body;
+    }
+
+    private byte[] renderPng(Request request, List<PlotExporter.Curve> curves, long deadline) throws IOException {
+        int width = request.width(), height = request.height();
+        double scale = request.scale();
+        // The view's top-left corner in world pixels (x right, y down), rounded to whole pixels so tiles line up
+        long left = Math.round(request.cx() * scale - width / 2.0);
+        long top = Math.round(-request.cy() * scale - height / 2.0);
+        long col0 = Math.floorDiv(left, TILE), col1 = Math.floorDiv(left + width - 1, TILE);
+        long row0 = Math.floorDiv(top, TILE), row1 = Math.floorDiv(top + height - 1, TILE);
+        String scene = request.scene();
+
+        // Start every tile first so missing ones render in parallel, then wait for them
+        List<CompletableFuture<int[]>> pending = new ArrayList<>();
+        for (long row = row0; row <= row1; row++) {
+            for (long col = col0; col <= col1; col++) {
+                pending.add(tile(new TileKey(scene, scale, col, row), curves, request.grid(), deadline));
+            }
+        }
+
+        int[] image = new int[width * height];
+        int k = 0;
+        for (long row = row0; row <= row1; row++) {
+            for (long col = col0; col <= col1; col++) {
+                int[] tile = await(new TileKey(scene, scale, col, row), pending.get(k++), curves, request.grid(), deadline);
+                // Copy the part of this tile that falls inside the view
+                long tileX = col * TILE, tileY = row * TILE;
+                int x0 = (int) Math.max(left, tileX), x1 = (int) Math.min(left + width, tileX + TILE);
+                int y0 = (int) Math.max(top, tileY), y1 = (int) Math.min(top + height, tileY + TILE);
+                for (long y = y0; y < y1; y++) {
+                    System.arraycopy(tile, (int) ((y - tileY) * TILE + (x0 - tileX)),
+                            image, (int) ((y - top) * width + (x0 - left)), x1 - x0);
+                }
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PngWriter png = new PngWriter(bytes, width, height)) {
+            for (int y = 0; y < height; y++) png.writeRow(image, y * width, 0x1e1e1e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // Waits for a tile until this request's own deadline. A tile cancelled on the budget of the requests
+    // that were waiting for it is started again while this one still has time.
+    private int[] await(TileKey key, CompletableFuture<int[]> future, List<PlotExporter.Curve> curves, boolean grid,
+                        long deadline) {
+        while (true) {
+            try {
+                return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                throw new CancellationException("time budget exceeded");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CancellationException("interrupted");
+            } catch (CancellationException e) {
+                if (System.nanoTime() > deadline) throw e;
+                future = tile(key, curves, grid, deadline);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw new CompletionException(e.getCause());
+            }
+        }
+    }
+
+    private CompletableFuture<int[]> tile(TileKey key, List<PlotExporter.Curve> curves, boolean grid, long deadline) {
+        TileJob job;
+        synchronized (tiles) {
+            job = tiles.get(key);
+            if (job != null && !job.future().isCompletedExceptionally()) {
+                // Joining a tile in flight extends its budget to this request's deadline
+                job.deadline().accumulateAndGet(deadline, Math::max);
+                tileHits.incrementAndGet();
+                return job.future();
+            }
+            job = new TileJob(new CompletableFuture<>(), new AtomicLong(deadline));
+            tiles.put(key, job);
+        }
+        tileMisses.incrementAndGet();
+        TileJob started = job;
+        CompletableFuture<int[]> result = job.future();
+        CompletableFuture.runAsync(() -> {
+            try {
+                double cx = (key.col() * TILE + TILE / 2.0) / key.scale();
+                double cy = -(key.row() * TILE + TILE / 2.0) / key.scale();
+                result.complete(new PlotExporter(curves, cx, cy, key.scale(), TILE, TILE).grid(grid).anchor(0, 0)
+                        .cancelWhen(() -> System.nanoTime() > started.deadline().get()).renderPixels());
+            } catch (RuntimeException e) {
+                // A tile that ran out of budget is dropped so the next request can try again
+                synchronized (tiles) {
+                    tiles.remove(key, started);
+                }
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,180 @@
+package org.example.equation_plotter;
+
+import javafx.scene.paint.Color;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Binary workspace (.eqw): the view, every row's equation, colour and slider state, and optionally the
+// geometry that was on screen (explicit samples and traced implicit segments). Reading maps the file
+// and bulk-copies the geometry arrays, so a large workspace is back on screen before anything is
+// re-evaluated; the plotter recomputes in the background as usual once the view changes.
+//
+// Layout (big-endian):
+//   "EQWS" version:int  cx:double cy:double scale:double  rows:int
+//   per row: text:utf  argb:int  params:int {name:char value min max:double}*  flags:byte
+//            [explicit] branches:int size:int step xStart visibleWidth width:double  y:double[branches*size]
+//            [implicit] scale cx cy:double  segments:int  xy:double[segments*4]
+final class Workspace {
+    private static final int MAGIC = 0x45515753; // "EQWS"
+    private static final int VERSION = 1;
+    private static final byte HAS_EXPLICIT = 1;
+    private static final byte HAS_IMPLICIT = 2;
+
+    record Param(double value, double min, double max) {
+    }
+
+    // samples / implicit are null when not stored (or not computed yet at save time)
+    record Row(String text, Color color, Map<Character, Param> params,
+               EquationData.Samples samples, CachedImplicit implicit) {
+    }
+
+    final double cx, cy, scale;
+    final List<Row> rows;
+
+    Workspace(double cx, double cy, double scale, List<Row> rows) {
+        this.cx = cx;
+        this.cy = cy;
+        this.scale = scale;
+        this.rows = rows;
+    }
+
+    static boolean isWorkspace(Path path) {
+        return path.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".eqw");
+    }
+
+    void write(Path path, boolean includeGeometry) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeDouble(cx);
+            out.writeDouble(cy);
+            out.writeDouble(scale);
+            out.writeInt(rows.size());
+            for (Row row : rows) {
+                out.writeUTF(row.text());
+                out.writeInt(argb(row.color()));
+                out.writeInt(row.params().size());
+                for (Map.Entry<Character, Param> p : row.params().entrySet()) {
+                    out.writeChar(p.getKey());
+                    out.writeDouble(p.getValue().value());
+                    out.writeDouble(p.getValue().min());
+                    out.writeDouble(p.getValue().max());
+                }
+
+                EquationData.Samples samples = includeGeometry ? row.samples() : null;
+                CachedImplicit implicit = includeGeometry ? row.implicit() : null;
+                out.writeByte((samples != null ? HAS_EXPLICIT : 0) | (implicit != null ? HAS_IMPLICIT : 0));
+                if (samples != null) {
+                    out.writeInt(samples.yCache.length);
+                    out.writeInt(samples.size);
+                    out.writeDouble(samples.step);
+                    out.writeDouble(samples.xStart);
+                    out.writeDouble(samples.visibleWidth);
+                    out.writeDouble(samples.width);
+                    for (double[] branch : samples.yCache) {
+                        for (double y : branch) out.writeDouble(y);
+                    }
+                }
+                if (implicit != null) {
+                    out.writeDouble(implicit.scale);
+                    out.writeDouble(implicit.cx);
+                    out.writeDouble(implicit.cy);
+                    out.writeInt(implicit.lines.size());
+                    for (double[] line : implicit.lines) {
+                        for (int k = 0; k < 4; k++) out.writeDouble(line[k]);
+                    }
+                }
+            }
+        }
+    }
+
+    static Workspace read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                if (buf.getInt() != MAGIC) throw new IOException(path.getFileName() + " is not a workspace file");
+                int version = buf.getInt();
+                if (version != VERSION) throw new IOException("unsupported workspace version " + version);
+                double cx = buf.getDouble(), cy = buf.getDouble(), scale = buf.getDouble();
+                int count = buf.getInt();
+                List<Row> rows = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) rows.add(readRow(buf));
+                return new Workspace(cx, cy, scale, rows);
+            } catch (java.nio.BufferUnderflowException | IllegalArgumentException e) {
+                throw new IOException(path.getFileName() + " is truncated or corrupt", e);
+            }
+        }
+    }
+
+    private static Row readRow(ByteBuffer buf) {
+        String text = readUTF(buf);
+        Color color = color(buf.getInt());
+        int paramCount = buf.getInt();
+        Map<Character, Param> params = new LinkedHashMap<>();
+        for (int p = 0; p < paramCount; p++) {
+            char name = buf.getChar();
+            params.put(name, new Param(buf.getDouble(), buf.getDouble(), buf.getDouble()));
+        }
+
+        byte flags = buf.get();
+        EquationData.Samples samples = null;
+        CachedImplicit implicit = null;
+        if ((flags & HAS_EXPLICIT) != 0) {
+            int branches = buf.getInt(), size = buf.getInt();
+            double step = buf.getDouble(), xStart = buf.getDouble();
+            double visibleWidth = buf.getDouble(), width = buf.getDouble();
+            double[][] yCache = new double[branches][size];
+            for (double[] branch : yCache) readDoubles(buf, branch);
+            samples = new EquationData.Samples(yCache, step, xStart, visibleWidth, width);
+        }
+        if ((flags & HAS_IMPLICIT) != 0) {
+            double scale = buf.getDouble(), cx = buf.getDouble(), cy = buf.getDouble();
+            int segments = buf.getInt();
+            double[] xy = new double[segments * 4];
+            readDoubles(buf, xy);
+            List<double[]> lines = new ArrayList<>(segments);
+            for (int s = 0; s < segments; s++) {
+                lines.add(new double[]{xy[s * 4], xy[s * 4 + 1], xy[s * 4 + 2], xy[s * 4 + 3]});
+            }
+            implicit = new CachedImplicit(lines, scale, cx, cy);
+        }
+        return new Row(text, color, params, samples, implicit);
+    }
+
+    // One bulk copy straight out of the mapping instead of a getDouble() per value
+    private static void readDoubles(ByteBuffer buf, double[] target) {
+        buf.asDoubleBuffer().get(target);
+        buf.position(buf.position() + target.length * Double.BYTES);
+    }
+
+    // Counterpart of DataOutputStream.writeUTF (modified UTF-8 is plain UTF-8 for anything typed here)
+    private static String readUTF(ByteBuffer buf) {
+        int length = buf.getShort() & 0xffff;
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int argb(Color c) {
+        return (int) Math.round(c.getOpacity() * 255) << 24 | (int) Math.round(c.getRed() * 255) << 16
+                | (int) Math.round(c.getGreen() * 255) << 8 | (int) Math.round(c.getBlue() * 255);
+    }
+
+    private static Color color(int argb) {
+        return Color.rgb((argb >> 16) & 0xff, (argb >> 8) & 0xff, argb & 0xff, ((argb >>> 24) & 0xff) / 255.0);
+    }
+}
@@ -0,0 +1,80 @@
+package org.example.equation_plotter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Fits against data generated from known parameters; the slider defaults are the starting point
+class CurveFitterTest {
+    private static PointSeries generate(int n, double from, double to, double noise, long seed,
+                                        java.util.function.DoubleUnaryOperator f) {
+        Random rnd = new Random(seed);
+        double[] xs = new double[n], ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = from + (to - from) * i / (n - 1);
+            ys[i] = f.applyAsDouble(xs[i]) + noise * rnd.nextGaussian();
+        }
+        return new PointSeries("generated", xs, ys, n);
+    }
+
+    @Test
+    void recoversExponentialParameters() {
+        PointSeries data = generate(5_000, -2, 6, 0, 1, x -> 2 * Math.exp(-0.5 * x) + 1);
+        EquationParser parser = new EquationParser("y=a*exp(b*x)+c");
+        // Slider defaults are 1; a growing exponential start slides into the a*exp(b*x) ~ linear valley
+        parser.getParameters().get('b').setArgumentValue(-1);
+        CurveFitter.Result result = new CurveFitter(parser, data).fit();
+
+        assertTrue(result.converged());
+        assertEquals(2, result.values().get('a'), 1e-5);
+        assertEquals(-0.5, result.values().get('b'), 1e-5);
+        assertEquals(1, result.values().get('c'), 1e-5);
+        assertTrue(result.rms() < 1e-6, () -> "rms " + result.rms());
+    }
+
+    // With noise the answer is the least-squares line, which has a closed form to compare against
+    @Test
+    void noisyLineMatchesOrdinaryLeastSquares() {
+        PointSeries data = generate(20_000, -10, 10, 0.3, 2, x -> 1.5 * x - 4);
+        CurveFitter.Result result = new CurveFitter(new EquationParser("y=a*x+b"), data).fit();
+
+        double sx = 0, sy = 0, sxx = 0, sxy = 0;
+        for (int i = 0; i < data.size; i++) {
+            sx += data.xs[i];
+            sy += data.ys[i];
+            sxx += data.xs[i] * data.xs[i];
+            sxy += data.xs[i] * data.ys[i];
+        }
+        double slope = (data.size * sxy - sx * sy) / (data.size * sxx - sx * sx);
+        double intercept = (sy - slope * sx) / data.size;
+
+        assertTrue(result.converged());
+        assertEquals(slope, result.values().get('a'), 1e-6);
+        assertEquals(intercept, result.values().get('b'), 1e-6);
+        assertEquals(0.3, result.rms(), 0.01);
+    }
+
+    @Test
+    void rejectsImplicitAndParameterFreeEquations() {
+        PointSeries data = generate(10, 0, 1, 0, 3, x -> x);
+        assertThrows(IllegalArgumentException.class, () -> new CurveFitter(new EquationParser("y=2x"), data));
+        assertThrows(IllegalArgumentException.class, () -> new CurveFitter(new EquationParser("sin(x*y)=a"), data));
+    }
+
+    @Test
+    void startsFromTheSliderValues() {
+        PointSeries data = generate(2_000, 0.1, 5, 0, 4, x -> 3 * Math.sin(0.8 * x));
+        EquationParser parser = new EquationParser("y=a*sin(b*x)");
+        // A start near the answer keeps the fit off the other local minima of a frequency fit
+        parser.getParameters().get('a').setArgumentValue(2.5);
+        parser.getParameters().get('b').setArgumentValue(0.9);
+        Map<Character, Double> values = new CurveFitter(parser, data).fit().values();
+        assertEquals(3, values.get('a'), 1e-5);
+        assertEquals(0.8, values.get('b'), 1e-6);
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.equation_plotter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Parses equations the way the editor does and checks what they evaluate to
+class EquationParserTest {
+    private static final double EPS = 1e-12;
+
+    private static EquationParser parse(String equation) {
+        EquationParser parser = new EquationParser(equation);
+        assertTrue(parser.isValid(), () -> equation + ": " + parser.getErrorMessage());
+        return parser;
+    }
+
+    // The lexer's fast path must round exactly like the JDK, and longer literals go to the JDK anyway
+    @Test
+    void numberLiteralsMatchParseDouble() {
+        String[] literals = {"0.1", "123.456", ".5", "3.", "007", "0.000001", "999999999999999",
+                "1234567890.1234567890", "0.30000000000000004"};
+        for (String literal : literals) {
+            assertEquals(Double.parseDouble(literal), parse("y=" + literal).evaluateExplicit(0), literal);
+        }
+
+        Random rnd = new Random(1);
+        for (int i = 0; i < 20_000; i++) {
+            StringBuilder digits = new StringBuilder();
+            int length = 1 + rnd.nextInt(18);
+            for (int d = 0; d < length; d++) digits.append((char) ('0' + rnd.nextInt(10)));
+            digits.insert(rnd.nextInt(length + 1), '.');
+            String literal = digits.toString();
+            if (literal.equals(".")) continue;
+            assertEquals(Double.parseDouble(literal), parse("y=" + literal).evaluateExplicit(0), literal);
+        }
+    }
+
+    @Test
+    void secondDecimalPointIsRejected() {
+        EquationParser parser = new EquationParser("y=1.2.3");
+        assertFalse(parser.isValid());
+        assertEquals("Second decimal point in number", parser.getErrorMessage());
+        assertEquals(5, parser.getErrorPosition());
+
+        EquationParser lone = new EquationParser("y=.");
+        assertFalse(lone.isValid());
+        assertEquals(2, lone.getErrorPosition());
+    }
+
+    @Test
+    void quadraticBranchesAreTheLowerAndUpperRoot() {
+        EquationParser circle = parse("x^2+y^2=25");
+        assertEquals(2, circle.getBranchCount());
+        assertEquals(-4, circle.evaluateBranch(3, 0), EPS);
+        assertEquals(4, circle.evaluateBranch(3, 1), EPS);
+        assertEquals(-5, circle.evaluateBranch(0, 0), EPS);
+        // No real root outside the circle
+        assertTrue(Double.isNaN(circle.evaluateBranch(6, 0)));
+        assertTrue(Double.isNaN(circle.evaluateBranch(6, 1)));
+    }
+
+    // x*y^2 + y = 1: the y^2 coefficient vanishes at x = 0, where the equation is linear with y = 1
+    @Test
+    void vanishingSquareTermFallsBackToTheLinearRoot() {
+        EquationParser parser = parse("x*y^2+y=1");
+        assertEquals(2, parser.getBranchCount());
+        assertEquals(1, parser.evaluateBranch(0, 0), EPS);
+        assertTrue(Double.isNaN(parser.evaluateBranch(0, 1)));
+
+        // Either side of x = 0 the roots are (-1 -+ sqrt(1 + 4x)) / 2x
+        assertEquals(-1, parser.evaluateBranch(2, 0), EPS);
+        assertEquals(0.5, parser.evaluateBranch(2, 1), EPS);
+        assertEquals((Math.sqrt(5) - 1) / 2, parser.evaluateBranch(1, 1), EPS);
+        double x = 1e-9; // the root near 1 must not blow up as the y^2 term shrinks
+        assertEquals((-1 + Math.sqrt(1 + 4 * x)) / (2 * x), parser.evaluateBranch(x, 1), 1e-6);
+        assertTrue(Double.isNaN(parser.evaluateBranch(-2, 0))); // discriminant 1 - 8 < 0
+    }
+
+    @Test
+    void domainBoundsRestrictExplicitCurves() {
+        EquationParser parser = parse("y=x{-1<x<=2}");
+        assertArrayEquals(new double[]{-1, 2}, parser.getLimitRange('x'));
+        assertTrue(Double.isNaN(parser.evaluateExplicit(-1)));
+        assertEquals(0, parser.evaluateExplicit(0));
+        assertEquals(2, parser.evaluateExplicit(2));
+        assertTrue(Double.isNaN(parser.evaluateExplicit(2.5)));
+
+        EquationParser unrestricted = parse("y=x");
+        assertArrayEquals(new double[]{Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY}, unrestricted.getLimitRange('x'));
+    }
+
+    // Bounds may reference sliders and follow their current value
+    @Test
+    void domainBoundsFollowParameters() {
+        EquationParser parser = parse("y=x{x<a}");
+        double a = parser.getParameterValues().get('a');
+        assertArrayEquals(new double[]{Double.NEGATIVE_INFINITY, a}, parser.getLimitRange('x'));
+
+        EquationParser bound = parser.bind(Map.of('a', 3.0));
+        assertArrayEquals(new double[]{Double.NEGATIVE_INFINITY, 3}, bound.getLimitRange('x'));
+        assertEquals(2.5, bound.evaluateExplicit(2.5));
+        assertTrue(Double.isNaN(bound.evaluateExplicit(3)));
+    }
+
+    // x*y > 0 is not an interval, so it is checked per point on top of the (empty) box
+    @Test
+    void nonIntervalRestrictionsAreCheckedPerPoint() {
+        EquationParser parser = parse("x^2+y^2=4{x*y>0}");
+        assertEquals(-2, parser.evaluateImplicit(1, 1), EPS);
+        assertTrue(Double.isNaN(parser.evaluateImplicit(1, -1)));
+        assertEquals(Math.sqrt(3), parser.evaluateBranch(1, 1), EPS);
+        assertTrue(Double.isNaN(parser.evaluateBranch(1, 0)));
+    }
+
+    @Test
+    void derivativesMatchTheirClosedForms() {
+        EquationParser poly = parse("y=d/dx(3x^2+ln x)");
+        EquationParser prime = parse("f'(x)=x^3");
+        EquationParser sine = parse("y=d/dx(sin(x))");
+        for (double x = 0.25; x < 5; x += 0.25) {
+            assertEquals(6 * x + 1 / x, poly.evaluateExplicit(x), EPS * 100);
+            assertEquals(3 * x * x, prime.evaluateExplicit(x), EPS * 100);
+            assertEquals(Math.cos(x), sine.evaluateExplicit(x), EPS);
+        }
+    }
+
+    // Simplification must not turn an undefined point into a defined one
+    @Test
+    void simplifyKeepsUndefinedPoints() {
+        EquationParser parser = parse("y=ln(x)-ln(x)");
+        assertEquals(0, parser.evaluateExplicit(2));
+        assertTrue(Double.isNaN(parser.evaluateExplicit(-1)));
+
+        EquationParser scaled = parse("y=a*ln(x)").bind(Map.of('a', 0.0));
+        assertTrue(Double.isNaN(scaled.evaluateExplicit(-1)));
+    }
+}
@@ -0,0 +1,163 @@
+package org.example.equation_plotter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.function.DoubleUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Sweeps every approximation over the range documented in FastMath and checks the stated error bound
+class FastMathTest {
+    private static final int SAMPLES = 200_000;
+
+    private static double uniform(Random rnd, double lo, double hi) {
+        return lo + (hi - lo) * rnd.nextDouble();
+    }
+
+    // Positive normal doubles spread evenly over the exponent range
+    private static double logUniform(Random rnd) {
+        return Math.exp(uniform(rnd, Math.log(Double.MIN_NORMAL), Math.log(Double.MAX_VALUE)));
+    }
+
+    private static void assertAbsolute(String name, DoubleUnaryOperator fast, DoubleUnaryOperator exact,
+                                       double bound, double x) {
+        double error = Math.abs(fast.applyAsDouble(x) - exact.applyAsDouble(x));
+        assertTrue(error < bound, () -> name + "(" + x + ") absolute error " + error + " >= " + bound);
+    }
+
+    private static void assertRelative(String name, DoubleUnaryOperator fast, DoubleUnaryOperator exact,
+                                       double bound, double x) {
+        double want = exact.applyAsDouble(x);
+        double error = Math.abs(fast.applyAsDouble(x) - want) / Math.abs(want);
+        assertTrue(error < bound, () -> name + "(" + x + ") relative error " + error + " >= " + bound);
+    }
+
+    @Test
+    void sinAndCos() {
+        Random rnd = new Random(1);
+        for (int i = 0; i < SAMPLES; i++) {
+            // Half the samples near the origin, half over the whole range
+            double x = i % 2 == 0 ? uniform(rnd, -10, 10) : uniform(rnd, -1e6, 1e6);
+            assertAbsolute("sin", FastMath::sin, Math::sin, 2e-9, x);
+            assertAbsolute("cos", FastMath::cos, Math::cos, 2e-9, x);
+        }
+    }
+
+    @Test
+    void tan() {
+        Random rnd = new Random(2);
+        for (int i = 0; i < SAMPLES; i++) {
+            double x = i % 2 == 0 ? uniform(rnd, -10, 10) : uniform(rnd, -1e6, 1e6);
+            if (Math.abs(Math.cos(x)) <= 1e-3) continue;
+            assertRelative("tan", FastMath::tan, Math::tan, 3e-9, x);
+        }
+    }
+
+    @Test
+    void exp() {
+        Random rnd = new Random(3);
+        for (int i = 0; i < SAMPLES; i++) {
+            assertRelative("exp", FastMath::exp, Math::exp, 3e-10, uniform(rnd, -700, 700));
+        }
+    }
+
+    @Test
+    void lnAndLog() {
+        Random rnd = new Random(4);
+        for (int i = 0; i < SAMPLES; i++) {
+            double x = i % 2 == 0 ? uniform(rnd, 1e-3, 1e3) : logUniform(rnd);
+            assertAbsolute("ln", FastMath::ln, Math::log, 2e-11, x);
+            assertAbsolute("log", FastMath::log10, Math::log10, 2e-11, x);
+        }
+    }
+
+    @Test
+    void atan() {
+        Random rnd = new Random(5);
+        for (int i = 0; i < SAMPLES; i++) {
+            double x = switch (i % 3) {
+                case 0 -> uniform(rnd, -4, 4);
+                case 1 -> Math.tan(uniform(rnd, -Math.PI / 2, Math.PI / 2));
+                default -> Math.copySign(logUniform(rnd), rnd.nextBoolean() ? 1 : -1);
+            };
+            assertAbsolute("atan", FastMath::atan, Math::atan, 4e-10, x);
+        }
+    }
+
+    @Test
+    void pow() {
+        Random rnd = new Random(6);
+        for (int i = 0; i < SAMPLES; i++) {
+            double a = Math.exp(uniform(rnd, -20, 20));
+            double b = uniform(rnd, -30, 30);
+            double bound = 3e-10 * (1 + Math.abs(b * Math.log(a)));
+            assertRelative("pow", x -> FastMath.pow(x, b), x -> Math.pow(x, b), bound, a);
+        }
+        // Integer exponents go straight to Math.pow
+        for (int b = -8; b <= 8; b++) {
+            double a = uniform(rnd, -5, 5);
+            assertEquals(Math.pow(a, b), FastMath.pow(a, b));
+        }
+    }
+
+    @Test
+    void hyperbolic() {
+        Random rnd = new Random(7);
+        for (int i = 0; i < SAMPLES; i++) {
+            double x = i % 2 == 0 ? uniform(rnd, -1, 1) : uniform(rnd, -50, 50);
+            assertRelative("sinh", FastMath::sinh, Math::sinh, 1e-9, x);
+            assertRelative("cosh", FastMath::cosh, Math::cosh, 1e-9, x);
+            assertAbsolute("tanh", FastMath::tanh, Math::tanh, 2e-10, i % 4 == 1 ? uniform(rnd, -1e3, 1e3) : x);
+        }
+    }
+
+    @Test
+    void edgeCasesFallBackToMath() {
+        double[] edges = {Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, 1e300, -1e300};
+        for (double x : edges) {
+            assertEquals(Math.sin(x), FastMath.sin(x));
+            assertEquals(Math.cos(x), FastMath.cos(x));
+            assertEquals(Math.exp(x), FastMath.exp(x));
+        }
+        assertEquals(Math.log(0), FastMath.ln(0));
+        assertEquals(Math.log(-1), FastMath.ln(-1));
+        assertEquals(Math.log(Double.MIN_VALUE), FastMath.ln(Double.MIN_VALUE));
+        assertTrue(Double.isNaN(FastMath.atan(Double.NaN)));
+    }
+
+    // approximate() parsers compile to FastMath, so a single function call keeps its documented bound
+    @Test
+    void approximateParsersStayWithinTheBounds() {
+        record Case(String equation, double from, double to, double bound, boolean relative) {
+        }
+        Case[] cases = {
+                new Case("y=sin(x)", -1e3, 1e3, 2e-9, false),
+                new Case("y=cos(x)", -1e3, 1e3, 2e-9, false),
+                new Case("y=exp(x)", -700, 700, 3e-10, true),
+                new Case("y=ln(x)", 1e-6, 1e6, 2e-11, false),
+                new Case("y=log(x)", 1e-6, 1e6, 2e-11, false),
+                new Case("y=atan(x)", -1e4, 1e4, 4e-10, false),
+                new Case("y=tanh(x)", -50, 50, 2e-10, false),
+                new Case("y=sinh(x)", -50, 50, 1e-9, true),
+                new Case("y=cosh(x)", -50, 50, 1e-9, true),
+                // |b ln a| <= 2.5 ln 100 here
+                new Case("y=x^2.5", 1e-2, 1e2, 3e-10 * (1 + 2.5 * Math.log(100)), true),
+        };
+        Random rnd = new Random(8);
+        for (Case c : cases) {
+            EquationParser exact = new EquationParser(c.equation());
+            EquationParser fast = exact.approximate();
+            assertTrue(exact.isValid(), c.equation());
+            assertTrue(fast.isApproximate(), c.equation());
+            for (int i = 0; i < SAMPLES / 20; i++) {
+                double x = uniform(rnd, c.from(), c.to());
+                double want = exact.evaluateExplicit(x);
+                double got = fast.evaluateExplicit(x);
+                double error = Math.abs(got - want) / (c.relative() ? Math.abs(want) : 1);
+                assertTrue(error < c.bound(), () -> c.equation() + " at x=" + x + ": error " + error + " >= " + c.bound());
+            }
+        }
+    }
+}
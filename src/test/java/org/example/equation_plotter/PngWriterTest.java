@@ -0,0 +1,87 @@
+package org.example.equation_plotter;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+// Encodes with PngWriter and decodes with ImageIO, which checks the chunk CRCs and the zlib stream
+class PngWriterTest {
+    private static final int BACKGROUND = 0x1e1e1e;
+
+    private static BufferedImage roundTrip(int[] argb, int width, int height) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (PngWriter png = new PngWriter(bytes, width, height)) {
+            for (int y = 0; y < height; y++) png.writeRow(argb, y * width, BACKGROUND);
+        }
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes.toByteArray()));
+        assertNotNull(image);
+        assertEquals(width, image.getWidth());
+        assertEquals(height, image.getHeight());
+        return image;
+    }
+
+    // Premultiplied ARGB over the background, rounded the way writeRow does it
+    private static int composite(int p) {
+        int inv = 255 - (p >>> 24);
+        int rgb = 0;
+        for (int shift = 16; shift >= 0; shift -= 8) {
+            int c = Math.min(255, ((p >> shift) & 0xff) + (((BACKGROUND >> shift) & 0xff) * inv + 127) / 255);
+            rgb |= c << shift;
+        }
+        return rgb;
+    }
+
+    @Test
+    void opaquePixelsSurviveExactly() throws IOException {
+        int width = 301, height = 77; // odd sizes, so rows are not a multiple of anything convenient
+        int[] argb = new int[width * height];
+        Random rnd = new Random(1);
+        for (int i = 0; i < argb.length; i++) argb[i] = 0xff000000 | rnd.nextInt(1 << 24);
+        BufferedImage image = roundTrip(argb, width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(argb[y * width + x] & 0xffffff, image.getRGB(x, y) & 0xffffff, "pixel " + x + "," + y);
+            }
+        }
+    }
+
+    @Test
+    void translucentPixelsAreCompositedOverTheBackground() throws IOException {
+        int width = 256, height = 4;
+        int[] argb = new int[width * height];
+        for (int x = 0; x < width; x++) {
+            int a = x;
+            argb[x] = 0;                                             // transparent
+            argb[width + x] = a << 24 | (a * 200 / 255) << 16;         // premultiplied red ramp
+            argb[2 * width + x] = a << 24 | a << 16 | a << 8 | a;      // premultiplied white ramp
+            argb[3 * width + x] = 0xff000000 | x << 8;                 // opaque green ramp
+        }
+        BufferedImage image = roundTrip(argb, width, height);
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(composite(argb[y * width + x]), image.getRGB(x, y) & 0xffffff, "pixel " + x + "," + y);
+            }
+        }
+    }
+
+    // Tall enough that the deflated stream spans several IDAT chunks
+    @Test
+    void largeImagesSpanSeveralChunks() throws IOException {
+        int width = 512, height = 1024;
+        int[] argb = new int[width * height];
+        Random rnd = new Random(2);
+        for (int i = 0; i < argb.length; i++) argb[i] = 0xff000000 | rnd.nextInt(1 << 24);
+        BufferedImage image = roundTrip(argb, width, height);
+        for (int i = 0; i < argb.length; i += 997) {
+            assertEquals(argb[i] & 0xffffff, image.getRGB(i % width, i / width) & 0xffffff);
+        }
+    }
+}
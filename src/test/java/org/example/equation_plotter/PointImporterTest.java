@@ -0,0 +1,122 @@
+package org.example.equation_plotter;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// The series is reordered by its PointCloud, so points are compared as sorted (x, y) pairs
+class PointImporterTest {
+    @TempDir
+    Path dir;
+
+    private PointSeries importText(String name, String text) throws IOException {
+        Path file = dir.resolve(name);
+        Files.writeString(file, text, StandardCharsets.US_ASCII);
+        return PointImporter.read(file, () -> false);
+    }
+
+    private static double[][] sorted(PointSeries series) {
+        double[][] points = new double[series.size][];
+        for (int i = 0; i < series.size; i++) points[i] = new double[]{series.xs[i], series.ys[i]};
+        Arrays.sort(points, Comparator.<double[]>comparingDouble(p -> p[0]).thenComparingDouble(p -> p[1]));
+        return points;
+    }
+
+    private static void assertPoints(double[][] expected, PointSeries series) {
+        assertEquals(expected.length, series.size);
+        double[][] actual = sorted(series);
+        Arrays.sort(expected, Comparator.<double[]>comparingDouble(p -> p[0]).thenComparingDouble(p -> p[1]));
+        for (int i = 0; i < expected.length; i++) assertArrayEquals(expected[i], actual[i]);
+    }
+
+    @Test
+    void skipsHeadersCommentsAndJunk() throws IOException {
+        PointSeries series = importText("data.csv", """
+                time,value
+                # measured 2024
+                1,2
+                3;4
+                5\t6
+                "7","8"
+                n/a,9
+                10
+                11 12 13
+                """);
+        assertPoints(new double[][]{{1, 2}, {3, 4}, {5, 6}, {7, 8}, {11, 12}}, series);
+    }
+
+    @Test
+    void windowsLineEndings() throws IOException {
+        PointSeries series = importText("crlf.csv", "x,y\r\n1.5,-2\r\n3,4.25\r\n");
+        assertPoints(new double[][]{{1.5, -2}, {3, 4.25}}, series);
+    }
+
+    @Test
+    void exponentsAndSigns() throws IOException {
+        PointSeries series = importText("exp.csv", """
+                1e3,-2.5E-3
+                +4.2e+1,6E0
+                .5,-.25
+                1e400,1
+                2e,3
+                """);
+        // 1e400 overflows and "2e" has no exponent digits: both lines are dropped
+        assertPoints(new double[][]{{1000, -0.0025}, {42, 6}, {0.5, -0.25}}, series);
+    }
+
+    // Beyond 15 significant digits (or a power of ten past 1e22) the parse falls back to the JDK
+    @Test
+    void longLiteralsRoundLikeParseDouble() throws IOException {
+        String[] literals = {"0.1", "3.141592653589793238", "123456789012345678901234", "0.000000000000000000000000123",
+                "9007199254740993", "1e23", "1.7976931348623157e308", "4.9e-324", "000000000000000000000000.5"};
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < literals.length; i++) text.append(i).append(',').append(literals[i]).append('\n');
+        PointSeries series = importText("long.csv", text.toString());
+
+        double[][] expected = new double[literals.length][];
+        for (int i = 0; i < literals.length; i++) expected[i] = new double[]{i, Double.parseDouble(literals[i])};
+        assertPoints(expected, series);
+    }
+
+    @Test
+    void randomDecimalsMatchParseDouble() throws IOException {
+        Random rnd = new Random(1);
+        int n = 20_000;
+        StringBuilder text = new StringBuilder();
+        double[][] expected = new double[n][];
+        for (int i = 0; i < n; i++) {
+            String literal = String.format(Locale.ROOT, "%." + rnd.nextInt(18) + "e", (rnd.nextDouble() - 0.5) * Math.pow(10, rnd.nextInt(40) - 20));
+            text.append(i).append(',').append(literal).append('\n');
+            expected[i] = new double[]{i, Double.parseDouble(literal)};
+        }
+        assertPoints(expected, importText("random.csv", text.toString()));
+    }
+
+    @Test
+    void binaryPairs() throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(4 * 16).order(ByteOrder.LITTLE_ENDIAN);
+        buf.putDouble(1).putDouble(2).putDouble(3).putDouble(Double.NaN).putDouble(-5).putDouble(6).putDouble(7).putDouble(8);
+        Path file = dir.resolve("pairs.f64");
+        Files.write(file, buf.array());
+        // The NaN pair is dropped
+        assertPoints(new double[][]{{1, 2}, {-5, 6}, {7, 8}}, PointImporter.read(file, () -> false));
+
+        Path odd = dir.resolve("odd.bin");
+        Files.write(odd, new byte[24]);
+        assertThrows(IOException.class, () -> PointImporter.read(odd, () -> false));
+    }
+}
@@ -0,0 +1,143 @@
+package org.example.equation_plotter;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Load test for RenderServer over localhost. Starts a server on a free port (or targets --url), then
+// fires requests from many virtual-thread clients that pan and zoom around a few dashboard scenes, the
+// way a wall of dashboards would. Reports throughput, latency percentiles and the server's tile hit rate.
+// mvn test runs a short smoke load; run main from the test classpath for a full one:
+//
+//   --clients N     concurrent clients (default 32)
+//   --requests N    requests per client (default 50)
+//   --url URL       existing server, e.g. http://127.0.0.1:8080 (default: start one in-process)
+class RenderLoadTest {
+    private static final String[][] SCENES = {
+            {"y=sin(x)", "y=cos(x)*x/4"},
+            {"x^2+y^2=16", "y=x^3/20"},
+            {"sin(x)*sin(y)=0.3"},
+            {"y=a*exp(-x^2/b)", "x^3+y^3=3xy"},
+    };
+
+    @Test
+    void smallLoadHasNoFailures() throws Exception {
+        RenderServer server = new RenderServer(0, 50_000_000L, 10_000);
+        server.start();
+        try {
+            assertEquals(0, run("http://127.0.0.1:" + server.port(), 4, 5));
+        } finally {
+            server.stop();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = 32, perClient = 50;
+        String url = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--clients" -> clients = Integer.parseInt(args[i + 1]);
+                case "--requests" -> perClient = Integer.parseInt(args[i + 1]);
+                case "--url" -> url = args[i + 1];
+                default -> throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+
+        RenderServer server = null;
+        if (url == null) {
+            server = new RenderServer(0, 50_000_000L, 10_000);
+            server.start();
+            url = "http://127.0.0.1:" + server.port();
+        }
+        try {
+            run(url, clients, perClient);
+        } finally {
+            if (server != null) server.stop();
+        }
+    }
+
+    // Returns the number of failed requests
+    private static long run(String base, int clients, int perClient) throws Exception {
+        HttpClient http = HttpClient.newBuilder().executor(Executors.newVirtualThreadPerTaskExecutor()).build();
+        long start = System.nanoTime();
+        List<Future<long[]>> results = new ArrayList<>();
+        try (ExecutorService pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int c = 0; c < clients; c++) {
+                int client = c;
+                int requests = perClient;
+                results.add(pool.submit(() -> runClient(http, base, client, requests)));
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        List<Long> latencies = new ArrayList<>();
+        long failures = 0;
+        for (Future<long[]> result : results) {
+            long[] times = result.get();
+            for (long t : times) {
+                if (t < 0) failures++;
+                else latencies.add(t);
+            }
+        }
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        System.out.printf(Locale.ROOT, "%d requests in %.2f s: %.1f req/s, %d failed%n",
+                sorted.length + failures, seconds, sorted.length / seconds, failures);
+        if (sorted.length > 0) {
+            System.out.printf(Locale.ROOT, "latency ms: p50 %.1f  p90 %.1f  p99 %.1f  max %.1f%n",
+                    percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99), sorted[sorted.length - 1] / 1e6);
+        }
+        HttpResponse<String> stats = http.send(HttpRequest.newBuilder(URI.create(base + "/stats")).build(),
+                HttpResponse.BodyHandlers.ofString());
+        System.out.print(stats.body());
+        return failures;
+    }
+
+    // Returns the latency of every request in nanoseconds, -1 for a failed one
+    private static long[] runClient(HttpClient http, String base, int client, int requests) throws InterruptedException {
+        Random random = new Random(client);
+        String[] scene = SCENES[client % SCENES.length];
+        StringBuilder eqs = new StringBuilder();
+        for (String eq : scene) eqs.append("&eq=").append(URLEncoder.encode(eq, StandardCharsets.UTF_8));
+
+        // Each client pans around its scene in small steps, zooming now and then
+        double cx = 0, cy = 0, span = 20;
+        long[] times = new long[requests];
+        for (int i = 0; i < requests; i++) {
+            if (random.nextInt(10) == 0) span = random.nextBoolean() ? 10 : 20;
+            cx += (random.nextInt(5) - 2) * span / 16;
+            cy += (random.nextInt(5) - 2) * span / 16;
+            String query = String.format(Locale.ROOT, "/render?width=800&height=600&x=%.4f,%.4f&center=%.4f,%.4f%s",
+                    cx - span / 2, cx + span / 2, cx, cy, eqs);
+            long t0 = System.nanoTime();
+            try {
+                HttpResponse<byte[]> response = http.send(HttpRequest.newBuilder(URI.create(base + query)).build(),
+                        HttpResponse.BodyHandlers.ofByteArray());
+                times[i] = response.statusCode() == 200 ? System.nanoTime() - t0 : -1;
+            } catch (IOException e) {
+                times[i] = -1;
+            }
+        }
+        return times;
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(p * sorted.length))] / 1e6;
+    }
+}
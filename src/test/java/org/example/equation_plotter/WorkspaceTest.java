@@ -0,0 +1,97 @@
+package org.example.equation_plotter;
+
+import javafx.scene.paint.Color;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class WorkspaceTest {
+    @TempDir
+    Path dir;
+
+    private static Workspace sample() {
+        EquationParser explicit = new EquationParser("y=a*sin(x)");
+        EquationParser implicit = new EquationParser("x^2+y^2=4");
+        EquationData.Samples samples = EquationData.computeSamples(explicit.bindCurrentValues(), -10, 10, 800);
+        List<double[]> lines = PlotEngine.traceImplicitView(implicit.bindCurrentValues(), 0, 0, 40, 800, 600, () -> false);
+        assertNotNull(lines);
+        return new Workspace(1.5, -2.25, 40, List.of(
+                new Workspace.Row("y=a*sin(x)", Color.rgb(255, 0, 0), Map.of('a', new Workspace.Param(2.5, -5, 5)), samples, null),
+                new Workspace.Row("x^2+y^2=4", Color.rgb(0, 128, 255, 0.6), Map.of(), null, new CachedImplicit(lines, 40, 0, 0)),
+                new Workspace.Row("(1,2)", Color.rgb(10, 20, 30), Map.of(), null, null)));
+    }
+
+    @Test
+    void roundTripsViewRowsAndGeometry() throws IOException {
+        Workspace saved = sample();
+        Path file = dir.resolve("plot.eqw");
+        saved.write(file, true);
+        Workspace loaded = Workspace.read(file);
+
+        assertEquals(saved.cx, loaded.cx);
+        assertEquals(saved.cy, loaded.cy);
+        assertEquals(saved.scale, loaded.scale);
+        assertEquals(saved.rows.size(), loaded.rows.size());
+        for (int i = 0; i < saved.rows.size(); i++) {
+            Workspace.Row want = saved.rows.get(i), got = loaded.rows.get(i);
+            assertEquals(want.text(), got.text());
+            assertEquals(want.color(), got.color());
+            assertEquals(want.params(), got.params());
+        }
+
+        EquationData.Samples want = saved.rows.get(0).samples(), got = loaded.rows.get(0).samples();
+        assertEquals(want.step, got.step);
+        assertEquals(want.xStart, got.xStart);
+        assertEquals(want.visibleWidth, got.visibleWidth);
+        assertEquals(want.width, got.width);
+        assertEquals(want.yCache.length, got.yCache.length);
+        for (int b = 0; b < want.yCache.length; b++) assertArrayEquals(want.yCache[b], got.yCache[b]);
+        assertNull(loaded.rows.get(0).implicit());
+
+        CachedImplicit wantLines = saved.rows.get(1).implicit(), gotLines = loaded.rows.get(1).implicit();
+        assertEquals(wantLines.scale, gotLines.scale);
+        assertEquals(wantLines.cx, gotLines.cx);
+        assertEquals(wantLines.cy, gotLines.cy);
+        assertEquals(wantLines.lines.size(), gotLines.lines.size());
+        for (int s = 0; s < wantLines.lines.size(); s++) assertArrayEquals(wantLines.lines.get(s), gotLines.lines.get(s));
+
+        assertNull(loaded.rows.get(2).samples());
+        assertNull(loaded.rows.get(2).implicit());
+    }
+
+    @Test
+    void geometryIsOptional() throws IOException {
+        Path file = dir.resolve("light.eqw");
+        sample().write(file, false);
+        Workspace loaded = Workspace.read(file);
+        for (Workspace.Row row : loaded.rows) {
+            assertNull(row.samples());
+            assertNull(row.implicit());
+        }
+        assertEquals("x^2+y^2=4", loaded.rows.get(1).text());
+    }
+
+    @Test
+    void truncatedFilesAreReported() throws IOException {
+        Path file = dir.resolve("cut.eqw");
+        sample().write(file, true);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> Workspace.read(file));
+
+        Path other = dir.resolve("other.eqw");
+        Files.writeString(other, "not a workspace");
+        assertThrows(IOException.class, () -> Workspace.read(other));
+    }
+}